@@ -0,0 +1,77 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Tiempo de arranque de la aplicación completa (con Tomcat) contra una base H2 que ya tiene el
+ * esquema, como al reiniciar una instancia. "update" es la configuración de desarrollo: Hibernate
+ * inspecciona y actualiza el esquema. "prod" es el perfil de producción: Flyway revisa su historial
+ * y Hibernate no toca el esquema. Cada medición es un arranque en frío en su propia JVM, así que
+ * conviene correrlo con varios forks y una sola iteración (-f 5 -wi 0 -i 1).
+ *
+ * El esquema se crea con Flyway antes de medir, así que en ambos modos sus clases ya están
+ * cargadas. Con el dialecto de MySQL sobre H2, "update" no ve los índices existentes e intenta
+ * crearlos de nuevo: los avisos de "already exists" en el log son esperables. AOT y AppCDS se miden
+ * arrancando el jar, ver README.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(5)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ArranqueBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:arranque;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    @Param({ "update", "prod" })
+    private String modo;
+
+    private ConfigurableApplicationContext contexto;
+    private String[] perfiles;
+    private String[] argumentos;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Flyway.configure().dataSource(URL, "sa", "").load().migrate();
+        String dialecto = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect"; // el de producción
+        if ("prod".equals(modo)) {
+            perfiles = new String[] { "prod" };
+            // Los argumentos prevalecen sobre el perfil: se repiten sus valores
+            argumentos = ContextoBench.argumentos("spring.datasource.url=" + URL, dialecto,
+                    "spring.flyway.enabled=true", "spring.jpa.hibernate.ddl-auto=none");
+        } else {
+            perfiles = new String[0];
+            argumentos = ContextoBench.argumentos("spring.datasource.url=" + URL, dialecto,
+                    "spring.jpa.hibernate.ddl-auto=update");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext arrancar() {
+        contexto = ContextoBench.builder(WebApplicationType.SERVLET).profiles(perfiles).run(argumentos);
+        return contexto;
+    }
+}
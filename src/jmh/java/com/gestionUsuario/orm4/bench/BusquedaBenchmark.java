@@ -0,0 +1,80 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.gestionUsuario.orm4.cache.UsuarioBusquedaIndex;
+import com.gestionUsuario.orm4.dto.ResultadoBusqueda;
+import com.gestionUsuario.orm4.dto.UsuarioBuscable;
+
+/**
+ * Latencia de UsuarioBusquedaIndex.buscar (limit 20) sobre usuarios sintéticos con nombres
+ * chilenos frecuentes. SampleTime reporta p50, p99 y p99.9. Cada invocación toma la siguiente
+ * consulta de una mezcla de prefijos cortos, nombres completos, errores de tipeo, RUT y emails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+public class BusquedaBenchmark {
+
+    private static final String[] NOMBRES = { "María", "José", "Juan", "Ana", "Luis", "Carmen", "Francisco", "Rosa",
+            "Pedro", "Isabel", "Jorge", "Patricia", "Carlos", "Claudia", "Manuel", "Verónica", "Sergio", "Paola",
+            "Ricardo", "Marcela", "Cristián", "Daniela", "Felipe", "Camila", "Sebastián", "Valentina", "Matías",
+            "Javiera", "Benjamín", "Constanza", "Tomás", "Fernanda", "Diego", "Catalina", "Nicolás", "Francisca",
+            "Vicente", "Antonia", "Joaquín", "Ignacia" };
+
+    private static final String[] APELLIDOS = { "González", "Muñoz", "Rojas", "Díaz", "Pérez", "Soto", "Contreras",
+            "Silva", "Martínez", "Sepúlveda", "Morales", "Rodríguez", "López", "Fuentes", "Hernández", "Torres",
+            "Araya", "Flores", "Espinoza", "Valenzuela", "Castillo", "Tapia", "Reyes", "Gutiérrez", "Castro",
+            "Pizarro", "Álvarez", "Vásquez", "Sánchez", "Fernández", "Ramírez", "Carrasco", "Gómez", "Cortés",
+            "Herrera", "Núñez", "Jara", "Vergara", "Rivera", "Figueroa", "Riquelme", "García", "Miranda", "Bravo",
+            "Vera", "Molina", "Vega", "Campos", "Sandoval", "Orellana", "Zúñiga", "Olivares", "Alarcón", "Gallardo",
+            "Ortiz", "Garrido", "Salazar", "Guzmán", "Henríquez", "Saavedra", "Navarro", "Aguilera", "Parra",
+            "Romero", "Aravena", "Vargas", "Vázquez", "Cáceres", "Yáñez", "Leiva", "Escobar", "Ruiz", "Valdés",
+            "Vidal", "Salinas", "Zamora", "Lagos", "Bustos", "Medina", "Acuña", "Quezada", "Cerda", "Poblete" };
+
+    private static final String[] CONSULTAS = { "ma", "gonz", "maria gonzalez", "jose perez soto", "valenzuela",
+            "sepulveda", "sepulbeda", "valensuela", "gonzales", "fernandes rojas", "cristian", "cris", "12.345",
+            "1234567", "maria.gonzalez", "@example.com", "a", "zuñiga vera", "francisca m", "riquelme ignacia" };
+
+    @Param({ "1000000" })
+    private int usuarios;
+
+    private UsuarioBusquedaIndex indice;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        List<UsuarioBuscable> lista = new ArrayList<>(usuarios);
+        for (int i = 1; i <= usuarios; i++) {
+            String nombre = NOMBRES[random.nextInt(NOMBRES.length)];
+            String apellido1 = APELLIDOS[random.nextInt(APELLIDOS.length)];
+            String apellido2 = APELLIDOS[random.nextInt(APELLIDOS.length)];
+            int rut = 5_000_000 + i * 7;
+            String email = (nombre + "." + apellido1 + i + "@example.com").toLowerCase();
+            lista.add(new UsuarioBuscable(i, nombre + " " + apellido1 + " " + apellido2, rut + "-" + (i % 10), email));
+        }
+        indice = new UsuarioBusquedaIndex();
+        indice.cargar(lista);
+    }
+
+    @Benchmark
+    public List<ResultadoBusqueda> buscar() {
+        siguiente = (siguiente + 1) % CONSULTAS.length;
+        return indice.buscar(CONSULTAS[siguiente], 20);
+    }
+}
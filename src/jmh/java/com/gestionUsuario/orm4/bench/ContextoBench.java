@@ -0,0 +1,48 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gestionUsuario.orm4.GestUsuariosApplication;
+
+// Levanta la aplicación contra una base H2 en memoria, sin MySQL ni log de SQL
+final class ContextoBench {
+
+    private static final String[] PROPIEDADES = {
+            "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;MODE=MySQL",
+            "spring.datasource.username=sa",
+            "spring.datasource.password=",
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "spring.jpa.show-sql=false",
+            "spring.main.banner-mode=off",
+            "logging.level.root=WARN",
+            "server.port=0",
+            "sesion.reaper.habilitado=false",
+            "contrasena.bcrypt.costo=4" }; // los datos de prueba no miden el hash
+
+    private ContextoBench() {
+    }
+
+    static ConfigurableApplicationContext iniciar(WebApplicationType tipo, String... propiedades) {
+        return builder(tipo).run(argumentos(propiedades));
+    }
+
+    static SpringApplicationBuilder builder(WebApplicationType tipo) {
+        return new SpringApplicationBuilder(GestUsuariosApplication.class).web(tipo);
+    }
+
+    // Como argumentos de línea de comandos, para que prevalezcan sobre application.properties.
+    // Una propiedad recibida reemplaza a la de PROPIEDADES con la misma clave
+    static String[] argumentos(String... propiedades) {
+        Map<String, String> porClave = new LinkedHashMap<>();
+        Stream.concat(Stream.of(PROPIEDADES), Stream.of(propiedades))
+                .forEach(p -> porClave.put(p.substring(0, p.indexOf('=')), p));
+        return porClave.values().stream().map(p -> "--" + p).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.gestionUsuario.orm4.service.ContrasenaService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Verificaciones de contraseña (logins) por segundo y por núcleo según el costo BCrypt.
+ * Un solo hilo cliente y un pool de un hilo: el resultado es la capacidad de un núcleo.
+ * "directo" verifica en el hilo del benchmark; "pool" pasa por el executor acotado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+public class ContrasenaBenchmark {
+
+    @Param({ "10", "12" })
+    private int costo;
+
+    private BCryptPasswordEncoder encoder;
+    private ContrasenaService contrasenaService;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(costo);
+        contrasenaService = new ContrasenaService(costo, 1, 64, new SimpleMeterRegistry());
+        hash = contrasenaService.hashear("contrasena-de-prueba");
+    }
+
+    @TearDown
+    public void cerrar() {
+        contrasenaService.destroy();
+    }
+
+    @Benchmark
+    public boolean directo() {
+        return encoder.matches("contrasena-de-prueba", hash);
+    }
+
+    @Benchmark
+    public boolean pool() {
+        return contrasenaService.verificar("contrasena-de-prueba", hash).coincide();
+    }
+}
@@ -0,0 +1,52 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.model.Usuario;
+
+// Datos de ejemplo comunes a los benchmarks
+final class Datos {
+
+    private Datos() {
+    }
+
+    static List<Permiso> permisos(int cantidad) {
+        List<Permiso> permisos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            permisos.add(new Permiso(i, "Permiso " + i, "Descripción del permiso " + i));
+        }
+        return permisos;
+    }
+
+    static List<Rol> roles(int cantidad) {
+        List<Rol> roles = new ArrayList<>(cantidad);
+        for (Permiso permiso : permisos(cantidad)) {
+            roles.add(new Rol(permiso.getIdPermiso(), "Rol " + permiso.getIdPermiso(), permiso));
+        }
+        return roles;
+    }
+
+    static List<Usuario> usuarios(int cantidad) {
+        List<Rol> roles = roles(5);
+        List<Usuario> usuarios = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            usuarios.add(new Usuario(i, "Usuario " + i, i + "-K", "usuario" + i + "@hospital.cl", "contrasena" + i,
+                    "9" + (10000000 + i), i % 7 != 0, roles.get(i % roles.size())));
+        }
+        return usuarios;
+    }
+
+    static List<Sesion> sesiones(int cantidad) {
+        long ahora = System.currentTimeMillis();
+        List<Sesion> sesiones = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            sesiones.add(new Sesion("token-" + i + "-" + Long.toHexString(ahora), new Date(ahora + i * 1000L)));
+        }
+        return sesiones;
+    }
+}
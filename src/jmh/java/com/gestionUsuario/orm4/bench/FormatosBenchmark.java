@@ -0,0 +1,78 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.gestionUsuario.orm4.model.Usuario;
+
+/**
+ * Respuesta de GET /api/usuario (lista de usuarios completos) en JSON, CBOR y Smile: escritura en
+ * el servidor y lectura en el cliente. Los mappers se arman como los de FormatosBinariosConfig,
+ * con las fechas como texto igual que Spring Boot. El tamaño de cada formato, sin comprimir y con
+ * gzip, se imprime al preparar el benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FormatosBenchmark {
+
+    @Param({ "10000" })
+    private int tamano;
+
+    @Param({ "json", "cbor", "smile" })
+    private String formato;
+
+    private ObjectMapper mapper;
+    private JavaType tipo;
+    private List<Usuario> usuarios;
+    private byte[] respuesta;
+
+    @Setup
+    public void preparar() throws IOException {
+        JsonFactory factory = switch (formato) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        mapper = Jackson2ObjectMapperBuilder.json().factory(factory)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        tipo = mapper.getTypeFactory().constructCollectionType(List.class, Usuario.class);
+        usuarios = Datos.usuarios(tamano);
+        respuesta = mapper.writeValueAsBytes(usuarios);
+
+        ByteArrayOutputStream comprimida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(comprimida)) {
+            gzip.write(respuesta);
+        }
+        System.out.printf("%n%s, %d usuarios: %d bytes, %d bytes con gzip%n", formato, tamano, respuesta.length, comprimida.size());
+    }
+
+    @Benchmark
+    public byte[] escribir() throws IOException {
+        return mapper.writeValueAsBytes(usuarios);
+    }
+
+    @Benchmark
+    public List<Usuario> leer() throws IOException {
+        return mapper.readValue(respuesta, tipo);
+    }
+}
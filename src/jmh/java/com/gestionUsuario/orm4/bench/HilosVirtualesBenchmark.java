@@ -0,0 +1,145 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.service.PermisoService;
+import com.gestionUsuario.orm4.service.RolService;
+import com.gestionUsuario.orm4.service.UsuarioService;
+
+/**
+ * Prueba de carga HTTP contra Tomcat real, con hilos de plataforma o virtuales. Cada sentencia
+ * SQL espera "latenciaMs" mientras retiene su conexión, como una base MySQL lenta. El grupo
+ * "mixto" satura GET /api/usuario/{id} (usa la base) con 64 clientes y mide a la vez la
+ * verificación de permisos, que se responde desde memoria: con hilos de plataforma espera a
+ * que se libere un hilo de Tomcat; con hilos virtuales no. Tomcat se limita a 32 hilos (en vez
+ * de 200) para reproducir el agotamiento del pool con una carga que quepa en una máquina pequeña.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HilosVirtualesBenchmark {
+
+    private static final int USUARIOS = 100;
+
+    @Param({ "false", "true" })
+    private boolean hilosVirtuales;
+
+    @Param({ "50" })
+    private long latenciaMs;
+
+    private ServletWebServerApplicationContext contexto;
+    private HttpClient cliente;
+    private String base;
+    private int primerId;
+    private int idPermiso;
+
+    @Setup
+    public void preparar() {
+        long latencia = latenciaMs;
+        contexto = (ServletWebServerApplicationContext) ContextoBench.builder(WebApplicationType.SERVLET)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String nombre) {
+                        return bean instanceof DataSource dataSource ? conLatencia(dataSource, latencia) : bean;
+                    }
+                }))
+                .run(ContextoBench.argumentos(
+                        "spring.threads.virtual.enabled=" + hilosVirtuales,
+                        "server.tomcat.threads.max=32",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"));
+
+        Permiso permiso = contexto.getBean(PermisoService.class).save(new Permiso(0, "Leer", "Sólo lectura."));
+        Rol rol = contexto.getBean(RolService.class).save(new Rol(0, "Lector", permiso));
+        UsuarioService usuarioService = contexto.getBean(UsuarioService.class);
+        for (Usuario usuario : Datos.usuarios(USUARIOS)) {
+            usuario.setIdUsuario(0);
+            usuario.setRol(rol);
+            int id = usuarioService.save(usuario).getIdUsuario();
+            primerId = primerId == 0 ? id : primerId;
+        }
+        idPermiso = permiso.getIdPermiso();
+        base = "http://localhost:" + contexto.getWebServer().getPort();
+        cliente = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    }
+
+    @TearDown
+    public void cerrar() {
+        cliente.close();
+        contexto.close();
+    }
+
+    private int get(String ruta) throws Exception {
+        return cliente.send(HttpRequest.newBuilder(URI.create(base + ruta)).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int usuarioAlAzar() {
+        return primerId + ThreadLocalRandom.current().nextInt(USUARIOS);
+    }
+
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(64)
+    public int consultaUsuario() throws Exception {
+        return get("/api/usuario/" + usuarioAlAzar());
+    }
+
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(4)
+    public int verificaPermiso() throws Exception {
+        return get("/api/usuario/" + usuarioAlAzar() + "/permisos/" + idPermiso);
+    }
+
+    // Cada sentencia preparada espera "latencia" ms con la conexión tomada
+    private static DataSource conLatencia(DataSource dataSource, long latencia) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws java.sql.SQLException {
+                Connection conexion = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[] { Connection.class }, (proxy, metodo, argumentos) -> {
+                            if (metodo.getName().startsWith("prepare")) {
+                                Thread.sleep(latencia);
+                            }
+                            try {
+                                return metodo.invoke(conexion, argumentos);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+}
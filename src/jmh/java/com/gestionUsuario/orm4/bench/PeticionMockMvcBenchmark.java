@@ -0,0 +1,83 @@
+package com.gestionUsuario.orm4.bench;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.PermisoRepository;
+import com.gestionUsuario.orm4.repository.RolRepository;
+import com.gestionUsuario.orm4.service.UsuarioService;
+
+/**
+ * Petición completa por MockMvc (filtros, controlador, servicio, H2 y serialización),
+ * sin la pila de red. Cada resultado incluye el cuerpo de la respuesta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PeticionMockMvcBenchmark {
+
+    @Param({ "100", "1000" })
+    private int usuarios;
+
+    private ConfigurableApplicationContext contexto;
+    private MockMvc mockMvc;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBench.iniciar(WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) contexto).build();
+
+        Rol rol = Datos.roles(1).get(0);
+        rol.setIdRol(0);
+        rol.getPermiso().setIdPermiso(0);
+        rol.setPermiso(contexto.getBean(PermisoRepository.class).save(rol.getPermiso()));
+        rol = contexto.getBean(RolRepository.class).save(rol);
+
+        UsuarioService usuarioService = contexto.getBean(UsuarioService.class);
+        for (Usuario usuario : Datos.usuarios(usuarios)) {
+            usuario.setIdUsuario(0);
+            usuario.setRol(rol);
+            usuarioService.save(usuario);
+        }
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public String listado() throws Exception {
+        return mockMvc.perform(get("/api/usuario")).andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String listadoHateoas() throws Exception {
+        return mockMvc.perform(get("/api/usuarioV2")).andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String porId() throws Exception {
+        siguiente = siguiente % usuarios + 1;
+        return mockMvc.perform(get("/api/usuario/{id}", siguiente)).andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.model.Usuario;
+
+/**
+ * Serialización a JSON de las colecciones que devuelven los GET de listado. Usa un
+ * ObjectMapper armado igual que el de Spring MVC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializacionBenchmark {
+
+    @Param({ "100", "10000" })
+    private int tamano;
+
+    private ObjectMapper mapper;
+    private List<Usuario> usuarios;
+    private List<Rol> roles;
+    private List<Permiso> permisos;
+    private List<Sesion> sesiones;
+
+    @Setup
+    public void preparar() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        usuarios = Datos.usuarios(tamano);
+        roles = Datos.roles(tamano);
+        permisos = Datos.permisos(tamano);
+        sesiones = Datos.sesiones(tamano);
+    }
+
+    @Benchmark
+    public byte[] usuarios() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(usuarios);
+    }
+
+    @Benchmark
+    public byte[] roles() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(roles);
+    }
+
+    @Benchmark
+    public byte[] permisos() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(permisos);
+    }
+
+    @Benchmark
+    public byte[] sesiones() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(sesiones);
+    }
+}
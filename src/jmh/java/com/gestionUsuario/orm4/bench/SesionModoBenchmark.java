@@ -0,0 +1,93 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gestionUsuario.orm4.cache.SesionTokenCache;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.service.SesionFirmadaService;
+import com.gestionUsuario.orm4.service.SesionService;
+
+/**
+ * Validaciones por segundo de SesionService.validar según sesion.modo, sobre H2 en memoria.
+ * "validar" es el camino real (en modo tabla, casi siempre un acierto de la caché de tokens);
+ * "validarSinCache" invalida antes la caché de tokens, así que el modo tabla consulta la tabla
+ * en cada llamada. El modo firmado no usa esa caché: sólo verifica la firma y el filtro de Bloom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SesionModoBenchmark {
+
+    private static final int SESIONES = 10000;
+    private static final int REVOCADAS = 1000;
+
+    @Param({ "tabla", "firmado" })
+    private String modo;
+
+    private ConfigurableApplicationContext contexto;
+    private SesionService sesionService;
+    private SesionTokenCache sesionTokenCache;
+    private String[] tokens;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBench.iniciar(WebApplicationType.NONE, "sesion.modo=" + modo,
+                "sesion.firma.clave=AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8="); // obligatoria en modo firmado
+        sesionService = contexto.getBean(SesionService.class);
+        sesionTokenCache = contexto.getBean(SesionTokenCache.class);
+        Date expiracion = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        tokens = new String[SESIONES];
+        if ("firmado".equals(modo)) {
+            SesionFirmadaService firmadas = contexto.getBean(SesionFirmadaService.class);
+            for (int i = 0; i < SESIONES; i++) {
+                tokens[i] = firmadas.emitir(i + 1, expiracion).getToken();
+            }
+            // Algunos tokens revocados para que el filtro de Bloom no esté vacío
+            for (int i = 0; i < REVOCADAS; i++) {
+                firmadas.revocar(firmadas.emitir(i + 1, expiracion).getToken());
+            }
+        } else {
+            for (int i = 0; i < SESIONES; i++) {
+                Sesion sesion = new Sesion("token-" + i + "-" + Long.toHexString(System.nanoTime()), expiracion, i + 1);
+                sesionService.crear(sesion);
+                tokens[i] = sesion.getToken();
+            }
+        }
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    private String token() {
+        siguiente = (siguiente + 1) % SESIONES;
+        return tokens[siguiente];
+    }
+
+    @Benchmark
+    public boolean validar() {
+        return sesionService.validar(token());
+    }
+
+    @Benchmark
+    public boolean validarSinCache() {
+        String token = token();
+        sesionTokenCache.invalidar(token);
+        return sesionService.validar(token);
+    }
+}
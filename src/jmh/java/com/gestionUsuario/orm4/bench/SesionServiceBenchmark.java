@@ -0,0 +1,73 @@
+package com.gestionUsuario.orm4.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gestionUsuario.orm4.cache.SesionTokenCache;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.service.SesionService;
+
+/**
+ * Validación de tokens con SesionService.existsByToken sobre H2 en memoria.
+ * "cache" valida tokens ya conocidos; "baseDeDatos" invalida el token antes de
+ * validarlo, así que cada llamada llega a la tabla sesion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SesionServiceBenchmark {
+
+    private static final int SESIONES = 10000;
+
+    private ConfigurableApplicationContext contexto;
+    private SesionService sesionService;
+    private SesionTokenCache sesionTokenCache;
+    private String[] tokens;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBench.iniciar(WebApplicationType.NONE);
+        sesionService = contexto.getBean(SesionService.class);
+        sesionTokenCache = contexto.getBean(SesionTokenCache.class);
+        List<Sesion> sesiones = Datos.sesiones(SESIONES);
+        tokens = new String[SESIONES];
+        for (int i = 0; i < SESIONES; i++) {
+            sesionService.crear(sesiones.get(i));
+            tokens[i] = sesiones.get(i).getToken();
+        }
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    private String token() {
+        siguiente = (siguiente + 1) % SESIONES;
+        return tokens[siguiente];
+    }
+
+    @Benchmark
+    public boolean cache() {
+        return sesionService.existsByToken(token());
+    }
+
+    @Benchmark
+    public boolean baseDeDatos() {
+        String token = token();
+        sesionTokenCache.invalidar(token);
+        return sesionService.existsByToken(token);
+    }
+}
@@ -0,0 +1,83 @@
+package com.gestionUsuario.orm4.bench;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.gestionUsuario.orm4.assemblers.UsuarioModelAssembler;
+import com.gestionUsuario.orm4.controller.UsuarioController;
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+
+/**
+ * Compara el assembler que resolvía linkTo(methodOn(...)) dos veces por usuario con el
+ * actual, que resuelve los enlaces una vez por petición. Cada invocación simula una
+ * petición GET /api/usuarioV2 que arma el modelo de toda la colección.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UsuarioModelAssemblerBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    private int usuarios;
+
+    private List<Usuario> coleccion;
+    private final UsuarioModelAssembler assembler = new UsuarioModelAssembler();
+
+    @Setup
+    public void preparar() {
+        Rol rol = new Rol(1, "Administrador", new Permiso(1, "Administrador", "Acceso completo."));
+        coleccion = new ArrayList<>(usuarios);
+        for (int i = 1; i <= usuarios; i++) {
+            coleccion.add(new Usuario(i, "Usuario " + i, i + "-K", "u" + i + "@example.com", "pass", null, true, rol));
+        }
+    }
+
+    @TearDown
+    public void limpiar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static void nuevaPeticion() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/usuarioV2")));
+    }
+
+    @Benchmark
+    public void anterior(Blackhole bh) {
+        nuevaPeticion();
+        for (Usuario usuario : coleccion) {
+            bh.consume(EntityModel.of(usuario,
+                    linkTo(methodOn(UsuarioController.class).getUsuarioById(usuario.getIdUsuario())).withSelfRel(),
+                    linkTo(methodOn(UsuarioController.class).getUsuarios(null)).withRel("usuarios")));
+        }
+    }
+
+    @Benchmark
+    public void actual(Blackhole bh) {
+        nuevaPeticion();
+        for (Usuario usuario : coleccion) {
+            bh.consume(assembler.toModel(usuario));
+        }
+    }
+}
@@ -2,8 +2,14 @@ package com.gestionUsuario.orm4;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.gestionUsuario.orm4.config.RuntimeHintsNativos;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(RuntimeHintsNativos.class) // imagen nativa, ver perfil native
 public class GestUsuariosApplication {
 
 	public static void main(String[] args) {
@@ -3,22 +3,54 @@ package com.gestionUsuario.orm4.assemblers;
 import com.gestionUsuario.orm4.controller.UsuarioController;
 import com.gestionUsuario.orm4.model.Usuario;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @Component
 public class UsuarioModelAssembler implements RepresentationModelAssembler<Usuario, EntityModel<Usuario>> {
 
+    private static final String ENLACES = UsuarioModelAssembler.class.getName() + ".ENLACES";
+
     @SuppressWarnings("null")
     @Override
     public EntityModel<Usuario> toModel(Usuario usuario) {
+        Enlaces enlaces = enlaces();
         // Un EntityModel contiene al usuarios y sus enlaces
         return EntityModel.of(usuario,
-                // Enlace "self": apunta al propio recurso del usuario
-                linkTo(methodOn(UsuarioController.class).getUsuarioById(usuario.getIdUsuario())).withSelfRel(),
+                // Enlace "self": apunta al propio recurso del usuario (GET /api/usuario/{id})
+                Link.of(enlaces.prefijoUsuario() + usuario.getIdUsuario(), IanaLinkRelations.SELF),
                 // Enlace "usuarios": apunta a la colección de todos los usuarios
-                linkTo(methodOn(UsuarioController.class).getUsuarios()).withRel("usuarios"));
+                enlaces.usuarios());
+    }
+
+    // linkTo(methodOn(...)) crea un proxy y resuelve los mappings por reflexión en cada llamada.
+    // Como la URL base depende de la petición (host, X-Forwarded-*), los enlaces se resuelven
+    // una vez por petición y sólo se concatena el id por cada usuario.
+    private Enlaces enlaces() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return resolverEnlaces();
+        }
+        Enlaces enlaces = (Enlaces) atributos.getAttribute(ENLACES, RequestAttributes.SCOPE_REQUEST);
+        if (enlaces == null) {
+            enlaces = resolverEnlaces();
+            atributos.setAttribute(ENLACES, enlaces, RequestAttributes.SCOPE_REQUEST);
+        }
+        return enlaces;
+    }
+
+    private static Enlaces resolverEnlaces() {
+        Link usuarios = linkTo(methodOn(UsuarioController.class).getUsuarios(null)).withRel("usuarios");
+        // getUsuarioById está mapeado en "/{id}" bajo la misma ruta que la colección
+        return new Enlaces(usuarios.getHref() + "/", usuarios);
+    }
+
+    private record Enlaces(String prefijoUsuario, Link usuarios) {
     }
-}
\ No newline at end of file
+}
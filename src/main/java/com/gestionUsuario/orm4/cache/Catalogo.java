@@ -0,0 +1,43 @@
+package com.gestionUsuario.orm4.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Foto inmutable de un catálogo completo junto a su ETag. La lista no se puede
+ * modificar y sus elementos se comparten entre peticiones: sólo deben leerse.
+ */
+public record Catalogo<T>(List<T> datos, String etag) {
+
+    private static final int BYTES_ETAG = 16; // 128 de los 256 bits de SHA-256
+
+    // ETag a partir de una clave por elemento (id y versión) en vez del contenido completo:
+    // no recorre todos los campos y cambia con cada escritura, aunque deje el mismo contenido.
+    // Depende sólo de las filas, así coincide entre instancias y reinicios.
+    // Las claves se ordenan, así el ETag no depende del orden en que la base devuelva las filas
+    public static <T> Catalogo<T> of(List<T> datos, Function<? super T, ?> version) {
+        List<T> copia = List.copyOf(datos);
+        List<String> claves = copia.stream().map(version).map(String::valueOf).sorted().toList();
+        return new Catalogo<>(copia, "\"v" + resumen(claves) + "\"");
+    }
+
+    // SHA-256 de las claves separadas por salto de línea: a diferencia de List.hashCode (32 bits),
+    // que dos catálogos distintos compartan ETag no ocurre en la práctica
+    private static String resumen(List<String> claves) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // todo JDK incluye SHA-256
+        }
+        for (String clave : claves) {
+            sha.update(clave.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(sha.digest(), 0, BYTES_ETAG);
+    }
+}
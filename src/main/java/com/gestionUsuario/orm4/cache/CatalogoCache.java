@@ -0,0 +1,57 @@
+package com.gestionUsuario.orm4.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché de lectura (read-through) para tablas de referencia pequeñas: guarda el
+ * catálogo completo como una foto inmutable y lo recarga tras una invalidación o cuando la
+ * foto supera la vigencia. Las escrituras de esta instancia invalidan; la vigencia acota cuánto
+ * tarda en verse una escritura hecha en otra instancia.
+ * Cada foto lleva la generación vigente al empezar su carga; invalidar incrementa la
+ * generación, así una carga concurrente con una escritura nunca queda publicada como vigente.
+ */
+public class CatalogoCache<T> {
+
+    private final Supplier<List<T>> cargador;
+    private final Function<? super T, ?> version; // clave de cada fila para el ETag, ver Catalogo.of
+    private final Supplier<Duration> vigencia; // se lee en cada consulta: puede venir de una propiedad inyectada después
+    private final AtomicLong generacion = new AtomicLong();
+    private final AtomicReference<Entrada<T>> actual = new AtomicReference<>();
+
+    public CatalogoCache(Supplier<List<T>> cargador, Function<? super T, ?> version, Supplier<Duration> vigencia) {
+        this.cargador = cargador;
+        this.version = version;
+        this.vigencia = vigencia;
+    }
+
+    public Catalogo<T> obtener() {
+        long vigente = generacion.get();
+        long ahora = System.nanoTime();
+        Entrada<T> entrada = actual.get();
+        if (entrada != null && entrada.generacion() == vigente && ahora - entrada.cargada() < vigencia.get().toNanos()) {
+            return entrada.catalogo();
+        }
+        List<T> datos = cargador.get();
+        Entrada<T> nueva = new Entrada<>(Catalogo.of(datos, version), vigente, ahora);
+        // No reemplaza una foto de una generación posterior cargada en paralelo
+        actual.accumulateAndGet(nueva, (previa, candidata) ->
+                previa == null || candidata.generacion() > previa.generacion()
+                        || candidata.generacion() == previa.generacion() && candidata.cargada() - previa.cargada() >= 0
+                        ? candidata : previa);
+        return nueva.catalogo();
+    }
+
+    // Se llama después de cada escritura confirmada sobre la tabla
+    public void invalidar() {
+        generacion.incrementAndGet();
+    }
+
+    // cargada: System.nanoTime() al empezar la carga
+    private record Entrada<T>(Catalogo<T> catalogo, long generacion, long cargada) {
+    }
+}
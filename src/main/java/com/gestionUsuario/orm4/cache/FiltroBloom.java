@@ -0,0 +1,74 @@
+package com.gestionUsuario.orm4.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas. "puedeContener" nunca da falso negativo; da falso positivo con
+ * probabilidad cercana a la configurada mientras no se supere la capacidad. Los bits se
+ * escriben con operaciones atómicas, así que agregar y consultar no toman bloqueos.
+ */
+public final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final int numeroBits;
+    private final int numeroHashes;
+
+    public FiltroBloom(int capacidad, double probabilidadFalsoPositivo) {
+        if (capacidad <= 0 || probabilidadFalsoPositivo <= 0 || probabilidadFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("Capacidad o probabilidad de falso positivo inválida");
+        }
+        // m = -n ln p / (ln 2)^2 ; k = m/n ln 2
+        long m = (long) Math.ceil(-capacidad * Math.log(probabilidadFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.numeroBits = (int) Math.min(Math.max(m, 64), Integer.MAX_VALUE - 63);
+        this.numeroHashes = Math.max(1, (int) Math.round((double) numeroBits / capacidad * Math.log(2)));
+        this.bits = new AtomicLongArray((numeroBits + 63) / 64);
+    }
+
+    public void agregar(String valor) {
+        long hash = hash(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numeroHashes; i++) {
+            int bit = indice(h1 + i * h2);
+            long mascara = 1L << bit;
+            int palabra = bit >>> 6;
+            long actual;
+            while (((actual = bits.get(palabra)) & mascara) == 0
+                    && !bits.compareAndSet(palabra, actual, actual | mascara)) {
+                // otro hilo cambió la palabra: se reintenta
+            }
+        }
+    }
+
+    public boolean puedeContener(String valor) {
+        long hash = hash(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numeroHashes; i++) {
+            int bit = indice(h1 + i * h2);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indice(int combinado) {
+        return (combinado & Integer.MAX_VALUE) % numeroBits;
+    }
+
+    // FNV-1a de 64 bits con la mezcla final de MurmurHash3; de él salen los k índices (doble hash)
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
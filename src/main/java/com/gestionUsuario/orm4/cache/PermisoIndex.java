@@ -0,0 +1,260 @@
+package com.gestionUsuario.orm4.cache;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gestionUsuario.orm4.dto.AsignacionRol;
+import com.gestionUsuario.orm4.dto.PermisoRol;
+import com.gestionUsuario.orm4.model.EventoCambio;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.RolRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import com.gestionUsuario.orm4.service.CambioService;
+
+/**
+ * Índice en memoria para responder "¿el usuario X tiene el permiso P?" sin ir a la base de
+ * datos: idUsuario -> idRol efectivo, e idRol -> conjunto de bits con los ids de sus permisos.
+ * Se construye al arrancar con dos consultas de proyección y se actualiza con cada escritura
+ * hecha por los servicios. Además sigue el registro de cambios (outbox): cada segundo relee de
+ * la base los usuarios y roles que cambiaron en cualquier instancia, y también los que se
+ * actualizaron aquí, por si dos actualizaciones locales se aplicaron en otro orden que en la
+ * base. Así el índice queda igual a la base a más tardar un intervalo de seguimiento después
+ * de cada escritura; la reconstrucción completa periódica queda sólo como respaldo.
+ * Las lecturas no toman bloqueos; los BitSet publicados no se modifican nunca.
+ */
+@Component
+public class PermisoIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PermisoIndex.class);
+
+    private static final int SIN_ROL = 0; // usuario sin rol o inactivo: no tiene ningún permiso
+    private static final int TAMANO_LOTE = 500; // eventos por lectura del registro de cambios
+    private static final int MAX_RELECTURA = 5000; // usuarios releídos uno a uno; más que eso reconstruye
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private CambioService cambioService;
+
+    private volatile Estado estado; // null hasta la primera construcción
+
+    private List<Consumer<Estado>> pendientes; // cambios recibidos durante una reconstrucción
+
+    private volatile long cursor = -1; // último evento del registro ya aplicado; -1 hasta la primera construcción
+
+    // Actualizados localmente desde la última pasada del seguimiento: se releen en la próxima
+    private final Set<Integer> usuariosPorRevisar = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rolesPorRevisar = new AtomicBoolean();
+    private final Object seguimiento = new Object();
+
+    private record Estado(Map<Integer, Integer> rolPorUsuario, Map<Integer, BitSet> permisosPorRol) {
+    }
+
+    public boolean listo() {
+        return estado != null;
+    }
+
+    // null si el usuario no está en el índice; si no, si tiene el permiso
+    public Boolean tienePermiso(int idUsuario, int idPermiso) {
+        Estado actual = estado;
+        if (actual == null) {
+            throw new IllegalStateException("El índice de permisos aún no se ha construido");
+        }
+        Integer idRol = actual.rolPorUsuario().get(idUsuario);
+        if (idRol == null) {
+            return null;
+        }
+        BitSet permisos = actual.permisosPorRol().get(idRol);
+        return idPermiso >= 0 && permisos != null && permisos.get(idPermiso);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${permiso.indice.intervalo:PT10M}", initialDelayString = "${permiso.indice.intervalo:PT10M}")
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        // El registro se sigue desde antes de leer las tablas: lo que cambie durante la lectura se relee
+        long desde = cursor < 0 ? cambioService.ultimo() : -1;
+        synchronized (this) {
+            pendientes = new ArrayList<>();
+        }
+        Estado nuevo;
+        try {
+            nuevo = new Estado(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+            for (PermisoRol permisoRol : rolRepository.findPermisosPorRol()) {
+                nuevo.permisosPorRol().merge(permisoRol.idRol(), bits(permisoRol.idPermiso()), PermisoIndex::union);
+            }
+            for (AsignacionRol asignacion : usuarioRepository.findAsignaciones()) {
+                nuevo.rolPorUsuario().put(asignacion.idUsuario(), rolEfectivo(asignacion.idRol(), asignacion.activo()));
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendientes = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            // Los cambios confirmados mientras se leía la base se aplican encima de la lectura
+            pendientes.forEach(cambio -> cambio.accept(nuevo));
+            pendientes = null;
+            estado = nuevo;
+        }
+        if (desde >= 0) {
+            cursor = desde;
+        }
+        log.debug("Índice de permisos reconstruido: {} usuarios, {} roles en {} ms", nuevo.rolPorUsuario().size(),
+                nuevo.permisosPorRol().size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // Relee de la base lo que cambió desde la pasada anterior, según el registro de cambios y las
+    // actualizaciones locales. Una sola pasada a la vez, en orden: lo releído es siempre lo último
+    @Scheduled(fixedDelayString = "${permiso.indice.seguimiento:PT1S}", initialDelayString = "${permiso.indice.seguimiento:PT1S}")
+    public void seguirCambios() {
+        synchronized (seguimiento) { // aparte del monitor del índice: no frena las actualizaciones locales
+            seguir();
+        }
+    }
+
+    private void seguir() {
+        long desde = cursor;
+        if (desde < 0) {
+            return; // aún sin construir
+        }
+        Set<Integer> usuarios = new HashSet<>();
+        boolean roles = rolesPorRevisar.getAndSet(false);
+        for (Iterator<Integer> it = usuariosPorRevisar.iterator(); it.hasNext(); ) {
+            usuarios.add(it.next());
+            it.remove();
+        }
+        try {
+            List<EventoCambio> eventos;
+            do {
+                eventos = cambioService.leer(desde, TAMANO_LOTE);
+                for (EventoCambio evento : eventos) {
+                    switch (evento.getEntidad()) {
+                        case USUARIO -> usuarios.add(Integer.valueOf(evento.getIdEntidad()));
+                        case ROL, PERMISO -> roles = true; // borrar un permiso deja sus roles sin él
+                        default -> {
+                        }
+                    }
+                    desde = evento.getId();
+                }
+            } while (eventos.size() == TAMANO_LOTE);
+            if (usuarios.size() > MAX_RELECTURA) {
+                reconstruir(); // una importación grande: sale más barato leer todo
+            } else {
+                if (roles) {
+                    releerRoles();
+                }
+                if (!usuarios.isEmpty()) {
+                    releerUsuarios(usuarios);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Lo ya sacado de la revisión vuelve a ella; los eventos se releen porque el cursor no avanzó
+            usuariosPorRevisar.addAll(usuarios);
+            if (roles) {
+                rolesPorRevisar.set(true);
+            }
+            throw e;
+        }
+        cursor = desde;
+    }
+
+    private void releerRoles() {
+        Map<Integer, BitSet> leidos = new HashMap<>();
+        for (PermisoRol permisoRol : rolRepository.findPermisosPorRol()) {
+            leidos.merge(permisoRol.idRol(), bits(permisoRol.idPermiso()), PermisoIndex::union);
+        }
+        aplicar(e -> {
+            e.permisosPorRol().keySet().retainAll(leidos.keySet());
+            e.permisosPorRol().putAll(leidos);
+        });
+    }
+
+    private void releerUsuarios(Set<Integer> usuarios) {
+        Map<Integer, Integer> leidos = new HashMap<>();
+        for (AsignacionRol asignacion : usuarioRepository.findAsignaciones(usuarios)) {
+            leidos.put(asignacion.idUsuario(), rolEfectivo(asignacion.idRol(), asignacion.activo()));
+        }
+        aplicar(e -> usuarios.forEach(idUsuario -> {
+            Integer idRol = leidos.get(idUsuario);
+            if (idRol == null) {
+                e.rolPorUsuario().remove(idUsuario); // borrado
+            } else {
+                e.rolPorUsuario().put(idUsuario, idRol);
+            }
+        }));
+    }
+
+    // Actualizaciones incrementales: se llaman después de confirmar la escritura. Pueden llegar en
+    // otro orden que el de la base, por eso el seguimiento vuelve a leer lo que tocan
+
+    public void actualizarUsuario(Usuario usuario) {
+        int idUsuario = usuario.getIdUsuario();
+        int idRol = rolEfectivo(usuario.getRol() != null ? usuario.getRol().getIdRol() : null, usuario.getActivo());
+        aplicar(e -> e.rolPorUsuario().put(idUsuario, idRol));
+        usuariosPorRevisar.add(idUsuario);
+    }
+
+    public void quitarUsuario(int idUsuario) {
+        aplicar(e -> e.rolPorUsuario().remove(idUsuario));
+        usuariosPorRevisar.add(idUsuario);
+    }
+
+    public void actualizarRol(Rol rol) {
+        int idRol = rol.getIdRol();
+        BitSet permisos = bits(rol.getPermiso() != null ? rol.getPermiso().getIdPermiso() : null);
+        aplicar(e -> e.permisosPorRol().put(idRol, permisos));
+        rolesPorRevisar.set(true);
+    }
+
+    private synchronized void aplicar(Consumer<Estado> cambio) {
+        if (estado != null) {
+            cambio.accept(estado);
+        }
+        if (pendientes != null) {
+            pendientes.add(cambio);
+        }
+    }
+
+    private static int rolEfectivo(Integer idRol, Boolean activo) {
+        return idRol == null || Boolean.FALSE.equals(activo) ? SIN_ROL : idRol;
+    }
+
+    private static BitSet bits(Integer idPermiso) {
+        BitSet bits = new BitSet();
+        if (idPermiso != null) {
+            bits.set(idPermiso);
+        }
+        return bits;
+    }
+
+    // Nunca modifica un BitSet ya publicado: devuelve uno nuevo
+    private static BitSet union(BitSet a, BitSet b) {
+        BitSet union = (BitSet) a.clone();
+        union.or(b);
+        return union;
+    }
+}
@@ -0,0 +1,130 @@
+package com.gestionUsuario.orm4.cache;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.gestionUsuario.orm4.model.Sesion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caché en memoria de tokens de sesión, delante de la tabla "sesion".
+ * Cada entrada vive hasta la expiración de su sesión, pero a lo más un TTL positivo corto: un
+ * logout en otra instancia borra la fila y esta instancia lo ve al vencer la entrada. Los tokens
+ * desconocidos se recuerdan durante un TTL negativo (caché negativa). El desalojo por tamaño
+ * usa W-TinyLFU (Caffeine).
+ */
+@Component
+public class SesionTokenCache {
+
+    public static final String NOMBRE = "sesion.token";
+
+    private static final long NO_EXISTE = Long.MIN_VALUE; // marca de caché negativa
+
+    private final Cache<String, Long> cache; // token -> expiración en epoch millis
+    private final AtomicLong invalidaciones = new AtomicLong(); // generación: cambia con cada invalidar()
+    private final Timer latenciaAcierto;
+    private final Timer latenciaFallo;
+
+    public SesionTokenCache(@Value("${sesion.cache.tamano-maximo:100000}") long tamanoMaximo,
+            @Value("${sesion.cache.ttl-positivo:5s}") Duration ttlPositivo,
+            @Value("${sesion.cache.ttl-negativo:30s}") Duration ttlNegativo,
+            MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String token, Long expiracion, long ahora) {
+                        if (expiracion == NO_EXISTE) {
+                            return ttlNegativo.toNanos();
+                        }
+                        long restante = TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiracion - System.currentTimeMillis()));
+                        return Math.min(restante, ttlPositivo.toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Long expiracion, long ahora, long duracionActual) {
+                        return expireAfterCreate(token, expiracion, ahora);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Long expiracion, long ahora, long duracionActual) {
+                        return duracionActual;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, NOMBRE);
+        this.latenciaAcierto = Timer.builder(NOMBRE + ".validacion").tag("resultado", "acierto").register(registry);
+        this.latenciaFallo = Timer.builder(NOMBRE + ".validacion").tag("resultado", "fallo").register(registry);
+    }
+
+    // Indica si el token existe; en un fallo de caché consulta al cargador (la base de datos)
+    public boolean existe(String token, Function<String, Optional<Date>> cargador) {
+        return expiracion(token, cargador) != NO_EXISTE;
+    }
+
+    // Expiración del token en epoch millis (Long.MIN_VALUE si no existe); en un fallo de caché
+    // consulta al cargador. Una sesión expirada que aún no se borra de la tabla sigue existiendo:
+    // quien valida debe comparar contra la hora actual
+    public long expiracion(String token, Function<String, Optional<Date>> cargador) {
+        if (token == null) {
+            return NO_EXISTE;
+        }
+        long inicio = System.nanoTime();
+        Long expiracion = cache.getIfPresent(token);
+        if (expiracion != null) {
+            latenciaAcierto.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            return expiracion;
+        }
+        // La consulta se hace fuera de cache.get(token, cargador): ese cargador corre dentro de un
+        // bloque synchronized del mapa y, con hilos virtuales, fijaría el hilo portador durante
+        // toda la ida a la base. A cambio, dos fallos simultáneos del mismo token consultan dos veces.
+        long generacion = invalidaciones.get();
+        long cargada = cargador.apply(token).map(Date::getTime).orElse(NO_EXISTE);
+        // Se guarda sólo si nadie invalidó mientras se consultaba (un logout entre la consulta y el
+        // put no debe quedar deshecho) y si no llegó antes una entrada más nueva (registrar()).
+        // invalidar() cambia la generación dentro de compute() del mismo token: no se intercalan
+        cache.asMap().compute(token, (clave, actual) ->
+                actual == null && invalidaciones.get() == generacion ? Long.valueOf(cargada) : actual);
+        latenciaFallo.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return cargada;
+    }
+
+    // Consulta sólo la memoria: true si el token se sabe existente
+    public boolean contiene(String token) {
+        if (token == null) {
+            return false;
+        }
+        Long expiracion = cache.getIfPresent(token);
+        return expiracion != null && expiracion != NO_EXISTE;
+    }
+
+    // Registra una sesión recién creada (reemplaza una posible entrada negativa)
+    public void registrar(Sesion sesion) {
+        if (sesion != null && sesion.getToken() != null && sesion.getExpiracion() != null) {
+            cache.put(sesion.getToken(), sesion.getExpiracion().getTime());
+        }
+    }
+
+    public void invalidar(String token) {
+        if (token != null) {
+            cache.asMap().compute(token, (clave, actual) -> {
+                invalidaciones.incrementAndGet();
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,742 @@
+package com.gestionUsuario.orm4.cache;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gestionUsuario.orm4.dto.ResultadoBusqueda;
+import com.gestionUsuario.orm4.dto.UsuarioBuscable;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+
+/**
+ * Índice de búsqueda de usuarios por nombre, RUT o email. Cada usuario aporta sus términos
+ * normalizados (palabras del nombre sin tildes, RUT sin puntos ni guion, email completo).
+ * Una instantánea inmutable guarda dos diccionarios ordenados, uno de palabras del nombre y
+ * otro de RUT y email (exacto y prefijo por búsqueda binaria, subcadenas por trigramas); sólo
+ * las palabras del nombre admiten errores de tipeo (distancia de Levenshtein). Los términos que
+ * coinciden se recorren de mayor a menor puntaje y la búsqueda termina en cuanto ningún usuario
+ * restante puede entrar entre los mejores.
+ * Las escrituras posteriores quedan en un mapa de cambios que se recorre en cada búsqueda y se
+ * incorpora a la instantánea al reconstruirla (periódicamente o cuando crece demasiado).
+ */
+@Component
+public class UsuarioBusquedaIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UsuarioBusquedaIndex.class);
+
+    static final int MAX_CANDIDATOS = 100000; // usuarios evaluados como máximo por búsqueda
+    private static final int UMBRAL_FILTRO = 2000; // candidatos evaluados antes de marcar los que pueden coincidir
+    private static final int MAX_COSTO_FILTRO = 500000; // usuarios marcados como máximo por palabra para descartar candidatos
+    private static final int MAX_NOMBRES = 2000; // palabras del nombre expandidas como máximo por nivel
+    private static final int MAX_OTROS = 500; // RUT o emails expandidos como máximo por nivel (casi todos de un solo usuario)
+    private static final int TAMANO_PAGINA = 10000; // filas por consulta al reconstruir
+    private static final int BLOQUE = 64; // términos por bloque en el largo mínimo de cada diccionario
+
+    // Puntajes por término: exacto > prefijo > subcadena > con errores de tipeo
+    static final int EXACTO = 100;
+    static final int PREFIJO = 80;
+    static final int SUBCADENA = 50;
+    static final int DISTANCIA_1 = 40;
+    static final int DISTANCIA_2 = 25;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADOR_NOMBRE = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern SEPARADOR_CONSULTA = Pattern.compile("[\\s,;]+");
+    private static final Pattern RUT = Pattern.compile("[0-9.\\-k]*[0-9][0-9.\\-k]*");
+
+    // Orden de los resultados: mayor puntaje primero y, a igual puntaje, menor id
+    private static final Comparator<ResultadoBusqueda> ORDEN = Comparator
+            .comparingInt(ResultadoBusqueda::puntaje).reversed()
+            .thenComparingInt(ResultadoBusqueda::idUsuario);
+
+    private static final Documento BORRADO = new Documento(null, new String[0], 0);
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Value("${usuario.busqueda.umbral-cambios:5000}")
+    private int umbralCambios = 5000;
+
+    private volatile Estado estado; // null hasta la primera construcción
+
+    private Map<Integer, Documento> pendientes; // cambios recibidos durante una reconstrucción
+
+    private final Object reconstruccion = new Object();
+
+    // Términos de un usuario: primero las palabras del nombre, luego RUT y email
+    private record Documento(UsuarioBuscable usuario, String[] terminos, int palabrasNombre) {
+    }
+
+    // Instantánea más los cambios posteriores (id -> documento nuevo, o BORRADO)
+    private record Estado(Instantanea base, Map<Integer, Documento> cambios) {
+    }
+
+    // Un término que coincide con una palabra de la consulta: su puntaje y los usuarios que lo tienen
+    private record Coincidencia(int puntaje, int[] documentos) {
+    }
+
+    public boolean listo() {
+        return estado != null;
+    }
+
+    // Los "limite" usuarios que mejor coinciden con todas las palabras de la consulta
+    public List<ResultadoBusqueda> buscar(String consulta, int limite) {
+        Estado actual = estado;
+        if (actual == null) {
+            throw new IllegalStateException("El índice de búsqueda aún no se ha construido");
+        }
+        String[] tokens = tokens(consulta);
+        if (tokens.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        Mejores mejores = new Mejores(limite);
+        for (Documento documento : actual.cambios().values()) {
+            if (documento != BORRADO) {
+                mejores.ofrecer(documento.usuario(), puntuar(documento, tokens));
+            }
+        }
+        actual.base().buscar(tokens, actual.cambios(), mejores);
+        return mejores.ordenados();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${usuario.busqueda.intervalo:PT10M}", initialDelayString = "${usuario.busqueda.intervalo:PT10M}")
+    public void reconstruir() {
+        synchronized (reconstruccion) { // la carga inicial y las programadas no se solapan
+            long inicio = System.nanoTime();
+            synchronized (this) {
+                pendientes = new HashMap<>();
+            }
+            List<UsuarioBuscable> usuarios = new ArrayList<>();
+            try {
+                int after = 0;
+                List<UsuarioBuscable> pagina;
+                do {
+                    pagina = usuarioRepository.findBuscables(after, Limit.of(TAMANO_PAGINA));
+                    usuarios.addAll(pagina);
+                    if (!pagina.isEmpty()) {
+                        after = pagina.get(pagina.size() - 1).idUsuario();
+                    }
+                } while (pagina.size() == TAMANO_PAGINA);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendientes = null;
+                }
+                throw e;
+            }
+            cargar(usuarios);
+            log.debug("Índice de búsqueda reconstruido: {} usuarios en {} ms", usuarios.size(),
+                    (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    // Reemplaza la instantánea; los cambios confirmados mientras se leía la base quedan encima
+    public void cargar(List<UsuarioBuscable> usuarios) {
+        Instantanea base = new Instantanea(usuarios.stream()
+                .sorted(Comparator.comparingInt(UsuarioBuscable::idUsuario))
+                .map(UsuarioBusquedaIndex::documento)
+                .toList());
+        synchronized (this) {
+            Map<Integer, Documento> cambios = new ConcurrentHashMap<>();
+            if (pendientes != null) {
+                cambios.putAll(pendientes);
+                pendientes = null;
+            }
+            estado = new Estado(base, cambios);
+        }
+    }
+
+    // Si se acumularon muchos cambios, se incorporan a una instantánea nueva
+    @Scheduled(fixedDelayString = "${usuario.busqueda.revision:PT10S}", initialDelayString = "${usuario.busqueda.revision:PT10S}")
+    public void compactar() {
+        Estado actual = estado;
+        if (actual != null && actual.cambios().size() > umbralCambios) {
+            reconstruir();
+        }
+    }
+
+    // Actualizaciones incrementales: se llaman después de confirmar la escritura
+
+    public void actualizarUsuario(Usuario usuario) {
+        registrar(usuario.getIdUsuario(), documento(new UsuarioBuscable(usuario.getIdUsuario(), usuario.getNombre(),
+                usuario.getRutUsuario(), usuario.getEmail())));
+    }
+
+    public void quitarUsuario(int idUsuario) {
+        registrar(idUsuario, BORRADO);
+    }
+
+    private synchronized void registrar(int idUsuario, Documento documento) {
+        if (estado != null) {
+            estado.cambios().put(idUsuario, documento);
+        }
+        if (pendientes != null) {
+            pendientes.put(idUsuario, documento);
+        }
+    }
+
+    // Suma, por cada palabra de la consulta, el mejor puntaje entre los términos del usuario; 0 si alguna no coincide
+    private static int puntuar(Documento documento, String[] tokens) {
+        int total = 0;
+        for (String token : tokens) {
+            int mejor = 0;
+            for (int i = 0; i < documento.terminos().length && mejor < EXACTO; i++) {
+                mejor = Math.max(mejor, puntuar(token, documento.terminos()[i], i < documento.palabrasNombre()));
+            }
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    static int puntuar(String token, String termino, boolean admiteErrores) {
+        if (termino.equals(token)) {
+            return EXACTO;
+        }
+        if (termino.startsWith(token)) {
+            return PREFIJO - Math.min(20, termino.length() - token.length());
+        }
+        if (token.length() >= 3 && termino.contains(token)) {
+            return SUBCADENA;
+        }
+        if (admiteErrores && token.length() >= 4) {
+            int maxima = maximaDistancia(token);
+            int distancia = levenshtein(token, termino, maxima);
+            if (distancia <= maxima) {
+                return distancia == 1 ? DISTANCIA_1 : DISTANCIA_2;
+            }
+        }
+        return 0;
+    }
+
+    private static int maximaDistancia(String token) {
+        return token.length() >= 8 ? 2 : 1;
+    }
+
+    // Distancia de edición, o maxima + 1 si la supera (corta en cuanto la fila completa la supera)
+    static int levenshtein(String a, String b, int maxima) {
+        if (Math.abs(a.length() - b.length()) > maxima) {
+            return maxima + 1;
+        }
+        int[] anterior = new int[b.length() + 1];
+        int[] fila = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            fila[0] = i;
+            int minimo = fila[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                fila[j] = Math.min(Math.min(fila[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + costo);
+                minimo = Math.min(minimo, fila[j]);
+            }
+            if (minimo > maxima) {
+                return maxima + 1;
+            }
+            int[] temporal = anterior;
+            anterior = fila;
+            fila = temporal;
+        }
+        return Math.min(anterior[b.length()], maxima + 1);
+    }
+
+    static String[] tokens(String consulta) {
+        if (consulta == null) {
+            return new String[0];
+        }
+        return Arrays.stream(SEPARADOR_CONSULTA.split(normalizar(consulta)))
+                .map(t -> RUT.matcher(t).matches() ? t.replace(".", "").replace("-", "") : t)
+                .filter(t -> !t.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    static String normalizar(String texto) {
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static Documento documento(UsuarioBuscable usuario) {
+        List<String> terminos = new ArrayList<>(4);
+        if (usuario.nombre() != null) {
+            for (String palabra : SEPARADOR_NOMBRE.split(normalizar(usuario.nombre()))) {
+                if (!palabra.isEmpty() && !terminos.contains(palabra)) {
+                    terminos.add(palabra);
+                }
+            }
+        }
+        int palabrasNombre = terminos.size();
+        if (usuario.rutUsuario() != null) {
+            terminos.add(normalizar(usuario.rutUsuario()).replace(".", "").replace("-", ""));
+        }
+        if (usuario.email() != null) {
+            terminos.add(normalizar(usuario.email()));
+        }
+        return new Documento(usuario, terminos.toArray(String[]::new), palabrasNombre);
+    }
+
+    // Los "limite" mejores resultados vistos hasta ahora (montículo con el peor en la cima)
+    private static final class Mejores {
+
+        private final int limite;
+        private final PriorityQueue<ResultadoBusqueda> monticulo;
+
+        Mejores(int limite) {
+            this.limite = limite;
+            this.monticulo = new PriorityQueue<>(limite + 1, ORDEN.reversed());
+        }
+
+        void ofrecer(UsuarioBuscable u, int puntaje) {
+            if (puntaje == 0 || !puedeEntrar(puntaje, u.idUsuario())) {
+                return;
+            }
+            monticulo.add(new ResultadoBusqueda(u.idUsuario(), u.nombre(), u.rutUsuario(), u.email(), puntaje));
+            if (monticulo.size() > limite) {
+                monticulo.poll();
+            }
+        }
+
+        // Si un usuario con ese puntaje y ese id todavía quedaría entre los mejores
+        boolean puedeEntrar(int puntaje, int idUsuario) {
+            if (monticulo.size() < limite) {
+                return true;
+            }
+            ResultadoBusqueda peor = monticulo.peek();
+            return puntaje > peor.puntaje() || (puntaje == peor.puntaje() && idUsuario < peor.idUsuario());
+        }
+
+        List<ResultadoBusqueda> ordenados() {
+            List<ResultadoBusqueda> resultados = new ArrayList<>(monticulo);
+            resultados.sort(ORDEN);
+            return resultados;
+        }
+    }
+
+    // Palabra de la consulta, con sus términos coincidentes y el puntaje ya calculado de cada palabra de nombre
+    private static final class Token {
+
+        final String texto;
+        final List<Coincidencia> coincidencias = new ArrayList<>(); // de mayor a menor puntaje
+        final int maximo; // puntaje máximo que puede aportar a un usuario
+        final long costo; // usuarios a recorrer si esta palabra propone los candidatos
+        final byte[] puntajeNombre; // puntaje + 1 por id de palabra del nombre; 0 = aún no calculado
+        private final List<Coincidencia> deNombres;
+        private final boolean nombresCompletos;
+        BitSet conOtros; // usuarios cuyo RUT o email puede coincidir; null si no se calculó
+        BitSet coinciden; // usuarios con algún término que puede coincidir; null si no se calculó
+
+        Token(String texto, Diccionario nombres, Diccionario otros) {
+            this.texto = texto;
+            int omitido = nombres.coincidencias(texto, coincidencias);
+            deNombres = new ArrayList<>(coincidencias);
+            nombresCompletos = omitido == 0;
+            int omitidoOtros = otros.coincidencias(texto, coincidencias);
+            coincidencias.sort(Comparator.comparingInt(Coincidencia::puntaje).reversed());
+            // Un término no recorrido (expansión cortada) podría puntuar más que los encontrados
+            int encontrado = coincidencias.isEmpty() ? 0 : coincidencias.get(0).puntaje();
+            this.maximo = Math.max(encontrado, Math.max(omitido, omitidoOtros));
+            this.costo = coincidencias.stream().mapToLong(c -> c.documentos().length).sum();
+            this.puntajeNombre = new byte[nombres.tamano()];
+        }
+
+        // Marca los usuarios que pueden coincidir: descartar un candidato con un bit es más barato
+        // que leer sus términos. Si son demasiados no se marca nada y se puntúa cada candidato
+        void filtrar(Diccionario otros, int usuarios) {
+            BitSet marcas = new BitSet(usuarios);
+            if (!otros.marcar(texto, marcas, MAX_COSTO_FILTRO)) {
+                return;
+            }
+            conOtros = marcas;
+            if (nombresCompletos) {
+                BitSet todas = (BitSet) marcas.clone();
+                for (Coincidencia c : deNombres) {
+                    for (int d : c.documentos()) {
+                        todas.set(d);
+                    }
+                }
+                coinciden = todas;
+            }
+        }
+    }
+
+    /**
+     * Parte inmutable del índice. Los usuarios están ordenados por id, así cada lista de usuarios
+     * de un término queda también ordenada por id.
+     */
+    private static final class Instantanea {
+
+        private final Documento[] documentos;
+        private final int[] idsUsuario; // id de cada documento, para recorrer las listas sin leer los documentos
+        private final int[][] nombresPorDocumento; // ids de las palabras del nombre en el diccionario "nombres"
+        private final Diccionario nombres;
+        private final Diccionario otros; // RUT y email
+
+        Instantanea(List<Documento> lista) {
+            documentos = lista.toArray(Documento[]::new);
+            idsUsuario = lista.stream().mapToInt(documento -> documento.usuario().idUsuario()).toArray();
+            Map<String, ListaEnteros> porNombre = new HashMap<>();
+            Map<String, ListaEnteros> porOtro = new HashMap<>();
+            for (int d = 0; d < documentos.length; d++) {
+                Documento documento = documentos[d];
+                for (int i = 0; i < documento.terminos().length; i++) {
+                    (i < documento.palabrasNombre() ? porNombre : porOtro)
+                            .computeIfAbsent(documento.terminos()[i], t -> new ListaEnteros()).agregarUnico(d);
+                }
+            }
+            nombres = new Diccionario(porNombre, true, MAX_NOMBRES);
+            otros = new Diccionario(porOtro, false, MAX_OTROS);
+            nombresPorDocumento = new int[documentos.length][];
+            for (int d = 0; d < documentos.length; d++) {
+                Documento documento = documentos[d];
+                int[] ids = new int[documento.palabrasNombre()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = nombres.id(documento.terminos()[i]);
+                }
+                nombresPorDocumento[d] = ids;
+            }
+        }
+
+        // La palabra con menos usuarios coincidentes propone los candidatos, de mayor a menor
+        // puntaje; cada candidato se puntúa con todas las palabras de la consulta
+        void buscar(String[] textos, Map<Integer, Documento> cambios, Mejores mejores) {
+            Token[] tokens = new Token[textos.length];
+            int maximoTotal = 0;
+            for (int i = 0; i < textos.length; i++) {
+                tokens[i] = new Token(textos[i], nombres, otros);
+                if (tokens[i].maximo == 0) {
+                    return; // ningún usuario de la instantánea tiene esta palabra
+                }
+                maximoTotal += tokens[i].maximo;
+            }
+            // Las palabras más selectivas primero: la guía propone y las siguientes descartan antes
+            Arrays.sort(tokens, Comparator.comparingLong(t -> t.costo));
+            Token guia = tokens[0];
+            int maximoResto = maximoTotal - guia.maximo; // lo más que pueden sumar las demás palabras
+            BitSet vistos = new BitSet(documentos.length);
+            int evaluados = 0;
+            for (Coincidencia coincidencia : guia.coincidencias) {
+                int cota = coincidencia.puntaje() + maximoResto;
+                if (!mejores.puedeEntrar(cota, Integer.MIN_VALUE)) {
+                    return; // los términos siguientes tienen igual o menor puntaje
+                }
+                for (int d : coincidencia.documentos()) {
+                    int idUsuario = idsUsuario[d];
+                    if (!mejores.puedeEntrar(cota, idUsuario)) {
+                        break; // el resto de la lista tiene ids mayores
+                    }
+                    if (vistos.get(d)) {
+                        continue;
+                    }
+                    vistos.set(d);
+                    if (cambios.isEmpty() || !cambios.containsKey(idUsuario)) { // si cambió, vale la versión nueva
+                        int puntaje = puntuar(d, tokens);
+                        if (puntaje > 0) {
+                            mejores.ofrecer(documentos[d].usuario(), puntaje);
+                        }
+                    }
+                    if (++evaluados >= MAX_CANDIDATOS) {
+                        return;
+                    }
+                    if (evaluados == UMBRAL_FILTRO) { // la búsqueda no terminó pronto: vale la pena filtrar
+                        for (int i = 1; i < tokens.length; i++) {
+                            tokens[i].filtrar(otros, documentos.length);
+                        }
+                    }
+                }
+            }
+        }
+
+        private int puntuar(int d, Token[] tokens) {
+            for (Token token : tokens) {
+                if (token.coinciden != null && !token.coinciden.get(d)) {
+                    return 0;
+                }
+            }
+            int total = 0;
+            for (Token token : tokens) {
+                int mejor = 0;
+                for (int id : nombresPorDocumento[d]) {
+                    // Las palabras del nombre se repiten entre usuarios: cada una se puntúa una vez por búsqueda
+                    if (token.puntajeNombre[id] == 0) {
+                        token.puntajeNombre[id] = (byte) (UsuarioBusquedaIndex.puntuar(token.texto, nombres.termino(id), true) + 1);
+                    }
+                    mejor = Math.max(mejor, token.puntajeNombre[id] - 1);
+                }
+                if (mejor < EXACTO && (token.conOtros == null || token.conOtros.get(d))) {
+                    Documento documento = documentos[d];
+                    for (int i = documento.palabrasNombre(); i < documento.terminos().length && mejor < EXACTO; i++) {
+                        mejor = Math.max(mejor, UsuarioBusquedaIndex.puntuar(token.texto, documento.terminos()[i], false));
+                    }
+                }
+                if (mejor == 0) {
+                    return 0;
+                }
+                total += mejor;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Términos en orden alfabético, cada uno con su lista de usuarios, y cada trigrama con su
+     * lista ordenada de términos. Si admite errores, los trigramas llevan relleno.
+     */
+    private static final class Diccionario {
+
+        private final String[] terminos;
+        private final int[][] documentos;
+        private final Map<Long, int[]> trigramas;
+        private final boolean admiteErrores;
+        private final int maxTerminos; // términos agregados como máximo por nivel
+        private final byte[] longitudMinima; // largo mínimo (tope 127) de cada bloque de BLOQUE términos
+
+        Diccionario(Map<String, ListaEnteros> porTermino, boolean admiteErrores, int maxTerminos) {
+            this.admiteErrores = admiteErrores;
+            this.maxTerminos = maxTerminos;
+            terminos = porTermino.keySet().toArray(String[]::new);
+            Arrays.sort(terminos);
+            documentos = new int[terminos.length][];
+            longitudMinima = new byte[(terminos.length + BLOQUE - 1) / BLOQUE];
+            Arrays.fill(longitudMinima, Byte.MAX_VALUE);
+            Map<Long, ListaEnteros> listas = new HashMap<>();
+            for (int t = 0; t < terminos.length; t++) {
+                documentos[t] = porTermino.get(terminos[t]).aArreglo();
+                longitudMinima[t / BLOQUE] = (byte) Math.min(longitudMinima[t / BLOQUE], Math.min(terminos[t].length(), Byte.MAX_VALUE));
+                final int id = t;
+                paraCadaTrigrama(terminos[t], admiteErrores,
+                        trigrama -> listas.computeIfAbsent(trigrama, k -> new ListaEnteros()).agregarUnico(id));
+            }
+            trigramas = new HashMap<>(listas.size() * 2);
+            listas.forEach((trigrama, lista) -> trigramas.put(trigrama, lista.aArreglo()));
+        }
+
+        int id(String termino) {
+            return Arrays.binarySearch(terminos, termino);
+        }
+
+        String termino(int id) {
+            return terminos[id];
+        }
+
+        int tamano() {
+            return terminos.length;
+        }
+
+        // Agrega a la lista los términos que coinciden con el token: prefijo, subcadena y, si admite,
+        // con errores. Si un nivel se cortó en maxTerminos devuelve el puntaje máximo de ese nivel
+        // (lo más que podría valer un término omitido); si no se omitió nada, 0
+        int coincidencias(String token, List<Coincidencia> lista) {
+            BitSet vistos = new BitSet();
+            int omitido = prefijos(token, vistos, lista);
+            if (token.length() >= 3 && !subcadenas(token, vistos, lista)) {
+                omitido = Math.max(omitido, SUBCADENA);
+            }
+            if (admiteErrores && token.length() >= 4 && !conErrores(token, vistos, lista)) {
+                omitido = Math.max(omitido, DISTANCIA_1);
+            }
+            return omitido;
+        }
+
+        // Exacto y prefijo: el rango de términos que empiezan con el token (el exacto es el primero).
+        // Si el rango se corta, el puntaje de los omitidos se acota con el largo del más corto
+        private int prefijos(String token, BitSet vistos, List<Coincidencia> lista) {
+            int desde = id(token);
+            if (desde < 0) {
+                desde = -desde - 1;
+            }
+            for (int t = desde; t < terminos.length && terminos[t].startsWith(token); t++) {
+                if (t - desde == maxTerminos) {
+                    int hasta = -id(token + Character.MAX_VALUE) - 1; // fin del rango: ningún término lleva ese carácter
+                    return PREFIJO - Math.min(20, longitudMinima(t, hasta) - token.length());
+                }
+                agregar(token, t, vistos, lista);
+            }
+            return 0;
+        }
+
+        // Marca los usuarios de todos los términos que pueden contener el token: el rango completo de
+        // prefijos y los que tienen todos sus trigramas (sin comprobar la subcadena ni aplicar
+        // maxTerminos). Devuelve false si superan el límite. Sólo para diccionarios sin errores de tipeo
+        boolean marcar(String token, BitSet marcas, int limite) {
+            int desde = id(token);
+            if (desde < 0) {
+                desde = -desde - 1;
+            }
+            int hasta = -id(token + Character.MAX_VALUE) - 1;
+            long marcados = 0;
+            for (int t = desde; t < hasta; t++) {
+                if ((marcados += documentos[t].length) > limite) {
+                    return false;
+                }
+                for (int d : documentos[t]) {
+                    marcas.set(d);
+                }
+            }
+            List<int[]> listas = token.length() < 3 ? null : trigramasDe(token);
+            if (listas == null) {
+                return true;
+            }
+            for (int t : listas.get(0)) {
+                if (enTodas(listas, t)) {
+                    if ((marcados += documentos[t].length) > limite) {
+                        return false;
+                    }
+                    for (int d : documentos[t]) {
+                        marcas.set(d);
+                    }
+                }
+            }
+            return true;
+        }
+
+        private int longitudMinima(int desde, int hasta) {
+            int minimo = Integer.MAX_VALUE;
+            int t = desde;
+            for (; t < hasta && t % BLOQUE != 0; t++) {
+                minimo = Math.min(minimo, terminos[t].length());
+            }
+            for (; t + BLOQUE <= hasta; t += BLOQUE) {
+                minimo = Math.min(minimo, longitudMinima[t / BLOQUE]);
+            }
+            for (; t < hasta; t++) {
+                minimo = Math.min(minimo, terminos[t].length());
+            }
+            return minimo;
+        }
+
+        // Términos que contienen todos los trigramas del token y, comprobado, el token completo.
+        // Los trigramas internos de un término también están entre sus trigramas con relleno
+        private boolean subcadenas(String token, BitSet vistos, List<Coincidencia> lista) {
+            List<int[]> listas = trigramasDe(token);
+            if (listas == null) {
+                return true;
+            }
+            int n = 0;
+            for (int t : listas.get(0)) {
+                if (!vistos.get(t) && enTodas(listas, t) && terminos[t].contains(token)) {
+                    if (n++ == maxTerminos) {
+                        return false;
+                    }
+                    agregar(token, t, vistos, lista);
+                }
+            }
+            return true;
+        }
+
+        // Palabras a distancia de edición 1 (o 2 si el token es largo). Una palabra a distancia k
+        // comparte al menos (trigramas del token - 3k) trigramas con relleno con él
+        private boolean conErrores(String token, BitSet vistos, List<Coincidencia> lista) {
+            int maxima = maximaDistancia(token);
+            int minimo = token.length() + 1 - 3 * maxima; // token.length() + 1 trigramas con relleno
+            Map<Integer, Integer> comunes = new HashMap<>();
+            paraCadaTrigrama(token, true, trigrama -> {
+                int[] encontrada = trigramas.get(trigrama);
+                if (encontrada != null) {
+                    for (int t : encontrada) {
+                        comunes.merge(t, 1, Integer::sum);
+                    }
+                }
+            });
+            int n = 0;
+            for (Map.Entry<Integer, Integer> entrada : comunes.entrySet()) {
+                int t = entrada.getKey();
+                if (entrada.getValue() >= minimo && !vistos.get(t) && levenshtein(token, terminos[t], maxima) <= maxima) {
+                    if (n++ == maxTerminos) {
+                        return false;
+                    }
+                    agregar(token, t, vistos, lista);
+                }
+            }
+            return true;
+        }
+
+        private void agregar(String token, int t, BitSet vistos, List<Coincidencia> lista) {
+            vistos.set(t);
+            int puntaje = puntuar(token, terminos[t], admiteErrores);
+            if (puntaje > 0) {
+                lista.add(new Coincidencia(puntaje, documentos[t]));
+            }
+        }
+
+        // Listas de términos de cada trigrama interno del token, la más corta primero; null si falta alguno
+        private List<int[]> trigramasDe(String token) {
+            List<int[]> listas = new ArrayList<>();
+            boolean[] falta = { false };
+            paraCadaTrigrama(token, false, trigrama -> {
+                int[] encontrada = trigramas.get(trigrama);
+                if (encontrada == null) {
+                    falta[0] = true;
+                } else {
+                    listas.add(encontrada);
+                }
+            });
+            if (falta[0] || listas.isEmpty()) {
+                return null;
+            }
+            listas.sort(Comparator.comparingInt(l -> l.length));
+            return listas;
+        }
+
+        private static boolean enTodas(List<int[]> listas, int t) {
+            for (int i = 1; i < listas.size(); i++) {
+                if (Arrays.binarySearch(listas.get(i), t) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Trigramas de un término empacados en un long (3 caracteres de 16 bits). Con relleno se
+    // agregan "$$" al inicio y "$" al final, así las palabras cortas también tienen trigramas
+    private static void paraCadaTrigrama(String termino, boolean relleno, LongConsumer consumidor) {
+        String texto = relleno ? "$$" + termino + "$" : termino;
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            consumidor.accept(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+        }
+    }
+
+    // Lista creciente de int sin cajas (Integer) para construir las listas de la instantánea
+    private static final class ListaEnteros {
+        private int[] valores = new int[2];
+        private int tamano;
+
+        // Los valores llegan en orden creciente: basta comparar con el último para no repetir
+        void agregarUnico(int valor) {
+            if (tamano > 0 && valores[tamano - 1] == valor) {
+                return;
+            }
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, tamano * 2);
+            }
+            valores[tamano++] = valor;
+        }
+
+        int[] aArreglo() {
+            return tamano == valores.length ? valores : Arrays.copyOf(valores, tamano);
+        }
+    }
+}
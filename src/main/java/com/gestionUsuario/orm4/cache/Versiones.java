@@ -0,0 +1,54 @@
+package com.gestionUsuario.orm4.cache;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+
+/**
+ * ETags a partir de las columnas @Version. La representación de un usuario incluye su rol
+ * y el permiso del rol, así que su ETag combina las tres versiones ("usuario.rol.permiso"):
+ * cambia con cualquier escritura que altere el JSON sin tener que leer ni hashear el cuerpo.
+ */
+public final class Versiones {
+
+    private Versiones() {
+    }
+
+    public static String de(Permiso permiso) {
+        return permiso == null ? "-" : Long.toString(permiso.getVersion());
+    }
+
+    public static String de(Rol rol) {
+        return rol == null ? "-" : rol.getVersion() + "." + de(rol.getPermiso());
+    }
+
+    public static String de(Usuario usuario) {
+        return usuario.getVersion() + "." + de(usuario.getRol());
+    }
+
+    public static String etag(Usuario usuario) {
+        return "\"" + de(usuario) + "\"";
+    }
+
+    // ETag tras una escritura condicional: se conoce la versión nueva del usuario, no las de su rol y
+    // permiso (no se releen). Basta para encadenar el siguiente If-Match, que sólo compara la del
+    // usuario; un If-None-Match con él nunca coincide con el de etag(Usuario), así que no da un 304 falso
+    public static String etagEscritura(long versionUsuario) {
+        return "\"" + versionUsuario + "\"";
+    }
+
+    // Versión del usuario dentro de un ETag de etag(Usuario); null si no tiene ese formato
+    // (ETag débil, lista de ETags o de otro recurso)
+    public static Long versionUsuario(String etag) {
+        if (etag == null || etag.length() < 3 || etag.charAt(0) != '"' || etag.charAt(etag.length() - 1) != '"') {
+            return null;
+        }
+        String valor = etag.substring(1, etag.length() - 1);
+        int punto = valor.indexOf('.');
+        try {
+            return Long.parseLong(punto < 0 ? valor : valor.substring(0, punto));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
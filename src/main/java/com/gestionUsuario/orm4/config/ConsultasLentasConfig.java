@@ -0,0 +1,36 @@
+package com.gestionUsuario.orm4.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@ConditionalOnProperty(name = "sql.lenta.habilitado", havingValue = "true", matchIfMissing = true)
+public class ConsultasLentasConfig {
+
+    // Envuelve el DataSource del pool; Flyway, JPA y las métricas de Hikari lo reciben ya envuelto
+    @Bean
+    public static BeanPostProcessor consultasLentas(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConsultasLentasDataSource)) {
+                    return new ConsultasLentasDataSource(dataSource,
+                            environment.getProperty("sql.lenta.umbral", Duration.class, Duration.ofMillis(500)),
+                            environment.getProperty("sql.lenta.muestra", Double.class, 1.0),
+                            environment.getProperty("sql.lenta.valores", Boolean.class, true),
+                            List.of(environment.getProperty("sql.lenta.ocultar", String[].class,
+                                    ConsultasLentasDataSource.OCULTAR.toArray(String[]::new))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,180 @@
+package com.gestionUsuario.orm4.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Registra las sentencias que tardan más que el umbral, con su duración y los valores de sus
+ * parámetros, en el logger "sql.lenta". Reemplaza a spring.jpa.show-sql, que escribe todas las
+ * sentencias en el hilo de la petición. Si muchas sentencias pasan el umbral (la base se degradó),
+ * sólo se registra la fracción "muestra" de ellas; el total queda en {@link #getLentas()}.
+ * Los valores de las sentencias que nombran una tabla o columna de "ocultar" (tokens de sesión,
+ * hashes de contraseña) no se registran nunca.
+ */
+public class ConsultasLentasDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger("sql.lenta");
+    private static final int LARGO_MAXIMO_VALOR = 100;
+
+    // Tablas y columnas cuyos valores no deben quedar en el registro: la tabla sesion lleva tokens
+    // vigentes, contrasena el hash de la contraseña
+    public static final List<String> OCULTAR = List.of("sesion", "contrasena");
+
+    private final long umbralNanos;
+    private final double muestra;
+    private final boolean conValores;
+    private final List<String> ocultar;
+    private final AtomicLong lentas = new AtomicLong();
+
+    public ConsultasLentasDataSource(DataSource dataSource, Duration umbral, double muestra, boolean conValores) {
+        this(dataSource, umbral, muestra, conValores, OCULTAR);
+    }
+
+    public ConsultasLentasDataSource(DataSource dataSource, Duration umbral, double muestra, boolean conValores,
+            List<String> ocultar) {
+        super(dataSource);
+        this.umbralNanos = umbral.toNanos();
+        this.muestra = muestra;
+        this.conValores = conValores;
+        this.ocultar = ocultar.stream().map(nombre -> nombre.toLowerCase(Locale.ROOT)).toList();
+    }
+
+    // Sentencias que pasaron el umbral desde el arranque, registradas o no
+    public long getLentas() {
+        return lentas.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conexion(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String contrasena) throws SQLException {
+        return conexion(super.getConnection(usuario, contrasena));
+    }
+
+    private Connection conexion(Connection conexion) {
+        return proxy(Connection.class, conexion, (proxy, metodo, argumentos) -> {
+            Object resultado = invocar(conexion, metodo, argumentos);
+            if (resultado instanceof CallableStatement sentencia) {
+                return proxy(CallableStatement.class, sentencia, new Medicion(sentencia, (String) argumentos[0]));
+            }
+            if (resultado instanceof PreparedStatement sentencia) {
+                return proxy(PreparedStatement.class, sentencia, new Medicion(sentencia, (String) argumentos[0]));
+            }
+            if (resultado instanceof Statement sentencia) {
+                return proxy(Statement.class, sentencia, new Medicion(sentencia, null)); // el SQL llega en execute*
+            }
+            return resultado;
+        });
+    }
+
+    // Mide execute*, y guarda los valores de set*(índice, valor) para mostrarlos si la sentencia es lenta
+    private class Medicion implements InvocationHandler {
+
+        private final Statement sentencia;
+        private final String sql;
+        private final List<Object> valores = new ArrayList<>();
+        private int filasLote;
+
+        Medicion(Statement sentencia, String sql) {
+            this.sentencia = sentencia;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argumentos) throws Throwable {
+            String nombre = metodo.getName();
+            if (conValores && nombre.startsWith("set") && argumentos != null && argumentos.length >= 2
+                    && argumentos[0] instanceof Integer indice) {
+                while (valores.size() < indice) {
+                    valores.add(null);
+                }
+                valores.set(indice - 1, nombre.equals("setNull") ? null : argumentos[1]);
+            } else if (nombre.equals("clearParameters")) {
+                valores.clear();
+            } else if (nombre.equals("addBatch")) {
+                filasLote++;
+            }
+            if (!nombre.startsWith("execute")) {
+                return invocar(sentencia, metodo, argumentos);
+            }
+            long inicio = System.nanoTime();
+            try {
+                return invocar(sentencia, metodo, argumentos);
+            } finally {
+                long duracion = System.nanoTime() - inicio;
+                if (duracion >= umbralNanos) {
+                    registrar(duracion, sql != null ? sql : (argumentos != null && argumentos.length > 0 ? argumentos[0] : null));
+                }
+                if (nombre.equals("executeBatch")) {
+                    filasLote = 0;
+                }
+            }
+        }
+
+        // Los campos van como pares clave-valor (en JSON con el perfil prod) y también en el mensaje
+        private void registrar(long duracion, Object textoSql) {
+            lentas.incrementAndGet();
+            if (!log.isWarnEnabled() || (muestra < 1 && ThreadLocalRandom.current().nextDouble() >= muestra)) {
+                return;
+            }
+            long milisegundos = Duration.ofNanos(duracion).toMillis();
+            Object parametros = !conValores ? "omitidos"
+                    : oculta(textoSql) ? "ocultos"
+                    : valores.stream().map(ConsultasLentasDataSource::recortar).toList();
+            log.atWarn()
+                    .addKeyValue("duracionMs", milisegundos)
+                    .addKeyValue("sql", textoSql)
+                    .addKeyValue("parametros", parametros)
+                    .addKeyValue("filasLote", filasLote)
+                    .log("Consulta lenta ({} ms): {} {}", milisegundos, textoSql, parametros);
+        }
+    }
+
+    // Basta con que el SQL mencione el nombre: ocultar de más no cuesta nada
+    private boolean oculta(Object textoSql) {
+        String sql = String.valueOf(textoSql).toLowerCase(Locale.ROOT);
+        return ocultar.stream().anyMatch(sql::contains);
+    }
+
+    private static Object recortar(Object valor) {
+        if (valor instanceof String texto && texto.length() > LARGO_MAXIMO_VALOR) {
+            return texto.substring(0, LARGO_MAXIMO_VALOR) + "...";
+        }
+        return valor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, T destino, InvocationHandler manejador) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] { tipo }, manejador);
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(destino, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.gestionUsuario.orm4.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * CBOR (application/cbor) y Smile (application/x-jackson-smile) para los clientes que los piden en
+ * Accept; sin Accept, o con cualquier otro, se sigue respondiendo JSON. Los mappers salen del
+ * mismo builder que el de JSON, con la configuración de Spring Boot (p. ej. fechas ISO), así los
+ * tres formatos llevan los mismos campos y valores. Spring MVC ya agregaba estos conversores al
+ * encontrar las librerías, pero con un mapper sin esa configuración; estos beans los reemplazan
+ * en el mismo lugar, después del de JSON.
+ */
+@Configuration
+public class FormatosBinariosConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
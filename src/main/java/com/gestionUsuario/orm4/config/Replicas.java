@@ -0,0 +1,221 @@
+package com.gestionUsuario.orm4.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import com.gestionUsuario.orm4.service.UsuarioService;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Réplicas de lectura (replicas.urls). Las transacciones @Transactional(readOnly = true) de los
+ * servicios leen de una réplica, en rueda; todo lo demás va a la primaria: las escrituras, las
+ * lecturas sin transacción y las transacciones de sólo lectura que Spring Data abre por su cuenta
+ * en los repositorios (findAll, findById). Con estas últimas se recargan los catálogos e índices en
+ * memoria, que no deben quedar atrasados.
+ *
+ * Retraso: cada replicas.revision se busca en la primaria el primer evento_cambio que la réplica
+ * todavía no tiene; su antigüedad es el retraso. Una réplica con más de replicas.retraso-maximo, o
+ * que no responde, deja de recibir lecturas hasta la próxima revisión en que esté al día.
+ *
+ * Lectura de lo propio: después de confirmar una escritura, el resto de la petición lee de la
+ * primaria, y también las peticiones que traen la cookie "escritura" mientras una réplica aún
+ * podría no tenerla (retraso máximo más una revisión).
+ */
+public class Replicas implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(Replicas.class);
+
+    static final String COOKIE = "escritura";
+    private static final String PAQUETE_SERVICIOS = UsuarioService.class.getPackageName() + ".";
+
+    private final List<Replica> replicas;
+    private final Duration retrasoMaximo;
+    private final Duration ventanaPropia;
+    private final AtomicInteger siguiente = new AtomicInteger();
+    private volatile DataSource primaria;
+
+    private static class Replica {
+        final HikariDataSource pool;
+        final JdbcTemplate jdbc;
+        volatile boolean disponible;
+        volatile long retrasoMs = -1; // -1: no responde o aún no se revisó
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+            this.jdbc = new JdbcTemplate(pool);
+        }
+    }
+
+    public Replicas(Environment environment) {
+        Binder binder = Binder.get(environment);
+        String usuario = environment.getProperty("replicas.username", environment.getProperty("spring.datasource.username", ""));
+        String contrasena = environment.getProperty("replicas.password", environment.getProperty("spring.datasource.password", ""));
+        List<String> urls = binder.bind("replicas.urls", Bindable.listOf(String.class)).orElse(List.of());
+        this.replicas = urls.stream().filter(url -> !url.isBlank()).map(url -> {
+            // Mismo tamaño y tiempos que el pool de la primaria
+            HikariDataSource pool = binder.bind("spring.datasource.hikari", Bindable.ofInstance(new HikariDataSource()))
+                    .orElseGet(HikariDataSource::new);
+            pool.setJdbcUrl(url);
+            pool.setUsername(usuario);
+            pool.setPassword(contrasena);
+            pool.setPoolName("replica-" + urls.indexOf(url));
+            pool.setReadOnly(true);
+            return new Replica(pool);
+        }).toList();
+        this.retrasoMaximo = environment.getProperty("replicas.retraso-maximo", Duration.class, Duration.ofSeconds(2));
+        this.ventanaPropia = retrasoMaximo.plus(environment.getProperty("replicas.revision", Duration.class, Duration.ofSeconds(1)));
+    }
+
+    public boolean habilitadas() {
+        return !replicas.isEmpty();
+    }
+
+    // DataSource de la aplicación: la conexión física se pide recién en la primera sentencia, cuando
+    // ya se sabe si la transacción es de sólo lectura y quién la abrió
+    public DataSource enrutar(DataSource primaria) {
+        this.primaria = primaria;
+        return new LazyConnectionDataSourceProxy(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return conexion();
+            }
+
+            @Override
+            public Connection getConnection(String usuario, String contrasena) throws SQLException {
+                return conexion();
+            }
+        });
+    }
+
+    private Connection conexion() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        marcarEscritura();
+                    }
+                });
+            }
+            return primaria.getConnection();
+        }
+        String transaccion = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transaccion != null && transaccion.startsWith(PAQUETE_SERVICIOS) && !leeLoPropio()) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(siguiente.getAndIncrement(), replicas.size()));
+                if (replica.disponible) {
+                    try {
+                        return replica.pool.getConnection();
+                    } catch (SQLException e) {
+                        actualizar(replica, -1, e);
+                    }
+                }
+            }
+        }
+        return primaria.getConnection();
+    }
+
+    // Retraso de cada réplica en ms (-1 si no responde), en el orden de replicas.urls
+    public List<Long> retrasos() {
+        return replicas.stream().map(replica -> replica.retrasoMs).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${replicas.revision:PT1S}")
+    public void revisar() {
+        if (primaria == null) {
+            return;
+        }
+        JdbcTemplate jdbcPrimaria = new JdbcTemplate(primaria);
+        for (Replica replica : replicas) {
+            try {
+                Long ultimo = replica.jdbc.queryForObject("select coalesce(max(id), 0) from evento_cambio", Long.class);
+                Timestamp pendiente = jdbcPrimaria.queryForObject(
+                        "select min(creado) from evento_cambio where id > ?", Timestamp.class, ultimo);
+                actualizar(replica, pendiente == null ? 0 : Math.max(0, System.currentTimeMillis() - pendiente.getTime()), null);
+            } catch (DataAccessException e) {
+                actualizar(replica, -1, e);
+            }
+        }
+    }
+
+    private void actualizar(Replica replica, long retrasoMs, Exception error) {
+        boolean disponible = retrasoMs >= 0 && retrasoMs <= retrasoMaximo.toMillis();
+        replica.retrasoMs = retrasoMs;
+        if (disponible != replica.disponible) {
+            if (disponible) {
+                log.info("Réplica {} disponible (retraso {} ms)", replica.pool.getPoolName(), retrasoMs);
+            } else if (error != null) {
+                log.warn("Réplica {} sin lecturas: {}", replica.pool.getPoolName(), error.getMessage());
+            } else {
+                log.warn("Réplica {} sin lecturas: retraso {} ms", replica.pool.getPoolName(), retrasoMs);
+            }
+        }
+        replica.disponible = disponible;
+    }
+
+    private void marcarEscritura() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (!(atributos instanceof ServletRequestAttributes peticion)) {
+            return; // fuera de una petición (tareas programadas) no hay a quién seguir
+        }
+        long ahora = System.currentTimeMillis();
+        peticion.setAttribute(COOKIE, ahora, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse respuesta = peticion.getResponse();
+        if (respuesta != null && !respuesta.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, String.valueOf(ahora));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, ventanaPropia.toSeconds() + 1));
+            respuesta.addCookie(cookie);
+        }
+    }
+
+    private boolean leeLoPropio() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes peticion)) {
+            return false;
+        }
+        long escritura = 0;
+        if (peticion.getAttribute(COOKIE, RequestAttributes.SCOPE_REQUEST) instanceof Long marca) {
+            escritura = marca;
+        } else if (WebUtils.getCookie(peticion.getRequest(), COOKIE) instanceof Cookie cookie) {
+            try {
+                escritura = Long.parseLong(cookie.getValue());
+            } catch (NumberFormatException e) {
+                // cookie ajena o alterada: se ignora
+            }
+        }
+        return System.currentTimeMillis() - escritura < ventanaPropia.toMillis();
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+}
@@ -0,0 +1,58 @@
+package com.gestionUsuario.orm4.config;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class ReplicasConfig {
+
+    @Bean
+    public Replicas replicas(Environment environment) {
+        return new Replicas(environment);
+    }
+
+    // Antes que ConsultasLentasConfig, así las sentencias de las réplicas también se miden. Spring
+    // ordena los BeanPostProcessor por el tipo declarado: el método debe devolver RuteoReplicas
+    @Bean
+    public static RuteoReplicas ruteoReplicas(ObjectProvider<Replicas> replicas) {
+        return new RuteoReplicas(replicas);
+    }
+
+    // Con open-in-view, Hibernate retiene la conexión de la primera transacción hasta el final de la
+    // petición; al liberarla después de cada una, la siguiente elige de nuevo entre primaria y réplica
+    @Bean
+    public HibernatePropertiesCustomizer liberarConexionPorTransaccion(Replicas replicas) {
+        return propiedades -> {
+            if (replicas.habilitadas()) {
+                propiedades.put(AvailableSettings.CONNECTION_HANDLING,
+                        PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+            }
+        };
+    }
+
+    record RuteoReplicas(ObjectProvider<Replicas> replicas) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String nombre) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ConsultasLentasDataSource)
+                    && replicas.getObject().habilitadas()) {
+                return replicas.getObject().enrutar(dataSource);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.gestionUsuario.orm4.config;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import com.gestionUsuario.orm4.dto.AsignacionRol;
+import com.gestionUsuario.orm4.dto.FiltroUsuario;
+import com.gestionUsuario.orm4.dto.PermisoRol;
+import com.gestionUsuario.orm4.dto.ResultadoBusqueda;
+import com.gestionUsuario.orm4.dto.ResultadoImportacion;
+import com.gestionUsuario.orm4.dto.SolicitudLogin;
+import com.gestionUsuario.orm4.dto.UsuarioBuscable;
+import com.gestionUsuario.orm4.dto.VerificacionPermiso;
+import com.gestionUsuario.orm4.model.EventoCambio;
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.model.Usuario;
+
+/**
+ * Metadatos de reflexión y recursos para la imagen nativa (perfil native). El procesamiento AOT
+ * ya cubre los beans, las entidades para Hibernate, los cuerpos de los controladores y los proxies
+ * de methodOn (Spring HATEOAS); aquí va lo que se usa por reflexión fuera de eso.
+ */
+public class RuntimeHintsNativos implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar jackson = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Getters, setters y constructores generados por Lombok: Jackson los usa también dentro de
+        // EntityModel, CompletableFuture y la importación por streaming, donde AOT no llega
+        jackson.registerReflectionHints(hints.reflection(),
+                Usuario.class, Rol.class, Permiso.class, Sesion.class, EventoCambio.class,
+                SolicitudLogin.class, FiltroUsuario.class, ResultadoBusqueda.class, ResultadoImportacion.class,
+                VerificacionPermiso.class);
+
+        // Constructores de los "select new" de JPQL
+        for (Class<?> proyeccion : new Class<?>[] { AsignacionRol.class, PermisoRol.class, UsuarioBuscable.class }) {
+            hints.reflection().registerType(proyeccion, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+
+        // Archivos estáticos de swagger-ui y su versión (springdoc registra sólo los modelos de OpenAPI)
+        hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/*/*");
+        hints.resources().registerPattern("META-INF/maven/org.webjars/swagger-ui/pom.properties");
+
+        // Proxies JDK de ConsultasLentasDataSource, y la conexión diferida de las réplicas
+        for (Class<?> jdbc : new Class<?>[] { Connection.class, Statement.class, PreparedStatement.class, CallableStatement.class,
+                ConnectionProxy.class }) {
+            hints.proxies().registerJdkProxy(jdbc);
+        }
+
+        // Appenders del perfil prod en logback-spring.xml, que Joran crea por reflexión
+        for (String clase : new String[] { "ch.qos.logback.classic.AsyncAppender", "ch.qos.logback.classic.encoder.JsonEncoder" }) {
+            hints.reflection().registerTypeIfPresent(classLoader, clase,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.gestionUsuario.orm4.config;
+
+import javax.sql.DataSource;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * En MySQL, Hibernate emula la secuencia de ids de usuario con la tabla usuario_seq. Con
+ * ddl-auto=update la crea partiendo de 1 aunque la tabla usuario ya tenga filas (creadas con
+ * AUTO_INCREMENT), y los ids nuevos chocarían con los existentes. Al arrancar, con el esquema
+ * ya creado y antes de atender peticiones, se la adelanta por encima del mayor id, como la
+ * migración V3. Nunca la retrocede; con secuencias nativas (H2 en las pruebas) no hace nada.
+ */
+@Component
+public class SecuenciaUsuario implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(SecuenciaUsuario.class);
+
+    // Hibernate reserva los ids (next_val - 50, next_val] (allocationSize de Usuario)
+    private static final String ALINEAR = "update usuario_seq set next_val = (select coalesce(max(id_usuario), 0) + 51 from usuario) "
+            + "where next_val < (select coalesce(max(id_usuario), 0) + 51 from usuario)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // con él ya inicializado, ddl-auto creó la tabla
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean tablaSecuencia = !entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().supportsSequences();
+        if (tablaSecuencia && alinear(new JdbcTemplate(dataSource)) > 0) {
+            log.warn("usuario_seq estaba por debajo de los ids existentes; se adelantó por encima del mayor id_usuario");
+        }
+    }
+
+    // Devuelve 1 si tuvo que adelantar la secuencia, 0 si ya estaba por encima
+    static int alinear(JdbcTemplate jdbc) {
+        return jdbc.update(ALINEAR);
+    }
+}
@@ -2,10 +2,15 @@ package com.gestionUsuario.orm4.config;
 
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
+@Lazy
 public class SwaggerConfig {
 
     @Bean
@@ -16,4 +21,21 @@ public class SwaggerConfig {
                         .version("1.0")
                         .description("Documentación de la API para la gestión de usuarios"));
     }
-}
\ No newline at end of file
+
+    // Los beans de springdoc se crean con la primera petición a /v3/api-docs o /swagger-ui, no al
+    // arrancar: Spring MVC registra las rutas de un controlador lazy sin instanciarlo. Los que se
+    // inicializan al arrancar (p. ej. el que fija la versión de swagger-ui) quedan como están
+    @Bean
+    public static BeanFactoryPostProcessor springdocDiferido() {
+        return beanFactory -> {
+            for (String nombre : beanFactory.getBeanDefinitionNames()) {
+                Class<?> tipo = beanFactory.getType(nombre, false);
+                if (tipo != null && tipo.getName().startsWith("org.springdoc.")
+                        && !InitializingBean.class.isAssignableFrom(tipo)
+                        && !SmartInitializingSingleton.class.isAssignableFrom(tipo)) {
+                    beanFactory.getBeanDefinition(nombre).setLazyInit(true);
+                }
+            }
+        };
+    }
+}
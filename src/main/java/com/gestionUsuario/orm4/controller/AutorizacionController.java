@@ -0,0 +1,58 @@
+package com.gestionUsuario.orm4.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.gestionUsuario.orm4.cache.PermisoIndex;
+import com.gestionUsuario.orm4.dto.VerificacionPermiso;
+
+// Verificación de permisos para otros servicios; se responde desde el índice en memoria
+@RestController
+@RequestMapping("/api/usuario")
+public class AutorizacionController {
+
+    static final int MAX_CONSULTAS = 1000; // tope de consultas por petición en lote
+
+    @Autowired
+    private PermisoIndex permisoIndex;
+
+    @GetMapping("/{id}/permisos/{idPermiso}")
+    public ResponseEntity<VerificacionPermiso> tienePermiso(@PathVariable int id, @PathVariable int idPermiso) {
+        if (!permisoIndex.listo()) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        Boolean concedido = permisoIndex.tienePermiso(id, idPermiso);
+        if (concedido == null) { // el usuario no existe
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(new VerificacionPermiso(id, idPermiso, concedido), HttpStatus.OK);
+    }
+
+    // Varias consultas en una petición; un usuario inexistente no tiene ningún permiso.
+    // Un cuerpo null, una consulta null o más de MAX_CONSULTAS responden 400
+    @PostMapping("/permisos")
+    public ResponseEntity<List<VerificacionPermiso>> tienePermisos(@RequestBody(required = false) List<VerificacionPermiso> consultas) {
+        if (consultas == null || consultas.size() > MAX_CONSULTAS || consultas.contains(null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!permisoIndex.listo()) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        List<VerificacionPermiso> respuestas = new ArrayList<>(consultas.size());
+        for (VerificacionPermiso consulta : consultas) {
+            Boolean concedido = permisoIndex.tienePermiso(consulta.getIdUsuario(), consulta.getIdPermiso());
+            respuestas.add(new VerificacionPermiso(consulta.getIdUsuario(), consulta.getIdPermiso(), Boolean.TRUE.equals(concedido)));
+        }
+        return new ResponseEntity<>(respuestas, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,38 @@
+package com.gestionUsuario.orm4.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.gestionUsuario.orm4.cache.UsuarioBusquedaIndex;
+import com.gestionUsuario.orm4.dto.ResultadoBusqueda;
+
+// Búsqueda de usuarios por nombre, RUT o email; se responde desde el índice en memoria
+@RestController
+@RequestMapping("/api/usuario")
+public class BusquedaController {
+
+    static final int MAX_LIMITE = 100; // tope de resultados por búsqueda
+
+    @Autowired
+    private UsuarioBusquedaIndex usuarioBusquedaIndex;
+
+    // GET /api/usuario/search?q=<texto>&limit=<n>: resultados ordenados por puntaje
+    @GetMapping("/search")
+    public ResponseEntity<List<ResultadoBusqueda>> buscar(@RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (q.isBlank() || limit < 1 || limit > MAX_LIMITE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!usuarioBusquedaIndex.listo()) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<>(usuarioBusquedaIndex.buscar(q, limit), HttpStatus.OK);
+    }
+}
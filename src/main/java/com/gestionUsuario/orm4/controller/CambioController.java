@@ -0,0 +1,45 @@
+package com.gestionUsuario.orm4.controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.gestionUsuario.orm4.model.EventoCambio;
+import com.gestionUsuario.orm4.service.CambioService;
+
+@RestController
+@RequestMapping("/api/changes")
+public class CambioController {
+
+    static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private CambioService cambioService;
+
+    // GET /api/changes?since=<último id recibido>&limit=<n>. Si no hay eventos nuevos la respuesta
+    // queda abierta (long polling) hasta que llegue alguno; si vence la espera, 204. El hilo de la
+    // petición se libera mientras tanto
+    @GetMapping
+    public CompletableFuture<ResponseEntity<List<EventoCambio>>> getCambios(@RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (since < 0 || limit < 1 || limit > MAX_LIMIT) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return cambioService.esperar(since, limit).thenApply(eventos -> eventos.isEmpty()
+                ? new ResponseEntity<>(HttpStatus.NO_CONTENT)
+                : new ResponseEntity<>(eventos, HttpStatus.OK));
+    }
+
+    // Id del último evento: un consumidor nuevo lo lee, carga el estado completo y sigue desde ahí
+    @GetMapping("/ultimo")
+    public ResponseEntity<Long> getUltimo() {
+        return new ResponseEntity<>(cambioService.ultimo(), HttpStatus.OK);
+    }
+}
@@ -3,6 +3,7 @@ package com.gestionUsuario.orm4.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.gestionUsuario.orm4.cache.Catalogo;
 import com.gestionUsuario.orm4.model.Permiso;
 import com.gestionUsuario.orm4.service.PermisoService;
 @RequestMapping("/api/permiso")
@@ -22,10 +24,13 @@ public class PermisoController {
 
     @GetMapping
     public ResponseEntity<List<Permiso>> getPermisos() { 
-        List<Permiso> permisos = permisoService.findAll();
+        // Se sirve desde memoria; con If-None-Match igual al ETag Spring responde 304 sin cuerpo
+        Catalogo<Permiso> catalogo = permisoService.catalogo();
 
-        if (!permisos.isEmpty()) {
-            return new ResponseEntity<>(permisos, HttpStatus.OK);
+        if (!catalogo.datos().isEmpty()) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(catalogo.etag());
+            return new ResponseEntity<>(catalogo.datos(), headers, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
@@ -33,7 +38,8 @@ public class PermisoController {
     @PostMapping
     public ResponseEntity<Permiso> crearPermiso(@RequestBody Permiso permisos) {
 
-        if (permisos != null && !permisoService.existsById(permisos.getIdPermiso())) {
+        // El id lo genera la base de datos: un permiso que ya trae id no es una creación
+        if (permisos != null && permisos.getIdPermiso() == 0) {
 
             return new ResponseEntity<>(permisoService.save(permisos), HttpStatus.OK);
         }
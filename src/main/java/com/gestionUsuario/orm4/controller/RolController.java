@@ -3,6 +3,7 @@ package com.gestionUsuario.orm4.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.gestionUsuario.orm4.cache.Catalogo;
 import com.gestionUsuario.orm4.model.Rol;
 import com.gestionUsuario.orm4.service.RolService;
 
@@ -23,10 +25,13 @@ public class RolController {
 
     @GetMapping
     public ResponseEntity<List<Rol>> getRoles() { 
-        List<Rol> roles = rolService.findAll();
+        // Se sirve desde memoria; con If-None-Match igual al ETag Spring responde 304 sin cuerpo
+        Catalogo<Rol> catalogo = rolService.catalogo();
 
-        if (!roles.isEmpty()) {
-            return new ResponseEntity<>(roles, HttpStatus.OK);
+        if (!catalogo.datos().isEmpty()) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(catalogo.etag());
+            return new ResponseEntity<>(catalogo.datos(), headers, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
@@ -34,7 +39,8 @@ public class RolController {
     @PostMapping
     public ResponseEntity<Rol> crearRol(@RequestBody Rol roles) {
 
-        if (roles != null && !rolService.existsById(roles.getIdRol())) {
+        // El id lo genera la base de datos: un rol que ya trae id no es una creación
+        if (roles != null && roles.getIdRol() == 0) {
 
             return new ResponseEntity<>(rolService.save(roles), HttpStatus.OK);
         }
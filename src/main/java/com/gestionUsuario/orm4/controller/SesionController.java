@@ -1,17 +1,23 @@
 package com.gestionUsuario.orm4.controller;
 
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.gestionUsuario.orm4.dto.SolicitudLogin;
 import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.service.AutenticacionService;
 import com.gestionUsuario.orm4.service.SesionService;
 
 @RestController
@@ -20,6 +26,9 @@ public class SesionController {
         @Autowired
     private SesionService sesionService;
 
+    @Autowired
+    private AutenticacionService autenticacionService;
+
     @GetMapping
     public ResponseEntity<List<Sesion>> getSesiones() { // mapea la tabla desde la db
         List<Sesion> sesiones = sesionService.findAll();
@@ -30,13 +39,52 @@ public class SesionController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    // Con sesion.modo=firmado la tabla es la lista de revocados: insertar ahí revocaría el token -> 405
     @PostMapping
     public ResponseEntity<Sesion> crearSesion(@RequestBody Sesion sesion) {
+        if (sesionService.modoFirmado()) {
+            HttpHeaders cabeceras = new HttpHeaders();
+            cabeceras.setAllow(Set.of(HttpMethod.GET));
+            return new ResponseEntity<>(cabeceras, HttpStatus.METHOD_NOT_ALLOWED);
+        }
 
-        if (sesion != null && !sesionService.existsByToken(sesion.getToken())) { //recordar que el token es un String, no un int
+        if (sesion != null && sesionService.crear(sesion)) { // un solo INSERT; falla si el token ya existe
 
-            return new ResponseEntity<>(sesionService.save(sesion), HttpStatus.OK);
+            return new ResponseEntity<>(sesion, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
     }
+
+    // Login por RUT o email: el token lo genera el servidor; credenciales inválidas -> 401
+    @PostMapping("/login")
+    public ResponseEntity<Sesion> login(@RequestBody SolicitudLogin solicitud) {
+        return autenticacionService.login(solicitud.getIdentificador(), solicitud.getContrasena())
+                .map(sesion -> new ResponseEntity<>(sesion, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+    }
+
+    // Valida el token del encabezado "Authorization: Bearer <token>": 204 si es válido, 401 si no
+    @GetMapping("/validar")
+    public ResponseEntity<Void> validar(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String autorizacion) {
+        if (sesionService.validar(token(autorizacion))) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+
+    // Cierra la sesión del token Bearer: 204, o 401 si el token no es válido
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String autorizacion) {
+        if (sesionService.revocar(token(autorizacion))) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+
+    private static String token(String autorizacion) {
+        if (autorizacion == null || !autorizacion.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return autorizacion.substring(7).trim();
+    }
 }
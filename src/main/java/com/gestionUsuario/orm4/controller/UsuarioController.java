@@ -1,9 +1,14 @@
 package com.gestionUsuario.orm4.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,9 +16,21 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.gestionUsuario.orm4.cache.Versiones;
+import com.gestionUsuario.orm4.dto.FiltroUsuario;
+import com.gestionUsuario.orm4.dto.ResultadoImportacion;
 import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.UsuarioRepositoryCustom;
+import com.gestionUsuario.orm4.service.UsuarioImportacionService;
 import com.gestionUsuario.orm4.service.UsuarioService;
 
 
@@ -21,12 +38,35 @@ import com.gestionUsuario.orm4.service.UsuarioService;
 @RequestMapping("/api/usuario")
 public class UsuarioController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    static final int MAX_LIMIT = 1000; // tope de filas por página
+    static final int STREAM_PAGE_SIZE = 500; // filas leídas por consulta al transmitir
+
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private UsuarioImportacionService usuarioImportacionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // GET /api/usuario?activo=&idRol=&nombre=<prefijo>&fields=idUsuario,nombre,activo
+    // Sin fields devuelve usuarios completos; con fields, sólo esas columnas (ver UsuarioRepositoryCustom.CAMPOS)
     @GetMapping
-    public ResponseEntity<List<Usuario>> getUsuarios() { // mapea la tabla desde la db
-        List<Usuario> usuarios = usuarioService.findAll();
+    public ResponseEntity<List<?>> getUsuarios(FiltroUsuario filtro) { // mapea la tabla desde la db
+        List<?> usuarios;
+        if (filtro != null && filtro.getFields() != null) {
+            if (filtro.getFields().isEmpty() || !UsuarioRepositoryCustom.CAMPOS.containsAll(filtro.getFields())) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            usuarios = usuarioService.findCampos(filtro);
+        } else if (filtro != null && !filtro.sinFiltros()) {
+            usuarios = usuarioService.findAll(filtro);
+        } else {
+            usuarios = usuarioService.findAll();
+        }
 
         if (!usuarios.isEmpty()) {
             return new ResponseEntity<>(usuarios, HttpStatus.OK); // devuelve la entidad con un status http
@@ -34,25 +74,99 @@ public class UsuarioController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    // Paginación por cursor: GET /api/usuario?after=<ultimo id>&limit=<n>
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<Usuario>> getUsuariosPagina(@RequestParam(defaultValue = "0") int after,
+            @RequestParam int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<Usuario> usuarios = usuarioService.findPage(after, limit);
+
+        if (usuarios.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        if (usuarios.size() == limit) { // puede haber más filas: se informa el siguiente cursor
+            int siguiente = usuarios.get(usuarios.size() - 1).getIdUsuario();
+            headers.add(HttpHeaders.LINK, "</api/usuario?after=" + siguiente + "&limit=" + limit + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(usuarios, headers, HttpStatus.OK);
+    }
+
+    // Transmite todos los usuarios como NDJSON (un objeto por línea) sin cargarlos en memoria
+    @GetMapping(value = "/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsuariosNdjson() {
+        ObjectWriter writer = objectMapper.writerFor(Usuario.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(out -> usuarioService.forEachPage(STREAM_PAGE_SIZE, pagina -> {
+                    try {
+                        for (Usuario usuario : pagina) {
+                            writer.writeValue(out, usuario);
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+    }
+
+    // Igual que el anterior, pero escribe un arreglo JSON de forma incremental
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsuariosJson() {
+        ObjectWriter writer = objectMapper.writerFor(Usuario.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> {
+                    try (SequenceWriter secuencia = writer.writeValuesAsArray(out)) {
+                        usuarioService.forEachPage(STREAM_PAGE_SIZE, pagina -> {
+                            try {
+                                secuencia.writeAll(pagina);
+                                secuencia.flush();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    }
+                });
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Usuario> getUsuarioById(@PathVariable int id) {
-        if (usuarioService.existsById(id)){
-            return new ResponseEntity<>(usuarioService.findById(id).get(),HttpStatus.OK);
-        }
-        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        // Con If-None-Match igual al ETag Spring responde 304 sin cuerpo
+        return usuarioService.findById(id)
+                .map(usuario -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setETag(Versiones.etag(usuario));
+                    return new ResponseEntity<>(usuario, headers, HttpStatus.OK);
+                })
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
 
     @PostMapping
     public ResponseEntity<Usuario> crearUsuario(@RequestBody Usuario usuario) {
 
-        if (usuario != null && !usuarioService.existsById(usuario.getIdUsuario())) {
+        // El id lo genera la base de datos: un usuario que ya trae id no es una creación
+        if (usuario != null && usuario.getIdUsuario() == 0) {
 
             return new ResponseEntity<>(usuarioService.save(usuario), HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
     }
 
+    // Importación masiva: arreglo JSON o NDJSON, leído de forma incremental; responde un resultado por fila
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<List<ResultadoImportacion>> importarUsuarios(InputStream cuerpo) throws IOException {
+        try (MappingIterator<Usuario> usuarios = objectMapper.readerFor(Usuario.class).readValues(cuerpo)) {
+            return new ResponseEntity<>(usuarioImportacionService.importar(usuarios), HttpStatus.OK);
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> borrarUsuario(@PathVariable int id){
         usuarioService.deleteById(id);
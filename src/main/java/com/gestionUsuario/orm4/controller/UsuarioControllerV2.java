@@ -1,25 +1,33 @@
 package com.gestionUsuario.orm4.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors; 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.hateoas.CollectionModel; 
 import org.springframework.hateoas.EntityModel;    
 import org.springframework.hateoas.MediaTypes; 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping; 
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.gestionUsuario.orm4.assemblers.UsuarioModelAssembler; 
+import com.gestionUsuario.orm4.cache.Versiones;
 import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.UsuarioRepositoryCustom;
 import com.gestionUsuario.orm4.service.UsuarioService;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -29,6 +37,8 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/usuarioV2")
 public class UsuarioControllerV2 {
 
+    public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     @Autowired
     private UsuarioService usuarioService;
 
@@ -44,7 +54,7 @@ public class UsuarioControllerV2 {
 
         // Envuelve la lista de EntityModel en un CollectionModel
         CollectionModel<EntityModel<Usuario>> collectionModel = CollectionModel.of(usuarios,
-                linkTo(methodOn(UsuarioController.class).getUsuarios()).withSelfRel());
+                linkTo(methodOn(UsuarioController.class).getUsuarios(null)).withSelfRel());
 
         if (!usuarios.isEmpty()) {
             return new ResponseEntity<>(collectionModel, HttpStatus.OK);
@@ -55,9 +65,14 @@ public class UsuarioControllerV2 {
     // Obtener un usuario por ID con HATEOAS
     @GetMapping(value = "/{id}", produces = MediaTypes.HAL_JSON_VALUE) // Especifica que produce HAL+JSON
     public ResponseEntity<EntityModel<Usuario>> getUsuarioById(@PathVariable int id) {
+        // Con If-None-Match igual al ETag Spring responde 304 sin serializar el cuerpo
         return usuarioService.findById(id)
-                .map(assembler::toModel) // Usa el assembler para convertir el Usuario a EntityModel
-                .map(entityModel -> new ResponseEntity<>(entityModel, HttpStatus.OK))
+                .map(usuario -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setETag(Versiones.etag(usuario));
+                    // Usa el assembler para convertir el Usuario a EntityModel
+                    return new ResponseEntity<>(assembler.toModel(usuario), headers, HttpStatus.OK);
+                })
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
@@ -74,26 +89,72 @@ public class UsuarioControllerV2 {
                 .body(assembler.toModel(nuevoUsuario));
     }
 
-    // Actualizar un usuario existente
-    @PutMapping(value = "/{id}", produces = MediaTypes.HAL_JSON_VALUE) // Especifica que produce HAL+JSON
-    public ResponseEntity<EntityModel<Usuario>> actualizarUsuario(@PathVariable int id, @RequestBody Usuario usuario) {
+    // Actualizar un usuario existente: un solo UPDATE y 204 sin cuerpo, como el PATCH. El cuerpo
+    // recibido no es el recurso guardado (el rol puede venir sólo con su id y la contraseña se hashea)
+    @PutMapping("/{id}")
+    public ResponseEntity<Void> actualizarUsuario(@PathVariable int id, @RequestBody Usuario usuario,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // Asegurarse de que el ID del path coincida con el ID del objeto
         usuario.setIdUsuario(id); // asegura que se actualiza el ID correcto
 
-        if (usuarioService.existsById(id)) { // Verifica si el usuario existe para actualizar
-            Usuario usuarioActualizado = usuarioService.save(usuario); // Guardar el usuario
-            return ResponseEntity.ok(assembler.toModel(usuarioActualizado)); // Devuelve 200 OK y el recurso actualizado con enlaces
-        } else {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        if (ifMatch != null && !ifMatch.equals("*")) {
+            // Bloqueo optimista: sólo se actualiza si el usuario sigue en la versión del ETag.
+            // Si no existe o ya cambió, la condición no se cumple: 412 Precondition Failed
+            Long version = Versiones.versionUsuario(ifMatch);
+            if (version != null && usuarioService.update(usuario, version) > 0) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setETag(Versiones.etagEscritura(usuario.getVersion())); // para el siguiente If-Match
+                return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+
+        if (usuarioService.update(usuario) > 0) { // Un solo UPDATE; 0 filas significa que no existe
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
+        // If-Match: * exige que el usuario exista (RFC 9110): sin él, 412 en lugar de 404
+        return new ResponseEntity<>(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND);
     }
 
+    // Actualización parcial (JSON Merge Patch, RFC 7396): sólo cambian los campos presentes y
+    // un campo en null se borra. Un único UPDATE de esas columnas, sin leer el usuario antes
+    @PatchMapping(value = "/{id}", consumes = { APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<Void> parcharUsuario(@PathVariable int id, @RequestBody Map<String, Object> cambios,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (cambios.isEmpty() || !UsuarioRepositoryCustom.CAMPOS_PATCH.containsAll(cambios.keySet())) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Long version = null;
+        if (ifMatch != null && !ifMatch.equals("*")) {
+            version = Versiones.versionUsuario(ifMatch);
+            if (version == null) {
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            }
+        }
+
+        int filas;
+        try {
+            filas = usuarioService.patch(id, cambios, version);
+        } catch (IllegalArgumentException e) { // tipo no válido o null en un campo obligatorio
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (DataIntegrityViolationException e) { // rol inexistente (clave foránea) o RUT repetido
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (filas > 0) {
+            HttpHeaders headers = new HttpHeaders();
+            if (version != null) {
+                headers.setETag(Versiones.etagEscritura(version + 1)); // para el siguiente If-Match
+            }
+            return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT); // 204 No Content
+        }
+        // Con If-Match (también "*", que exige que exista), 0 filas significa que la condición no se cumplió
+        return new ResponseEntity<>(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND);
+    }
 
     //Eliminar un usuario
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> borrarUsuario(@PathVariable int id){
-        if (usuarioService.existsById(id)) {
-            usuarioService.deleteById(id);
+        if (usuarioService.deleteById(id) > 0) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found si no existe
@@ -0,0 +1,5 @@
+package com.gestionUsuario.orm4.dto;
+
+// Proyección usuario -> rol para el índice de permisos (idRol es null si el usuario no tiene rol)
+public record AsignacionRol(int idUsuario, Integer idRol, Boolean activo) {
+}
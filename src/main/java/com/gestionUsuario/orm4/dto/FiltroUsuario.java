@@ -0,0 +1,26 @@
+package com.gestionUsuario.orm4.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Parámetros de GET /api/usuario: filtros opcionales y lista de campos a devolver (fields=a,b,c)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroUsuario {
+
+    private Boolean activo;
+
+    private Integer idRol;
+
+    private String nombre; // prefijo del nombre
+
+    private List<String> fields;
+
+    public boolean sinFiltros() {
+        return activo == null && idRol == null && (nombre == null || nombre.isEmpty());
+    }
+}
@@ -0,0 +1,5 @@
+package com.gestionUsuario.orm4.dto;
+
+// Proyección rol -> permiso para el índice de permisos (idPermiso es null si el rol no tiene permiso)
+public record PermisoRol(int idRol, Integer idPermiso) {
+}
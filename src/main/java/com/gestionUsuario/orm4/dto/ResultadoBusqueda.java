@@ -0,0 +1,5 @@
+package com.gestionUsuario.orm4.dto;
+
+// Un usuario encontrado por GET /api/usuario/search; mayor puntaje = mejor coincidencia
+public record ResultadoBusqueda(int idUsuario, String nombre, String rutUsuario, String email, int puntaje) {
+}
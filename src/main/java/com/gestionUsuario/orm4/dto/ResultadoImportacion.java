@@ -0,0 +1,30 @@
+package com.gestionUsuario.orm4.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de una fila de la importación masiva de usuarios
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacion {
+
+    public enum Estado { CREADO, ERROR }
+
+    private int fila; // posición en el cuerpo de la petición, desde 0
+
+    private Integer idUsuario;
+
+    private Estado estado;
+
+    private String mensaje;
+
+    public static ResultadoImportacion creado(int fila, int idUsuario) {
+        return new ResultadoImportacion(fila, idUsuario, Estado.CREADO, null);
+    }
+
+    public static ResultadoImportacion error(int fila, String mensaje) {
+        return new ResultadoImportacion(fila, null, Estado.ERROR, mensaje);
+    }
+}
@@ -0,0 +1,16 @@
+package com.gestionUsuario.orm4.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Credenciales del login; el identificador es el RUT o el email del usuario
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolicitudLogin {
+
+    private String identificador;
+
+    private String contrasena;
+}
@@ -0,0 +1,5 @@
+package com.gestionUsuario.orm4.dto;
+
+// Proyección de los campos que indexa la búsqueda de usuarios
+public record UsuarioBuscable(int idUsuario, String nombre, String rutUsuario, String email) {
+}
@@ -0,0 +1,18 @@
+package com.gestionUsuario.orm4.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Consulta "¿el usuario tiene el permiso?" y su respuesta; en la entrada "concedido" se ignora
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VerificacionPermiso {
+
+    private int idUsuario;
+
+    private int idPermiso;
+
+    private boolean concedido;
+}
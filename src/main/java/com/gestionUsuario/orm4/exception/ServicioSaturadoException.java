@@ -0,0 +1,13 @@
+package com.gestionUsuario.orm4.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Un recurso acotado (p. ej. el pool de hash de contraseñas) no admite más trabajo: se responde 503
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServicioSaturadoException extends RuntimeException {
+
+    public ServicioSaturadoException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
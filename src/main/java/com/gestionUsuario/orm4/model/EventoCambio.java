@@ -0,0 +1,52 @@
+package com.gestionUsuario.orm4.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Fila del registro de cambios (outbox): se escribe en la misma transacción que el cambio, ver CambioService
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "evento_cambio")
+
+public class EventoCambio {
+
+    public enum Entidad { USUARIO, ROL, PERMISO, SESION }
+
+    public enum Operacion { CREADO, ACTUALIZADO, BORRADO }
+
+    @Id
+    // Creciente en orden de inserción: es el cursor de los consumidores (since=)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10, nullable = false)
+    private Entidad entidad;
+
+    @Column(nullable = false)
+    private String idEntidad; // id del usuario, rol o permiso, o SHA-256 del token de la sesión
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 12, nullable = false)
+    private Operacion operacion;
+
+    @Column(nullable = false)
+    private Date creado;
+
+    public EventoCambio(Entidad entidad, String idEntidad, Operacion operacion, Date creado) {
+        this(null, entidad, idEntidad, operacion, creado);
+    }
+}
@@ -1,11 +1,18 @@
 package com.gestionUsuario.orm4.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,7 +21,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" }) // campos internos de los proxies lazy
 @Table(name = "permiso")
+@Cacheable // sólo aplica si la caché de segundo nivel está activada (ver application.properties)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 
 public class Permiso {
     @Id
@@ -26,4 +36,12 @@ public class Permiso {
     
     @Column(length = 100, nullable = true)
     private String descripcion;
+
+    @Version
+    private long version;
+
+    // Sin versión: Hibernate la asigna al insertar
+    public Permiso(int idPermiso, String nombre, String descripcion) {
+        this(idPermiso, nombre, descripcion, 0);
+    }
 }
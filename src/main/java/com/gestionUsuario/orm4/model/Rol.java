@@ -1,14 +1,21 @@
 package com.gestionUsuario.orm4.model;
 
-import jakarta.persistence.CascadeType;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,7 +24,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" }) // campos internos de los proxies lazy
 @Table(name = "rol")
+@Cacheable // sólo aplica si la caché de segundo nivel está activada (ver application.properties)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 
 public class Rol {
     @Id
@@ -27,8 +37,16 @@ public class Rol {
     @Column(length = 50, nullable = false)
     private String nombreRol;
     
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY) // se carga sólo cuando la consulta lo pide (ver @EntityGraph en los repositorios)
     @JoinColumn(name = "id_permiso",referencedColumnName = "idPermiso")
     private Permiso permiso;
+
+    @Version
+    private long version;
+
+    // Sin versión: Hibernate la asigna al insertar
+    public Rol(int idRol, String nombreRol, Permiso permiso) {
+        this(idRol, nombreRol, permiso, 0);
+    }
 }
 
@@ -5,6 +5,7 @@ import java.util.Date;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,7 +15,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "sesion")
+@Table(name = "sesion", indexes = @Index(name = "idx_sesion_expiracion", columnList = "expiracion"))
 
 public class Sesion {
     
@@ -24,4 +25,11 @@ public class Sesion {
 
     @Column(nullable = false)
     private Date expiracion;
+
+    @Column(nullable = true)
+    private Integer idUsuario; // dueño de la sesión si se creó con login
+
+    public Sesion(String token, Date expiracion) {
+        this(token, expiracion, null);
+    }
 }
@@ -1,15 +1,22 @@
 package com.gestionUsuario.orm4.model;
 
 
-import jakarta.persistence.CascadeType;
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,11 +25,17 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "usuario")
+@DynamicUpdate // los UPDATE de Hibernate llevan sólo las columnas modificadas, no la fila completa
+@Table(name = "usuario", indexes = {
+        @Index(name = "idx_usuario_email", columnList = "email"), // login por email
+        @Index(name = "idx_usuario_nombre", columnList = "nombre") }) // filtro por prefijo de nombre
 
 public class Usuario {
     @Id // asigna primary key
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con pool (en MySQL Hibernate la emula con la tabla usuario_seq): a diferencia de
+    // IDENTITY, permite agrupar los INSERT en lotes JDBC. Al arrancar se alinea con los ids existentes, ver SecuenciaUsuario
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuario_seq")
+    @SequenceGenerator(name = "usuario_seq", sequenceName = "usuario_seq", allocationSize = 50)
     private int idUsuario;
     
     @Column(length = 50, nullable = false)
@@ -34,7 +47,8 @@ public class Usuario {
     @Column(length = 250, nullable = false)
     private String email;
 
-    @Column(length = 50, nullable = false)
+    @Column(length = 100, nullable = false) // hash BCrypt (60 caracteres), ver ContrasenaService
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // se recibe al crear o actualizar; el hash nunca se entrega
     private String contrasena;
 
     @Column(length = 12, nullable = true)
@@ -43,7 +57,16 @@ public class Usuario {
     @Column(nullable = false)
     private Boolean activo;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY) // se carga sólo cuando la consulta lo pide (ver @EntityGraph en los repositorios)
     @JoinColumn(name = "id_rol",referencedColumnName = "idRol")
     private Rol rol;
+
+    @Version // aumenta con cada escritura: da el ETag y el bloqueo optimista (If-Match)
+    private long version;
+
+    // Sin versión: Hibernate la asigna al insertar
+    public Usuario(int idUsuario, String nombre, String rutUsuario, String email, String contrasena, String telefono,
+            Boolean activo, Rol rol) {
+        this(idUsuario, nombre, rutUsuario, email, contrasena, telefono, activo, rol, 0);
+    }
 }
@@ -0,0 +1,37 @@
+package com.gestionUsuario.orm4.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gestionUsuario.orm4.model.EventoCambio;
+
+public interface EventoCambioRepository extends JpaRepository<EventoCambio, Long> {
+
+    // Eventos posteriores al cursor, por la PK y sin OFFSET
+    List<EventoCambio> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    Optional<EventoCambio> findTopByOrderByIdDesc();
+
+    // Un evento por usuario en una sola sentencia (INSERT ... SELECT), para los lotes de la importación
+    @Modifying
+    @Transactional
+    @Query("insert into EventoCambio (entidad, idEntidad, operacion, creado) "
+            + "select :entidad, cast(u.idUsuario as String), :operacion, :creado from Usuario u where u.idUsuario in :ids")
+    int insertarUsuarios(@Param("ids") Collection<Integer> ids, @Param("entidad") EventoCambio.Entidad entidad,
+            @Param("operacion") EventoCambio.Operacion operacion, @Param("creado") Date creado);
+
+    // Borra a lo más "lote" eventos anteriores a la fecha, en su propia transacción corta
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM evento_cambio WHERE creado < :antes LIMIT :lote", nativeQuery = true)
+    int deleteAnteriores(@Param("antes") Date antes, @Param("lote") int lote);
+}
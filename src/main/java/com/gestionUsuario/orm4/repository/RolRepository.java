@@ -1,18 +1,26 @@
 package com.gestionUsuario.orm4.repository;
 import java.util.List;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import com.gestionUsuario.orm4.dto.PermisoRol;
 import com.gestionUsuario.orm4.model.Rol;
 
 public interface RolRepository extends JpaRepository<Rol, Integer>{
     
 
     @SuppressWarnings("null")
+    @EntityGraph(attributePaths = "permiso")
     List<Rol> findAll();
     
     @SuppressWarnings({ "unchecked", "null" })
     Rol save(Rol rol);
     
     Boolean existsById(int id);
+
+    // Permiso de cada rol para el índice de permisos, sin cargar entidades
+    @Query("select new com.gestionUsuario.orm4.dto.PermisoRol(r.idRol, p.idPermiso) from Rol r left join r.permiso p")
+    List<PermisoRol> findPermisosPorRol();
     
 }
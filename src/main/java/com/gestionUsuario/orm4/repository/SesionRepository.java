@@ -1,6 +1,11 @@
 package com.gestionUsuario.orm4.repository;
+import java.util.Date;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.gestionUsuario.orm4.model.Sesion;
 
@@ -13,5 +18,27 @@ public interface SesionRepository extends JpaRepository<Sesion, String>{
     Sesion save(Sesion sesion);
     
     Boolean existsByToken(String token);
+
+    // Tokens que aún no expiran (con sesion.modo=firmado, los revocados vigentes; usa idx_sesion_expiracion)
+    @Query("select s.token from Sesion s where s.expiracion > :ahora")
+    List<String> findTokensVigentes(@Param("ahora") Date ahora);
+
+    // Inserta sin leer antes; un token repetido viola la PK (DataIntegrityViolationException)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO sesion (token, expiracion, id_usuario) VALUES (:token, :expiracion, :idUsuario)", nativeQuery = true)
+    int insertar(@Param("token") String token, @Param("expiracion") Date expiracion, @Param("idUsuario") Integer idUsuario);
+
+    // Cierra la sesión con un solo DELETE; devuelve 0 si el token no existía
+    @Modifying
+    @Transactional
+    @Query("delete from Sesion s where s.token = :token")
+    int deleteByToken(@Param("token") String token);
+
+    // Borra a lo más "lote" sesiones expiradas en su propia transacción corta (usa idx_sesion_expiracion)
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM sesion WHERE expiracion < :ahora LIMIT :lote", nativeQuery = true)
+    int deleteExpiradas(@Param("ahora") Date ahora, @Param("lote") int lote);
     
 }
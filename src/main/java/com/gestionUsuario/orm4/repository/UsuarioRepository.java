@@ -1,23 +1,105 @@
 package com.gestionUsuario.orm4.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.gestionUsuario.orm4.dto.AsignacionRol;
+import com.gestionUsuario.orm4.dto.UsuarioBuscable;
 import com.gestionUsuario.orm4.model.Usuario;
 
-public interface UsuarioRepository extends JpaRepository<Usuario, Integer>{
+public interface UsuarioRepository extends JpaRepository<Usuario, Integer>, JpaSpecificationExecutor<Usuario>,
+        UsuarioRepositoryCustom {
     
+    // Las vistas que devuelven el usuario completo traen rol y permiso en la misma consulta (JOIN)
     @SuppressWarnings("null")
+    @EntityGraph(attributePaths = { "rol", "rol.permiso" })
     List<Usuario> findAll();
 
+    @EntityGraph(attributePaths = { "rol", "rol.permiso" })
     Optional<Usuario> findById(int id);
     
+    // Listado filtrado (ver UsuarioSpecs), con el mismo grafo de carga que findAll()
+    @SuppressWarnings("null")
+    @EntityGraph(attributePaths = { "rol", "rol.permiso" })
+    List<Usuario> findAll(Specification<Usuario> filtro);
+
+    // Paginación por cursor (keyset): usa la PK como índice, sin OFFSET
+    @EntityGraph(attributePaths = { "rol", "rol.permiso" })
+    List<Usuario> findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(int idUsuario, Limit limit);
+
+    // Sólo la fila del usuario, sin JOIN: el rol queda como proxy que ya conoce su id
+    Optional<Usuario> findByIdUsuario(int idUsuario);
+
     @SuppressWarnings({ "unchecked", "null" })
     Usuario save(Usuario usuario);
     
     Boolean existsById(int id);
+
+    // Búsquedas del login: índice único de rutUsuario e índice idx_usuario_email (sin rol ni permiso)
+    Optional<Usuario> findByRutUsuario(String rutUsuario);
+
+    List<Usuario> findByEmail(String email);
+
+    // RUTs del conjunto que ya están registrados (usa el índice único de rutUsuario)
+    @Query("select u.rutUsuario from Usuario u where u.rutUsuario in :ruts")
+    List<String> findRutsExistentes(@Param("ruts") Collection<String> ruts);
+
+    // Rol de cada usuario para el índice de permisos, sin cargar entidades
+    @Query("select new com.gestionUsuario.orm4.dto.AsignacionRol(u.idUsuario, r.idRol, u.activo) from Usuario u left join u.rol r")
+    List<AsignacionRol> findAsignaciones();
+
+    // Lo mismo, sólo de los usuarios indicados (los que ya no existen no aparecen)
+    @Query("select new com.gestionUsuario.orm4.dto.AsignacionRol(u.idUsuario, r.idRol, u.activo) from Usuario u left join u.rol r "
+            + "where u.idUsuario in :ids")
+    List<AsignacionRol> findAsignaciones(@Param("ids") Collection<Integer> ids);
+
+    // Campos de la búsqueda, por páginas de id (keyset) para no cargar la tabla de una vez
+    @Query("select new com.gestionUsuario.orm4.dto.UsuarioBuscable(u.idUsuario, u.nombre, u.rutUsuario, u.email) "
+            + "from Usuario u where u.idUsuario > :after order by u.idUsuario")
+    List<UsuarioBuscable> findBuscables(@Param("after") int after, Limit limit);
+
+    // Escrituras en una sola sentencia; devuelven las filas afectadas (0 si el usuario no existe).
+    // Las que modifican el usuario aumentan su versión, igual que lo haría Hibernate al hacer flush.
+    // Sin contraseña se conserva la guardada: el GET no la entrega, así que un PUT hecho a partir
+    // de él no la trae
+
+    @Modifying
+    @Transactional
+    @Query("update Usuario u set u.nombre = :#{#usuario.nombre}, u.rutUsuario = :#{#usuario.rutUsuario}, "
+            + "u.email = :#{#usuario.email}, u.contrasena = coalesce(:#{#usuario.contrasena}, u.contrasena), u.telefono = :#{#usuario.telefono}, "
+            + "u.activo = :#{#usuario.activo}, u.rol = :#{#usuario.rol}, u.version = u.version + 1 "
+            + "where u.idUsuario = :#{#usuario.idUsuario}")
+    int updateUsuario(@Param("usuario") Usuario usuario);
+
+    // Bloqueo optimista: 0 filas si el usuario no existe o su versión ya no es la indicada
+    @Modifying
+    @Transactional
+    @Query("update Usuario u set u.nombre = :#{#usuario.nombre}, u.rutUsuario = :#{#usuario.rutUsuario}, "
+            + "u.email = :#{#usuario.email}, u.contrasena = coalesce(:#{#usuario.contrasena}, u.contrasena), u.telefono = :#{#usuario.telefono}, "
+            + "u.activo = :#{#usuario.activo}, u.rol = :#{#usuario.rol}, u.version = u.version + 1 "
+            + "where u.idUsuario = :#{#usuario.idUsuario} and u.version = :version")
+    int updateUsuarioSiVersion(@Param("usuario") Usuario usuario, @Param("version") long version);
+
+    @Modifying
+    @Transactional
+    @Query("update Usuario u set u.contrasena = :contrasena, u.version = u.version + 1 where u.idUsuario = :id")
+    int updateContrasena(@Param("id") int id, @Param("contrasena") String contrasena);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Usuario u where u.idUsuario = :id")
+    int deleteUsuarioById(@Param("id") int id);
     
     
 }
@@ -0,0 +1,26 @@
+package com.gestionUsuario.orm4.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.gestionUsuario.orm4.model.Usuario;
+
+// Consultas de UsuarioRepository que Spring Data no puede derivar (implementadas en UsuarioRepositoryImpl)
+public interface UsuarioRepositoryCustom {
+
+    // Campos que se pueden pedir con fields=; la contraseña nunca sale de la base por aquí
+    Set<String> CAMPOS = Set.of("idUsuario", "nombre", "rutUsuario", "email", "telefono", "activo", "idRol");
+
+    // Campos que se pueden cambiar con PATCH; rol va como {"idRol": n} o null
+    Set<String> CAMPOS_PATCH = Set.of("nombre", "rutUsuario", "email", "contrasena", "telefono", "activo", "rol");
+
+    // SELECT sólo de las columnas pedidas, en ese orden, ordenado por id
+    List<Map<String, Object>> findCampos(Specification<Usuario> filtro, List<String> campos);
+
+    // UPDATE sólo de los campos presentes en cambios (ya con el tipo de cada campo; el rol como
+    // entidad) y de la versión; con version no nula, sólo si coincide. Devuelve las filas afectadas
+    int patchUsuario(int id, Map<String, Object> cambios, Long version);
+}
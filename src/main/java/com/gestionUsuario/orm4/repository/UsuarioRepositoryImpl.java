@@ -0,0 +1,98 @@
+package com.gestionUsuario.orm4.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gestionUsuario.orm4.model.Usuario;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Proyección dinámica para fields=. Las proyecciones de Spring Data (interfaz o DTO) fijan las
+ * columnas en tiempo de compilación; aquí el SELECT se arma con Criteria a partir de la lista
+ * pedida, así que sólo esas columnas salen de la base y no se cargan entidades.
+ * El PATCH sigue la misma idea: un UPDATE con Criteria que escribe sólo los campos recibidos.
+ */
+class UsuarioRepositoryImpl implements UsuarioRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findCampos(Specification<Usuario> filtro, List<String> campos) {
+        if (!CAMPOS.containsAll(campos) || campos.isEmpty()) {
+            throw new IllegalArgumentException("Campos no permitidos: " + campos);
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Usuario> usuario = consulta.from(Usuario.class);
+        List<String> distintos = campos.stream().distinct().toList();
+        List<Selection<?>> columnas = new ArrayList<>(distintos.size());
+        for (String campo : distintos) {
+            columnas.add(columna(usuario, campo).alias(campo));
+        }
+        consulta.multiselect(columnas);
+        if (filtro != null) {
+            consulta.where(filtro.toPredicate(usuario, consulta, cb));
+        }
+        consulta.orderBy(cb.asc(usuario.get("idUsuario")));
+
+        List<Tuple> filas = entityManager.createQuery(consulta).getResultList();
+        List<Map<String, Object>> resultado = new ArrayList<>(filas.size());
+        for (Tuple fila : filas) {
+            Map<String, Object> valores = new LinkedHashMap<>();
+            for (String campo : distintos) {
+                valores.put(campo, fila.get(campo));
+            }
+            resultado.add(valores);
+        }
+        return resultado;
+    }
+
+    @Override
+    @Transactional
+    public int patchUsuario(int id, Map<String, Object> cambios, Long version) {
+        if (!CAMPOS_PATCH.containsAll(cambios.keySet())) {
+            throw new IllegalArgumentException("Campos no permitidos: " + cambios.keySet());
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Usuario> update = cb.createCriteriaUpdate(Usuario.class);
+        Root<Usuario> usuario = update.from(Usuario.class);
+        for (Map.Entry<String, Object> cambio : cambios.entrySet()) {
+            Path<Object> columna = usuario.get(cambio.getKey());
+            Object valor = cambio.getValue();
+            if (valor == null) {
+                update.<Object>set(columna, cb.nullLiteral(columna.getJavaType()));
+            } else {
+                update.<Object, Object>set(columna, valor);
+            }
+        }
+        Path<Long> columnaVersion = usuario.get("version");
+        update.set(columnaVersion, cb.sum(columnaVersion, 1L));
+        Predicate condicion = cb.equal(usuario.get("idUsuario"), id);
+        if (version != null) {
+            condicion = cb.and(condicion, cb.equal(columnaVersion, version));
+        }
+        update.where(condicion);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private static Path<?> columna(Root<Usuario> usuario, String campo) {
+        // idRol es la clave foránea: se lee de la tabla usuario, sin JOIN a rol
+        return "idRol".equals(campo) ? usuario.get("rol").get("idRol") : usuario.get(campo);
+    }
+}
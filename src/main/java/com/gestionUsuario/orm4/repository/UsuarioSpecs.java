@@ -0,0 +1,40 @@
+package com.gestionUsuario.orm4.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.gestionUsuario.orm4.dto.FiltroUsuario;
+import com.gestionUsuario.orm4.model.Usuario;
+
+import jakarta.persistence.criteria.Predicate;
+
+// Filtros de GET /api/usuario como Specification; sólo se agregan los que vienen en la petición
+public final class UsuarioSpecs {
+
+    private UsuarioSpecs() {
+    }
+
+    public static Specification<Usuario> filtro(FiltroUsuario filtro) {
+        return (usuario, consulta, cb) -> {
+            List<Predicate> condiciones = new ArrayList<>(3);
+            if (filtro != null && filtro.getActivo() != null) {
+                condiciones.add(cb.equal(usuario.get("activo"), filtro.getActivo()));
+            }
+            if (filtro != null && filtro.getIdRol() != null) {
+                // Compara la clave foránea id_rol, sin JOIN a la tabla rol
+                condiciones.add(cb.equal(usuario.get("rol").get("idRol"), filtro.getIdRol()));
+            }
+            if (filtro != null && filtro.getNombre() != null && !filtro.getNombre().isEmpty()) {
+                // LIKE 'prefijo%' puede usar idx_usuario_nombre
+                condiciones.add(cb.like(usuario.get("nombre"), escaparLike(filtro.getNombre()) + "%", '\\'));
+            }
+            return cb.and(condiciones.toArray(Predicate[]::new));
+        };
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
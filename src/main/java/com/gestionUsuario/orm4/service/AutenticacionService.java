@@ -0,0 +1,93 @@
+package com.gestionUsuario.orm4.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+
+/**
+ * Login por RUT o email. Busca al usuario por índice (un SELECT), verifica la contraseña en
+ * el pool de ContrasenaService y crea la sesión con un token generado en el servidor: aleatorio y
+ * guardado con un INSERT (sesion.modo=tabla) o firmado y sin escritura (sesion.modo=firmado).
+ */
+@Service
+public class AutenticacionService {
+
+    private static final int BYTES_TOKEN = 32; // 256 bits de entropía
+    private static final int MAX_INTENTOS = 3; // INSERT de la sesión, cada uno con un token nuevo
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ContrasenaService contrasenaService;
+
+    @Autowired
+    private SesionService sesionService;
+
+    @Autowired(required = false)
+    private SesionFirmadaService sesionFirmadaService; // sólo existe con sesion.modo=firmado
+
+    @Value("${sesion.ttl:PT8H}")
+    private Duration ttl;
+
+    // Devuelve la sesión creada, o vacío si las credenciales no son válidas
+    public Optional<Sesion> login(String identificador, String contrasena) {
+        if (identificador == null || contrasena == null) {
+            return Optional.empty();
+        }
+        List<Usuario> candidatos = identificador.indexOf('@') >= 0
+                ? usuarioRepository.findByEmail(identificador)
+                : usuarioRepository.findByRutUsuario(identificador).map(List::of).orElse(List.of());
+        if (candidatos.isEmpty()) {
+            contrasenaService.simularVerificacion(contrasena);
+            return Optional.empty();
+        }
+        // El email no es único: entra el primer usuario activo cuya contraseña coincide
+        for (Usuario usuario : candidatos) {
+            if (!Boolean.FALSE.equals(usuario.getActivo()) && usuarioService.verificarContrasena(usuario, contrasena)) {
+                return Optional.of(crearSesion(usuario));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Sesion crearSesion(Usuario usuario) {
+        Date expiracion = new Date(System.currentTimeMillis() + ttl.toMillis());
+        if (sesionFirmadaService != null) {
+            return sesionFirmadaService.emitir(usuario.getIdUsuario(), expiracion); // sin INSERT
+        }
+        Sesion sesion = new Sesion(nuevoToken(), expiracion, usuario.getIdUsuario());
+        // Una colisión de 256 bits no ocurre en la práctica: si el INSERT falla varias veces seguidas
+        // es otra restricción (por ejemplo, el usuario se borró entretanto) y reintentar no sirve
+        for (int intento = 1; !sesionService.crear(sesion); intento++) {
+            if (intento == MAX_INTENTOS) {
+                throw new IllegalStateException("No se pudo crear la sesión del usuario " + usuario.getIdUsuario()
+                        + " tras " + MAX_INTENTOS + " intentos");
+            }
+            sesion.setToken(nuevoToken());
+        }
+        return sesion;
+    }
+
+    private String nuevoToken() {
+        byte[] bytes = new byte[BYTES_TOKEN];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,224 @@
+package com.gestionUsuario.orm4.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.gestionUsuario.orm4.model.EventoCambio;
+import com.gestionUsuario.orm4.model.EventoCambio.Entidad;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
+import com.gestionUsuario.orm4.repository.EventoCambioRepository;
+
+/**
+ * Registro de cambios (outbox transaccional). Las escrituras de UsuarioService, RolService,
+ * PermisoService y SesionService agregan un EventoCambio en su misma transacción: el evento existe
+ * si y sólo si el cambio se confirmó. GET /api/changes?since=<último id> entrega los eventos en
+ * orden de id y, si no hay nuevos, espera (long polling) hasta que llegue alguno o venza cambios.espera.
+ *
+ * El id (IDENTITY) se asigna al insertar, no al confirmar: una transacción lenta puede confirmar
+ * un id menor después de que otra confirmó uno mayor. Por eso la lectura se detiene en el primer
+ * hueco de la numeración, salvo que el evento siguiente tenga más de cambios.margen de antigüedad;
+ * en ese caso el hueco es de una transacción deshecha o de eventos purgados, y se salta.
+ *
+ * Las esperas se resuelven con una sola consulta para todas: al confirmarse un cambio en esta
+ * instancia, y cada cambios.revision para recoger los de otras instancias.
+ */
+@Service
+public class CambioService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CambioService.class);
+
+    @Autowired
+    private EventoCambioRepository eventoCambioRepository;
+
+    @Value("${cambios.margen:PT5S}")
+    private Duration margen; // más que la transacción de escritura más larga
+
+    @Value("${cambios.espera:PT25S}")
+    private Duration espera; // menor que el timeout asíncrono del servidor (30 s en Tomcat)
+
+    @Value("${cambios.retencion:P7D}")
+    private Duration retencion;
+
+    @Value("${cambios.purga.tamano-lote:1000}")
+    private int tamanoLotePurga;
+
+    private final Set<Espera> esperas = ConcurrentHashMap.newKeySet();
+    private final AtomicLong confirmados = new AtomicLong(); // transacciones con eventos confirmadas aquí
+    private final AtomicBoolean programado = new AtomicBoolean();
+    private final ExecutorService despachador = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "cambios-despachador");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private record Espera(long since, int limite, CompletableFuture<List<EventoCambio>> resultado) {
+    }
+
+    // Debe llamarse dentro de la transacción de la escritura
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Entidad entidad, Object idEntidad, Operacion operacion) {
+        eventoCambioRepository.save(new EventoCambio(entidad, String.valueOf(idEntidad), operacion, new Date()));
+        avisarAlConfirmar();
+    }
+
+    // Las sesiones se publican por el SHA-256 (hex) de su token, nunca el token: el feed no pide
+    // autenticación y un token en él serviría para entrar como su dueño
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarSesion(String token, Operacion operacion) {
+        registrar(Entidad.SESION, claveSesion(token), operacion);
+    }
+
+    public static String claveSesion(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // todo JDK incluye SHA-256
+        }
+    }
+
+    // Usuarios creados en un lote: un solo INSERT ... SELECT para todos
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarUsuariosCreados(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        eventoCambioRepository.insertarUsuarios(ids, Entidad.USUARIO, Operacion.CREADO, new Date());
+        avisarAlConfirmar();
+    }
+
+    // Eventos posteriores a since, hasta el primer hueco reciente de la numeración
+    public List<EventoCambio> leer(long since, int limite) {
+        List<EventoCambio> eventos = eventoCambioRepository.findByIdGreaterThanOrderByIdAsc(since, Limit.of(limite));
+        long recientes = System.currentTimeMillis() - margen.toMillis();
+        long esperado = since + 1;
+        for (int i = 0; i < eventos.size(); i++) {
+            EventoCambio evento = eventos.get(i);
+            if (evento.getId() != esperado && evento.getCreado().getTime() > recientes) {
+                return eventos.subList(0, i); // el id que falta puede ser de una transacción sin confirmar
+            }
+            esperado = evento.getId() + 1;
+        }
+        return eventos;
+    }
+
+    // Como leer(), pero si no hay eventos se completa cuando lleguen o, vacía, al vencer cambios.espera
+    public CompletableFuture<List<EventoCambio>> esperar(long since, int limite) {
+        long vistos = confirmados.get();
+        List<EventoCambio> eventos = leer(since, limite);
+        if (!eventos.isEmpty()) {
+            return CompletableFuture.completedFuture(eventos);
+        }
+        Espera pendiente = new Espera(since, limite, new CompletableFuture<>());
+        esperas.add(pendiente);
+        pendiente.resultado().completeOnTimeout(List.of(), espera.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((resultado, error) -> esperas.remove(pendiente));
+        if (confirmados.get() != vistos) { // se confirmó un cambio entre la lectura y el registro
+            avisar();
+        }
+        return pendiente.resultado();
+    }
+
+    // Id del último evento: desde ahí sigue un consumidor que acaba de leer el estado completo
+    public long ultimo() {
+        return eventoCambioRepository.findTopByOrderByIdDesc().map(EventoCambio::getId).orElse(0L);
+    }
+
+    @Scheduled(fixedDelayString = "${cambios.revision:PT1S}")
+    public void revisar() {
+        avisar();
+    }
+
+    @Scheduled(fixedDelayString = "${cambios.purga.intervalo:PT1H}", initialDelayString = "${cambios.purga.intervalo:PT1H}")
+    public int purgar() {
+        Date antes = new Date(System.currentTimeMillis() - retencion.toMillis());
+        int total = 0;
+        int borrados;
+        do {
+            borrados = eventoCambioRepository.deleteAnteriores(antes, tamanoLotePurga);
+            total += borrados;
+        } while (borrados == tamanoLotePurga);
+        if (total > 0) {
+            log.info("Eventos de cambio purgados: {}", total);
+        }
+        return total;
+    }
+
+    private void avisarAlConfirmar() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                confirmados.incrementAndGet();
+                avisar();
+            }
+        });
+    }
+
+    // La consulta corre en el despachador, no en el hilo que escribió; los avisos seguidos se juntan
+    private void avisar() {
+        if (!esperas.isEmpty() && programado.compareAndSet(false, true)) {
+            despachador.execute(this::despachar);
+        }
+    }
+
+    private void despachar() {
+        programado.set(false);
+        List<Espera> actuales = List.copyOf(esperas);
+        if (actuales.isEmpty()) {
+            return;
+        }
+        long desde = actuales.stream().mapToLong(Espera::since).min().getAsLong();
+        int limite = actuales.stream().mapToInt(Espera::limite).max().getAsInt();
+        List<EventoCambio> eventos;
+        try {
+            eventos = leer(desde, limite);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron leer los eventos de cambio", e);
+            return; // la próxima revisión lo intenta de nuevo
+        }
+        boolean faltan = false;
+        for (Espera pendiente : actuales) {
+            List<EventoCambio> suyos = eventos.stream().filter(evento -> evento.getId() > pendiente.since())
+                    .limit(pendiente.limite()).toList();
+            if (!suyos.isEmpty()) {
+                pendiente.resultado().complete(suyos);
+            } else if (eventos.size() == limite) {
+                faltan = true; // página llena: sus eventos pueden estar después
+            }
+        }
+        if (faltan) {
+            avisar();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        despachador.shutdownNow();
+    }
+}
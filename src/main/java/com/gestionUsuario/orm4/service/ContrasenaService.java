@@ -0,0 +1,167 @@
+package com.gestionUsuario.orm4.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.gestionUsuario.orm4.exception.ServicioSaturadoException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Hash y verificación de contraseñas con BCrypt. El trabajo (deliberadamente caro) corre en un
+ * pool propio de tamaño fijo con una cola acotada: cuando está lleno se rechaza con
+ * ServicioSaturadoException (503) en vez de acumular peticiones esperando CPU.
+ * Las contraseñas heredadas en texto plano y los hash con un costo menor al configurado se
+ * vuelven a hashear al verificarse correctamente.
+ */
+@Service
+public class ContrasenaService implements DisposableBean {
+
+    // $2a$, $2b$ o $2y$, costo de dos dígitos, 22 caracteres de sal y 31 de hash
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final String hashFicticio; // para igualar el tiempo de un login con usuario inexistente
+
+    public ContrasenaService(@Value("${contrasena.bcrypt.costo:10}") int costo,
+            @Value("${contrasena.hash.hilos:0}") int hilos,
+            @Value("${contrasena.hash.cola:64}") int cola,
+            MeterRegistry registry) {
+        this.encoder = new BCryptPasswordEncoder(costo);
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors(); // 0 = un hilo por núcleo
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamano, tamano, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "hash-contrasena-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(registry, executor, "contrasena.hash");
+        this.hashFicticio = encoder.encode(UUID.randomUUID().toString());
+    }
+
+    // Resultado de verificar: si coincide y, cuando corresponde, el hash nuevo que debe guardarse
+    public record Verificacion(boolean coincide, String nuevoHash) {
+
+        public boolean requiereRehash() {
+            return nuevoHash != null;
+        }
+    }
+
+    public CompletableFuture<String> hashearAsync(String plana) {
+        return enviar(() -> encoder.encode(plana));
+    }
+
+    public CompletableFuture<Verificacion> verificarAsync(String plana, String almacenada) {
+        return enviar(() -> comparar(plana, almacenada));
+    }
+
+    public String hashear(String plana) {
+        return esperar(hashearAsync(plana));
+    }
+
+    public Verificacion verificar(String plana, String almacenada) {
+        return esperar(verificarAsync(plana, almacenada));
+    }
+
+    // Verifica contra un hash que nunca coincide: el login de un usuario inexistente tarda lo
+    // mismo que uno con contraseña incorrecta y no revela qué RUT o email están registrados
+    public void simularVerificacion(String plana) {
+        verificar(plana == null ? "" : plana, hashFicticio);
+    }
+
+    // Para las contraseñas que llegan del cliente (altas, PUT, PATCH e importación): siempre se
+    // hashean, aunque parezcan un hash BCrypt, así nadie fija un hash sin conocer la contraseña.
+    // null se devuelve tal cual. Sólo el rehash del login guarda un hash recibido, ver verificar
+    public String hashearRecibida(String valor) {
+        return valor == null ? null : hashear(valor);
+    }
+
+    // Variante de hashearRecibida para lotes: si el pool está lleno, el hilo que llama hace el
+    // trabajo, lo que frena al productor en vez de rechazar filas de una importación ya aceptada
+    public List<String> hashearLote(List<String> valores) {
+        List<CompletableFuture<String>> pendientes = new ArrayList<>(valores.size());
+        for (String valor : valores) {
+            if (valor == null) {
+                pendientes.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            try {
+                pendientes.add(hashearAsync(valor));
+            } catch (ServicioSaturadoException e) {
+                pendientes.add(CompletableFuture.completedFuture(encoder.encode(valor)));
+            }
+        }
+        List<String> hashes = new ArrayList<>(valores.size());
+        for (CompletableFuture<String> pendiente : pendientes) {
+            hashes.add(esperar(pendiente));
+        }
+        return hashes;
+    }
+
+    public boolean esHash(String valor) {
+        return valor != null && BCRYPT.matcher(valor).matches();
+    }
+
+    private Verificacion comparar(String plana, String almacenada) {
+        if (plana == null || almacenada == null) {
+            return new Verificacion(false, null);
+        }
+        if (!esHash(almacenada)) {
+            // Contraseña heredada en texto plano: comparación en tiempo constante y migración al hash
+            boolean coincide = MessageDigest.isEqual(plana.getBytes(StandardCharsets.UTF_8),
+                    almacenada.getBytes(StandardCharsets.UTF_8));
+            return new Verificacion(coincide, coincide ? encoder.encode(plana) : null);
+        }
+        if (!encoder.matches(plana, almacenada)) {
+            return new Verificacion(false, null);
+        }
+        // Si el costo configurado subió, se aprovecha que se conoce la contraseña para rehashear
+        return new Verificacion(true, encoder.upgradeEncoding(almacenada) ? encoder.encode(plana) : null);
+    }
+
+    private <T> CompletableFuture<T> enviar(Supplier<T> tarea) {
+        try {
+            return CompletableFuture.supplyAsync(tarea, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServicioSaturadoException("Pool de hash de contraseñas saturado", e);
+        }
+    }
+
+    private static <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -1,10 +1,19 @@
 package com.gestionUsuario.orm4.service;
 
+import java.time.Duration;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.gestionUsuario.orm4.cache.Catalogo;
+import com.gestionUsuario.orm4.cache.CatalogoCache;
+import com.gestionUsuario.orm4.cache.Versiones;
+import com.gestionUsuario.orm4.model.EventoCambio.Entidad;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
 import com.gestionUsuario.orm4.model.Permiso;
 import com.gestionUsuario.orm4.repository.PermisoRepository;
 
@@ -14,14 +23,42 @@ public class PermisoService {
     @Autowired
     private PermisoRepository permisoRepository;
 
+    @Autowired
+    private CambioService cambioService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${catalogo.vigencia:PT5S}")
+    private Duration vigenciaCatalogo = Duration.ofSeconds(5);
+
+    // Catálogo completo en memoria; se recarga después de cada escritura y, por las escrituras de
+    // otras instancias, cuando tiene más de catalogo.vigencia
+    private final CatalogoCache<Permiso> catalogo = new CatalogoCache<>(() -> permisoRepository.findAll(),
+            permiso -> permiso.getIdPermiso() + ":" + Versiones.de(permiso),
+            () -> vigenciaCatalogo);
+
     public List<Permiso> findAll(){
-        return permisoRepository.findAll();
+        return catalogo.obtener().datos();
+    }
+
+    // Catálogo con su ETag, para responder 304 sin serializar
+    public Catalogo<Permiso> catalogo(){
+        return catalogo.obtener();
     }
-    
+
     public Permiso save(Permiso permiso){
-        return permisoRepository.save(permiso);
+        Operacion operacion = permiso.getIdPermiso() == 0 ? Operacion.CREADO : Operacion.ACTUALIZADO;
+        Permiso guardado = transactionTemplate.execute(status -> {
+            Permiso nuevo = permisoRepository.save(permiso);
+            cambioService.registrar(Entidad.PERMISO, nuevo.getIdPermiso(), operacion);
+            return nuevo;
+        });
+        catalogo.invalidar();
+        return guardado;
     }
 
+    @Transactional(readOnly = true)
     public Boolean existsById(int id){
         return permisoRepository.existsById(id);
     }
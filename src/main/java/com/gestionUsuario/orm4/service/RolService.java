@@ -1,10 +1,20 @@
 package com.gestionUsuario.orm4.service;
 
+import java.time.Duration;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.gestionUsuario.orm4.cache.Catalogo;
+import com.gestionUsuario.orm4.cache.CatalogoCache;
+import com.gestionUsuario.orm4.cache.Versiones;
+import com.gestionUsuario.orm4.cache.PermisoIndex;
+import com.gestionUsuario.orm4.model.EventoCambio.Entidad;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
 import com.gestionUsuario.orm4.model.Rol;
 import com.gestionUsuario.orm4.repository.RolRepository;
 
@@ -14,15 +24,46 @@ public class RolService {
     @Autowired
     private RolRepository rolRepository;
 
+    @Autowired
+    private CambioService cambioService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PermisoIndex permisoIndex;
+
+    @Value("${catalogo.vigencia:PT5S}")
+    private Duration vigenciaCatalogo = Duration.ofSeconds(5);
+
+    // Catálogo completo en memoria; se recarga después de cada escritura y, por las escrituras de
+    // otras instancias, cuando tiene más de catalogo.vigencia
+    private final CatalogoCache<Rol> catalogo = new CatalogoCache<>(() -> rolRepository.findAll(),
+            rol -> rol.getIdRol() + ":" + Versiones.de(rol),
+            () -> vigenciaCatalogo);
 
     public List<Rol> findAll(){
-        return rolRepository.findAll();
+        return catalogo.obtener().datos();
     }
-    
+
+    // Catálogo con su ETag, para responder 304 sin serializar
+    public Catalogo<Rol> catalogo(){
+        return catalogo.obtener();
+    }
+
     public Rol save(Rol rol){
-        return rolRepository.save(rol);
+        Operacion operacion = rol.getIdRol() == 0 ? Operacion.CREADO : Operacion.ACTUALIZADO;
+        Rol guardado = transactionTemplate.execute(status -> {
+            Rol nuevo = rolRepository.save(rol);
+            cambioService.registrar(Entidad.ROL, nuevo.getIdRol(), operacion);
+            return nuevo;
+        });
+        catalogo.invalidar();
+        permisoIndex.actualizarRol(guardado);
+        return guardado;
     }
 
+    @Transactional(readOnly = true)
     public Boolean existsById(int id){
         return rolRepository.existsById(id);
     }
@@ -0,0 +1,213 @@
+package com.gestionUsuario.orm4.service;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gestionUsuario.orm4.cache.FiltroBloom;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.repository.SesionRepository;
+
+/**
+ * Sesiones con token firmado (sesion.modo=firmado). El token lleva el id de usuario y la
+ * expiración firmados con HMAC-SHA256, así que validarlo es sólo cálculo. La tabla "sesion"
+ * pasa a ser la lista de tokens revocados, con un filtro de Bloom en memoria delante: sólo un
+ * positivo del filtro (revocado o falso positivo) consulta la tabla. El filtro se reconstruye
+ * al arrancar y periódicamente, para recoger las revocaciones hechas en otras instancias.
+ */
+@Service
+@ConditionalOnProperty(name = "sesion.modo", havingValue = "firmado")
+public class SesionFirmadaService {
+
+    private static final Logger log = LoggerFactory.getLogger(SesionFirmadaService.class);
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int BYTES_NONCE = 16;
+    private static final int BYTES_CARGA = 1 + Integer.BYTES + Long.BYTES + BYTES_NONCE; // versión, usuario, expiración, nonce
+
+    private static final Base64.Encoder CODIFICADOR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODIFICADOR = Base64.getUrlDecoder();
+
+    private final SesionRepository sesionRepository;
+    private final CambioService cambioService;
+    private final TransactionTemplate transactionTemplate;
+    private final Mac prototipo; // Mac no es seguro entre hilos: cada operación usa un clon
+    private final SecureRandom random = new SecureRandom();
+    private final int capacidad;
+    private final double probabilidadFalsoPositivo;
+
+    private volatile FiltroBloom revocados; // null hasta la primera carga: se consulta la tabla
+
+    private List<String> pendientes; // revocaciones recibidas durante una reconstrucción
+
+    public SesionFirmadaService(SesionRepository sesionRepository, CambioService cambioService,
+            TransactionTemplate transactionTemplate,
+            @Value("${sesion.firma.clave:}") String clave,
+            @Value("${sesion.revocacion.capacidad:100000}") int capacidad,
+            @Value("${sesion.revocacion.falsos-positivos:0.001}") double probabilidadFalsoPositivo) {
+        this.sesionRepository = sesionRepository;
+        this.cambioService = cambioService;
+        this.transactionTemplate = transactionTemplate;
+        this.capacidad = capacidad;
+        this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+        if (clave == null || clave.isBlank()) {
+            // Una clave aleatoria haría que los tokens sólo valieran en esta instancia y hasta reiniciarla
+            throw new IllegalStateException("sesion.modo=firmado requiere sesion.firma.clave (SESION_FIRMA_CLAVE)");
+        }
+        byte[] bytesClave = Base64.getDecoder().decode(clave);
+        if (bytesClave.length < 32) {
+            throw new IllegalArgumentException("sesion.firma.clave debe tener al menos 256 bits");
+        }
+        try {
+            prototipo = Mac.getInstance(ALGORITMO);
+            prototipo.init(new SecretKeySpec(bytesClave, ALGORITMO));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar " + ALGORITMO, e);
+        }
+    }
+
+    // Crea una sesión firmada; no escribe en la base de datos
+    public Sesion emitir(int idUsuario, Date expiracion) {
+        byte[] nonce = new byte[BYTES_NONCE];
+        random.nextBytes(nonce);
+        byte[] carga = ByteBuffer.allocate(BYTES_CARGA)
+                .put(VERSION).putInt(idUsuario).putLong(expiracion.getTime()).put(nonce).array();
+        String token = CODIFICADOR.encodeToString(carga) + "." + CODIFICADOR.encodeToString(firmar(carga));
+        return new Sesion(token, expiracion, idUsuario);
+    }
+
+    // Sesión del token si la firma es válida, no expiró y no fue revocado
+    public Optional<Sesion> validar(String token) {
+        Optional<Sesion> sesion = leer(token);
+        if (sesion.isEmpty() || revocado(token)) {
+            return Optional.empty();
+        }
+        return sesion;
+    }
+
+    // Revoca un token válido guardándolo en la tabla hasta su expiración (el reaper lo borra después)
+    public boolean revocar(String token) {
+        Optional<Sesion> sesion = leer(token);
+        if (sesion.isEmpty()) {
+            return false;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                sesionRepository.insertar(token, sesion.get().getExpiracion(), sesion.get().getIdUsuario());
+            } catch (DataIntegrityViolationException e) {
+                status.setRollbackOnly(); // ya estaba revocado (y su evento, registrado)
+                return;
+            }
+            cambioService.registrarSesion(token, Operacion.BORRADO);
+        });
+        synchronized (this) {
+            if (revocados != null) {
+                revocados.agregar(token);
+            }
+            if (pendientes != null) {
+                pendientes.add(token);
+            }
+        }
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${sesion.revocacion.intervalo:PT1M}", initialDelayString = "${sesion.revocacion.intervalo:PT1M}")
+    public void reconstruir() {
+        synchronized (this) {
+            pendientes = new ArrayList<>();
+        }
+        FiltroBloom nuevo;
+        int total;
+        try {
+            // Sólo los revocados vigentes: un token expirado ya no pasa la validación
+            List<String> tokens = sesionRepository.findTokensVigentes(new Date());
+            total = tokens.size();
+            nuevo = new FiltroBloom(Math.max(capacidad, 2 * total), probabilidadFalsoPositivo);
+            tokens.forEach(nuevo::agregar);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendientes = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            pendientes.forEach(nuevo::agregar);
+            pendientes = null;
+            revocados = nuevo;
+        }
+        log.debug("Filtro de sesiones revocadas reconstruido: {} tokens", total);
+    }
+
+    private boolean revocado(String token) {
+        FiltroBloom filtro = revocados;
+        if (filtro != null && !filtro.puedeContener(token)) {
+            return false;
+        }
+        return sesionRepository.existsById(token);
+    }
+
+    // Verifica formato, firma y expiración; no consulta la lista de revocados
+    private Optional<Sesion> leer(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int punto = token.indexOf('.');
+        if (punto < 0) {
+            return Optional.empty();
+        }
+        byte[] carga;
+        byte[] firma;
+        try {
+            carga = DECODIFICADOR.decode(token.substring(0, punto));
+            firma = DECODIFICADOR.decode(token.substring(punto + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (carga.length != BYTES_CARGA || carga[0] != VERSION || !MessageDigest.isEqual(firmar(carga), firma)) {
+            return Optional.empty();
+        }
+        // El decodificador ignora los bits sobrantes del último carácter: sin esto, variantes del mismo
+        // token también validarían y no estarían en la lista de revocados
+        if (!token.equals(CODIFICADOR.encodeToString(carga) + "." + CODIFICADOR.encodeToString(firma))) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(carga, 1, BYTES_CARGA - 1);
+        int idUsuario = buffer.getInt();
+        long expiracion = buffer.getLong();
+        if (expiracion <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Sesion(token, new Date(expiracion), idUsuario));
+    }
+
+    private byte[] firmar(byte[] carga) {
+        try {
+            return ((Mac) prototipo.clone()).doFinal(carga);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
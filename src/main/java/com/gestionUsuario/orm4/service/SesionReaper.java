@@ -0,0 +1,66 @@
+package com.gestionUsuario.orm4.service;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.gestionUsuario.orm4.repository.SesionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Elimina periódicamente las sesiones expiradas. Borra en lotes acotados, cada uno
+ * en su propia transacción, para no retener bloqueos largos sobre la tabla "sesion".
+ */
+@Service
+@ConditionalOnProperty(name = "sesion.reaper.habilitado", havingValue = "true", matchIfMissing = true)
+public class SesionReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(SesionReaper.class);
+
+    @Autowired
+    private SesionRepository sesionRepository;
+
+    @Value("${sesion.reaper.tamano-lote:1000}")
+    private int tamanoLote;
+
+    @Value("${sesion.reaper.max-lotes:100}")
+    private int maxLotes; // tope de lotes por ejecución; el resto queda para la siguiente
+
+    private final Counter eliminadas;
+    private final Timer duracion;
+
+    public SesionReaper(MeterRegistry registry) {
+        this.eliminadas = Counter.builder("sesion.reaper.eliminadas").register(registry);
+        this.duracion = Timer.builder("sesion.reaper.duracion").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${sesion.reaper.intervalo:PT5M}", initialDelayString = "${sesion.reaper.intervalo:PT5M}")
+    public int purgarExpiradas() {
+        long inicio = System.nanoTime();
+        Date ahora = new Date();
+        int total = 0;
+        for (int lote = 0; lote < maxLotes; lote++) {
+            int borradas = sesionRepository.deleteExpiradas(ahora, tamanoLote);
+            total += borradas;
+            if (borradas < tamanoLote) { // no quedan más expiradas
+                break;
+            }
+        }
+        duracion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        eliminadas.increment(total);
+        if (total > 0) {
+            log.info("Sesiones expiradas eliminadas: {}", total);
+        }
+        return total;
+    }
+}
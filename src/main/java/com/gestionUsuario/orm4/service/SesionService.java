@@ -3,8 +3,13 @@ package com.gestionUsuario.orm4.service;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.gestionUsuario.orm4.cache.SesionTokenCache;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
 import com.gestionUsuario.orm4.model.Sesion;
 import com.gestionUsuario.orm4.repository.SesionRepository;
 
@@ -14,15 +19,97 @@ public class SesionService {
     @Autowired
     private SesionRepository sesionRepository;
 
+    @Autowired
+    private SesionTokenCache sesionTokenCache;
+
+    @Autowired
+    private CambioService cambioService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired(required = false)
+    private SesionFirmadaService sesionFirmadaService; // sólo existe con sesion.modo=firmado
+
+    @Transactional(readOnly = true)
     public List<Sesion> findAll(){
         return sesionRepository.findAll();
     }
     
+    // Con sesion.modo=firmado la tabla es la lista de revocados: no se crean sesiones en ella
+    public boolean modoFirmado(){
+        return sesionFirmadaService != null;
+    }
+
     public Sesion save(Sesion sesion){
-        return sesionRepository.save(sesion);
+        if (modoFirmado()) {
+            throw new IllegalStateException("Con sesion.modo=firmado la tabla sesion sólo guarda tokens revocados");
+        }
+        Sesion guardada = transactionTemplate.execute(status -> {
+            Sesion nueva = sesionRepository.save(sesion);
+            cambioService.registrarSesion(nueva.getToken(), Operacion.CREADO);
+            return nueva;
+        });
+        sesionTokenCache.registrar(guardada); // la sesión nueva queda validable sin ir a la base de datos
+        return guardada;
+    }
+
+    // Crea la sesión con un único INSERT; devuelve false si el token ya existe o en modo firmado
+    public boolean crear(Sesion sesion){
+        if (modoFirmado() || sesionTokenCache.contiene(sesion.getToken())) {
+            return false;
+        }
+        boolean creada = transactionTemplate.execute(status -> {
+            try {
+                sesionRepository.insertar(sesion.getToken(), sesion.getExpiracion(), sesion.getIdUsuario());
+            } catch (DataIntegrityViolationException e) {
+                status.setRollbackOnly(); // se deshace sin lanzar: el token repetido sólo devuelve false
+                return false;
+            }
+            cambioService.registrarSesion(sesion.getToken(), Operacion.CREADO);
+            return true;
+        });
+        if (creada) {
+            sesionTokenCache.registrar(sesion);
+        }
+        return creada;
     }
 
+    // Se resuelve desde la caché; sólo un fallo consulta la tabla (y trae la expiración)
     public Boolean existsByToken(String token){
-        return sesionRepository.existsByToken(token);
+        return sesionTokenCache.existe(token, t -> sesionRepository.findById(t).map(Sesion::getExpiracion));
+    }
+
+    // Valida el token según sesion.modo: firma y expiración en memoria, o fila vigente en la tabla
+    // (las expiradas siguen ahí hasta que SesionReaper las borra)
+    public boolean validar(String token){
+        if (sesionFirmadaService != null) {
+            return sesionFirmadaService.validar(token).isPresent();
+        }
+        long expiracion = sesionTokenCache.expiracion(token, t -> sesionRepository.findById(t).map(Sesion::getExpiracion));
+        return expiracion > System.currentTimeMillis();
+    }
+
+    // Cierra la sesión: en modo tabla borra la fila; en modo firmado la agrega a los revocados
+    public boolean revocar(String token){
+        if (sesionFirmadaService != null) {
+            return sesionFirmadaService.revocar(token);
+        }
+        if (token == null) {
+            return false;
+        }
+        // Un solo DELETE, sin leer antes la fila; el evento va en la misma transacción
+        int borradas = transactionTemplate.execute(status -> {
+            int filas = sesionRepository.deleteByToken(token);
+            if (filas > 0) {
+                cambioService.registrarSesion(token, Operacion.BORRADO);
+            }
+            return filas;
+        });
+        if (borradas == 0) {
+            return false;
+        }
+        sesionTokenCache.invalidar(token);
+        return true;
     }
 }
@@ -0,0 +1,167 @@
+package com.gestionUsuario.orm4.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gestionUsuario.orm4.cache.PermisoIndex;
+import com.gestionUsuario.orm4.cache.UsuarioBusquedaIndex;
+import com.gestionUsuario.orm4.dto.ResultadoImportacion;
+import com.gestionUsuario.orm4.model.EventoCambio.Entidad;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+
+/**
+ * Importación masiva de usuarios. Lee la entrada de forma incremental y la escribe en
+ * lotes, cada uno en su propia transacción con INSERT agrupados por JDBC. Un RUT
+ * duplicado (en la base o dentro de la misma importación) sólo hace fallar su fila.
+ */
+@Service
+public class UsuarioImportacionService {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PermisoIndex permisoIndex;
+
+    @Autowired
+    private ContrasenaService contrasenaService;
+
+    @Autowired
+    private UsuarioBusquedaIndex usuarioBusquedaIndex;
+
+    @Autowired
+    private CambioService cambioService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${usuario.importacion.tamano-lote:500}")
+    private int tamanoLote;
+
+    public List<ResultadoImportacion> importar(Iterator<Usuario> usuarios) {
+        List<ResultadoImportacion> resultados = new ArrayList<>();
+        Set<String> rutsVistos = new HashSet<>(); // RUTs ya aceptados en esta importación
+        List<Usuario> lote = new ArrayList<>(tamanoLote);
+        int primeraFila = 0;
+        int fila = 0;
+        while (true) {
+            Usuario usuario;
+            try {
+                if (!usuarios.hasNext()) {
+                    break;
+                }
+                usuario = usuarios.next();
+            } catch (RuntimeException e) { // entrada mal formada: se informa y se detiene la lectura
+                procesarLote(lote, primeraFila, rutsVistos, resultados);
+                resultados.add(ResultadoImportacion.error(fila, "Entrada inválida: " + e.getMessage()));
+                return resultados;
+            }
+            lote.add(usuario);
+            fila++;
+            if (lote.size() == tamanoLote) {
+                procesarLote(lote, primeraFila, rutsVistos, resultados);
+                lote.clear();
+                primeraFila = fila;
+            }
+        }
+        procesarLote(lote, primeraFila, rutsVistos, resultados);
+        return resultados;
+    }
+
+    private void procesarLote(List<Usuario> lote, int primeraFila, Set<String> rutsVistos, List<ResultadoImportacion> resultados) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        // Un solo SELECT por lote para descartar los RUT ya registrados
+        Set<String> existentes = new HashSet<>(usuarioRepository.findRutsExistentes(
+                lote.stream().filter(u -> u != null && u.getRutUsuario() != null).map(Usuario::getRutUsuario).toList()));
+
+        List<Usuario> validos = new ArrayList<>(lote.size());
+        List<Integer> filasValidas = new ArrayList<>(lote.size());
+        ResultadoImportacion[] parcial = new ResultadoImportacion[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            Usuario usuario = lote.get(i);
+            int fila = primeraFila + i;
+            if (usuario == null) {
+                parcial[i] = ResultadoImportacion.error(fila, "Usuario nulo");
+            } else if (usuario.getIdUsuario() != 0) {
+                parcial[i] = ResultadoImportacion.error(fila, "El id lo asigna la base de datos");
+            } else if (usuario.getRutUsuario() == null) {
+                parcial[i] = ResultadoImportacion.error(fila, "RUT obligatorio");
+            } else if (usuario.getRol() != null && usuario.getRol().getIdRol() == 0) {
+                // Un rol sin id sería una entidad nueva sin cascada: Hibernate lo rechaza al guardar
+                parcial[i] = ResultadoImportacion.error(fila, "El rol debe existir (idRol)");
+            } else if (existentes.contains(usuario.getRutUsuario()) || !rutsVistos.add(usuario.getRutUsuario())) {
+                parcial[i] = ResultadoImportacion.error(fila, "RUT duplicado: " + usuario.getRutUsuario());
+            } else {
+                validos.add(usuario);
+                filasValidas.add(i);
+            }
+        }
+
+        // Los hash se calculan en paralelo en el pool de contraseñas, fuera de la transacción
+        List<String> hashes = contrasenaService.hashearLote(validos.stream().map(Usuario::getContrasena).toList());
+        for (int j = 0; j < validos.size(); j++) {
+            validos.get(j).setContrasena(hashes.get(j));
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                usuarioRepository.saveAll(validos);
+                entityManager.flush();
+                // Los eventos del lote en una sola sentencia, dentro de su transacción
+                cambioService.registrarUsuariosCreados(validos.stream().map(Usuario::getIdUsuario).toList());
+                // Con open-in-view el contexto de persistencia dura toda la petición: el lote ya
+                // está escrito, se lo desprende para que no se acumulen todos los de la importación
+                entityManager.clear();
+            });
+            for (int j = 0; j < validos.size(); j++) {
+                parcial[filasValidas.get(j)] = ResultadoImportacion.creado(primeraFila + filasValidas.get(j), validos.get(j).getIdUsuario());
+                permisoIndex.actualizarUsuario(validos.get(j));
+                usuarioBusquedaIndex.actualizarUsuario(validos.get(j));
+            }
+        } catch (DataAccessException | PersistenceException e) {
+            // Algún registro violó una restricción: se reintenta fila por fila para aislarlo
+            for (int j = 0; j < validos.size(); j++) {
+                Usuario usuario = validos.get(j);
+                int i = filasValidas.get(j);
+                usuario.setIdUsuario(0);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        usuarioRepository.save(usuario);
+                        entityManager.flush();
+                        cambioService.registrar(Entidad.USUARIO, usuario.getIdUsuario(), Operacion.CREADO);
+                        entityManager.clear();
+                    });
+                    parcial[i] = ResultadoImportacion.creado(primeraFila + i, usuario.getIdUsuario());
+                    permisoIndex.actualizarUsuario(usuario);
+                    usuarioBusquedaIndex.actualizarUsuario(usuario);
+                } catch (DataAccessException | PersistenceException filaFallida) {
+                    rutsVistos.remove(usuario.getRutUsuario());
+                    parcial[i] = ResultadoImportacion.error(primeraFila + i,
+                            NestedExceptionUtils.getMostSpecificCause(filaFallida).getMessage());
+                }
+            }
+        }
+        resultados.addAll(List.of(parcial));
+    }
+}
@@ -1,13 +1,31 @@
 package com.gestionUsuario.orm4.service;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.gestionUsuario.orm4.cache.PermisoIndex;
+import com.gestionUsuario.orm4.cache.UsuarioBusquedaIndex;
+import com.gestionUsuario.orm4.dto.FiltroUsuario;
+import com.gestionUsuario.orm4.model.EventoCambio.Entidad;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
+import com.gestionUsuario.orm4.model.Rol;
 import com.gestionUsuario.orm4.model.Usuario;
 import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import com.gestionUsuario.orm4.repository.UsuarioSpecs;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 public class UsuarioService {
@@ -15,23 +33,192 @@ public class UsuarioService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private PermisoIndex permisoIndex;
+
+    @Autowired
+    private ContrasenaService contrasenaService;
+
+    @Autowired
+    private UsuarioBusquedaIndex usuarioBusquedaIndex;
+
+    @Autowired
+    private CambioService cambioService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate; // la escritura y su evento de cambio van juntos
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Campos que leen PermisoIndex (rol, activo) y UsuarioBusquedaIndex (nombre, RUT, email)
+    private static final Set<String> CAMPOS_INDEXADOS = Set.of("nombre", "rutUsuario", "email", "activo", "rol");
+
+    @Transactional(readOnly = true)
     public List<Usuario> findAll(){
         return usuarioRepository.findAll();
     }
 
+    // Usuarios completos que cumplen el filtro
+    @Transactional(readOnly = true)
+    public List<Usuario> findAll(FiltroUsuario filtro){
+        return usuarioRepository.findAll(UsuarioSpecs.filtro(filtro));
+    }
+
+    // Sólo los campos de filtro.getFields() de los usuarios que cumplen el filtro
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findCampos(FiltroUsuario filtro){
+        return usuarioRepository.findCampos(UsuarioSpecs.filtro(filtro), filtro.getFields());
+    }
+
+    // Devuelve hasta "limit" usuarios con id mayor a "after", ordenados por id
+    @Transactional(readOnly = true)
+    public List<Usuario> findPage(int after, int limit){
+        return usuarioRepository.findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(after, Limit.of(limit));
+    }
+
+    // Recorre la tabla completa página a página. Cada página se lee en su propia transacción
+    // del repositorio, así las entidades de páginas anteriores no se retienen en memoria
+    public void forEachPage(int pageSize, Consumer<List<Usuario>> consumer){
+        int after = 0;
+        List<Usuario> pagina;
+        do {
+            pagina = findPage(after, pageSize);
+            if (pagina.isEmpty()) {
+                return;
+            }
+            consumer.accept(pagina);
+            after = pagina.get(pagina.size() - 1).getIdUsuario();
+        } while (pagina.size() == pageSize);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Usuario> findById(int id){
         return usuarioRepository.findById(id);
     }
-    
+
     public Usuario save(Usuario usuario){
-        return usuarioRepository.save(usuario);
+        usuario.setContrasena(contrasenaService.hashearRecibida(usuario.getContrasena()));
+        Operacion operacion = usuario.getIdUsuario() == 0 ? Operacion.CREADO : Operacion.ACTUALIZADO;
+        Usuario guardado = transactionTemplate.execute(status -> {
+            Usuario nuevo = usuarioRepository.save(usuario);
+            cambioService.registrar(Entidad.USUARIO, nuevo.getIdUsuario(), operacion);
+            return nuevo;
+        });
+        permisoIndex.actualizarUsuario(guardado);
+        usuarioBusquedaIndex.actualizarUsuario(guardado);
+        return guardado;
+    }
+
+    // Actualiza el usuario existente; devuelve 0 si no existe
+    public int update(Usuario usuario){
+        usuario.setContrasena(contrasenaService.hashearRecibida(usuario.getContrasena()));
+        int filas = transactionTemplate.execute(status -> registrar(usuario.getIdUsuario(), Operacion.ACTUALIZADO,
+                usuarioRepository.updateUsuario(usuario)));
+        if (filas > 0) {
+            permisoIndex.actualizarUsuario(usuario);
+            usuarioBusquedaIndex.actualizarUsuario(usuario);
+        }
+        return filas;
+    }
+
+    // Como update(), pero sólo si el usuario sigue en la versión indicada; devuelve 0 si no
+    // existe o si otro lo modificó antes. Si actualiza, deja en el usuario la versión nueva
+    public int update(Usuario usuario, long version){
+        usuario.setContrasena(contrasenaService.hashearRecibida(usuario.getContrasena()));
+        int filas = transactionTemplate.execute(status -> registrar(usuario.getIdUsuario(), Operacion.ACTUALIZADO,
+                usuarioRepository.updateUsuarioSiVersion(usuario, version)));
+        if (filas > 0) {
+            usuario.setVersion(version + 1);
+            permisoIndex.actualizarUsuario(usuario);
+            usuarioBusquedaIndex.actualizarUsuario(usuario);
+        }
+        return filas;
     }
 
+    // PATCH (JSON Merge Patch): un UPDATE sólo de los campos recibidos; con version no nula, sólo
+    // si el usuario sigue en esa versión. Devuelve 0 si no existe o cambió. Si el cambio afecta a
+    // los índices se relee la fila (sin JOIN), porque el parche no trae el resto de los campos
+    // Lanza IllegalArgumentException si un valor no corresponde al tipo del campo
+    public int patch(int id, Map<String, Object> cambios, Long version){
+        Map<String, Object> valores = new HashMap<>(cambios.size());
+        cambios.forEach((campo, json) -> valores.put(campo, valor(campo, json)));
+        if (valores.get("contrasena") instanceof String contrasena) {
+            valores.put("contrasena", contrasenaService.hashearRecibida(contrasena));
+        }
+        int filas = transactionTemplate.execute(status -> registrar(id, Operacion.ACTUALIZADO,
+                usuarioRepository.patchUsuario(id, valores, version)));
+        if (filas > 0 && !Collections.disjoint(cambios.keySet(), CAMPOS_INDEXADOS)) {
+            usuarioRepository.findByIdUsuario(id).ifPresent(usuario -> {
+                permisoIndex.actualizarUsuario(usuario);
+                usuarioBusquedaIndex.actualizarUsuario(usuario);
+            });
+        }
+        return filas;
+    }
+
+    // Convierte el valor JSON al tipo del campo; null borra el valor (sólo en columnas que lo admiten)
+    private Object valor(String campo, Object json) {
+        switch (campo) {
+            case "telefono":
+                if (json == null || json instanceof String) {
+                    return json;
+                }
+                break;
+            case "activo":
+                if (json instanceof Boolean) {
+                    return json;
+                }
+                break;
+            case "rol":
+                if (json == null) {
+                    return null;
+                }
+                if (json instanceof Map<?, ?> rol && rol.get("idRol") instanceof Integer idRol) {
+                    // Referencia sin SELECT: sólo se escribe la clave foránea
+                    return entityManager.getReference(Rol.class, idRol);
+                }
+                break;
+            default: // nombre, rutUsuario, email y contrasena: texto obligatorio
+                if (json instanceof String) {
+                    return json;
+                }
+        }
+        throw new IllegalArgumentException("Valor inválido para " + campo + ": " + json);
+    }
+
+    // Verifica la contraseña; si el hash quedó desactualizado (texto plano o costo menor) lo reemplaza
+    public boolean verificarContrasena(Usuario usuario, String contrasena){
+        ContrasenaService.Verificacion verificacion = contrasenaService.verificar(contrasena, usuario.getContrasena());
+        if (verificacion.requiereRehash()) {
+            transactionTemplate.executeWithoutResult(status -> registrar(usuario.getIdUsuario(), Operacion.ACTUALIZADO,
+                    usuarioRepository.updateContrasena(usuario.getIdUsuario(), verificacion.nuevoHash())));
+            usuario.setContrasena(verificacion.nuevoHash());
+        }
+        return verificacion.coincide();
+    }
+
+    @Transactional(readOnly = true)
     public Boolean existsById(int id){
         return usuarioRepository.existsById(id);
     }
 
-    public void deleteById(int id){
-        usuarioRepository.deleteById(id);
+    // Devuelve la cantidad de filas borradas (0 si no existía)
+    public int deleteById(int id){
+        int filas = transactionTemplate.execute(status -> registrar(id, Operacion.BORRADO,
+                usuarioRepository.deleteUsuarioById(id)));
+        if (filas > 0) {
+            permisoIndex.quitarUsuario(id);
+            usuarioBusquedaIndex.quitarUsuario(id);
+        }
+        return filas;
+    }
+
+    // Registra el evento sólo si la sentencia afectó al usuario; devuelve las filas
+    private int registrar(int id, Operacion operacion, int filas){
+        if (filas > 0) {
+            cambioService.registrar(Entidad.USUARIO, id, operacion);
+        }
+        return filas;
     }
 }
@@ -0,0 +1,35 @@
+-- Esquema original, tal como lo creaba ddl-auto=update antes de las migraciones
+create table permiso (
+    id_permiso integer not null auto_increment,
+    nombre varchar(50) not null,
+    descripcion varchar(100),
+    primary key (id_permiso)
+) engine=InnoDB;
+
+create table rol (
+    id_rol integer not null auto_increment,
+    nombre_rol varchar(50) not null,
+    id_permiso integer,
+    primary key (id_rol),
+    constraint fk_rol_permiso foreign key (id_permiso) references permiso (id_permiso)
+) engine=InnoDB;
+
+create table usuario (
+    id_usuario integer not null auto_increment,
+    nombre varchar(50) not null,
+    rut_usuario varchar(13) not null,
+    email varchar(250) not null,
+    contrasena varchar(50) not null,
+    telefono varchar(12),
+    activo bit not null,
+    id_rol integer,
+    primary key (id_usuario),
+    constraint uk_usuario_rut unique (rut_usuario),
+    constraint fk_usuario_rol foreign key (id_rol) references rol (id_rol)
+) engine=InnoDB;
+
+create table sesion (
+    token varchar(255) not null,
+    expiracion datetime(6) not null,
+    primary key (token)
+) engine=InnoDB;
@@ -0,0 +1,4 @@
+-- Limpieza de sesiones expiradas por lotes, login por email y filtro por prefijo de nombre
+create index idx_sesion_expiracion on sesion (expiracion);
+create index idx_usuario_email on usuario (email);
+create index idx_usuario_nombre on usuario (nombre);
@@ -0,0 +1,7 @@
+-- Ids de usuario desde una secuencia con pool de 50 (Hibernate la emula con esta tabla en MySQL).
+-- Hibernate reserva los ids (next_val - 50, next_val], así que se parte por encima de los existentes
+create table usuario_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into usuario_seq (next_val) select coalesce(max(id_usuario), 0) + 51 from usuario;
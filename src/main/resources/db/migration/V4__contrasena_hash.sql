@@ -0,0 +1,2 @@
+-- Hash BCrypt (60 caracteres) en lugar de la contraseña en texto plano
+alter table usuario modify contrasena varchar(100) not null;
@@ -0,0 +1,2 @@
+-- Dueño de la sesión cuando se crea con POST /api/sesion/login
+alter table sesion add id_usuario integer;
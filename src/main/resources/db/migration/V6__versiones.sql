@@ -0,0 +1,4 @@
+-- Columna @Version: ETag y bloqueo optimista
+alter table usuario add version bigint not null default 0;
+alter table rol add version bigint not null default 0;
+alter table permiso add version bigint not null default 0;
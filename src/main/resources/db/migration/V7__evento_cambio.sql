@@ -0,0 +1,9 @@
+-- Registro de cambios (outbox) de GET /api/changes
+create table evento_cambio (
+    id bigint not null auto_increment,
+    entidad enum ('PERMISO','ROL','SESION','USUARIO') not null,
+    id_entidad varchar(255) not null,
+    operacion enum ('ACTUALIZADO','BORRADO','CREADO') not null,
+    creado datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
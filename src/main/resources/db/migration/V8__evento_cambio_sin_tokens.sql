@@ -0,0 +1,3 @@
+-- Los eventos de sesión guardaban el token en id_entidad, y GET /api/changes no pide autenticación.
+-- Desde ahora se publica el SHA-256 del token; los eventos anteriores se descartan
+delete from evento_cambio where entidad = 'SESION';
@@ -0,0 +1,55 @@
+package com.gestionUsuario.orm4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.repository.PermisoRepository;
+import com.gestionUsuario.orm4.repository.RolRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Con la caché de segundo nivel activada, Rol y Permiso se leen por id sin ir a la base de datos
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=true")
+public class CacheSegundoNivelTest {
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        rolRepository.deleteAllInBatch();
+        permisoRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testFindById_SeSirveDesdeCache() {
+        Permiso permiso = permisoRepository.save(new Permiso(0, "Administrador", "Acceso completo."));
+        Rol rol = rolRepository.save(new Rol(0, "Administrador", permiso));
+        rolRepository.findById(rol.getIdRol()); // la primera lectura llena la caché
+        permisoRepository.findById(permiso.getIdPermiso());
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        // Cada llamada usa su propio contexto de persistencia
+        assertTrue(rolRepository.findById(rol.getIdRol()).isPresent());
+        assertTrue(permisoRepository.findById(permiso.getIdPermiso()).isPresent());
+
+        assertEquals(2, estadisticas.getSecondLevelCacheHitCount());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+}
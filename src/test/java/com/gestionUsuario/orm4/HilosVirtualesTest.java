@@ -0,0 +1,27 @@
+package com.gestionUsuario.orm4;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+// Con el modo de hilos virtuales activado, Tomcat atiende cada petición en un hilo virtual
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+public class HilosVirtualesTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext contexto;
+
+    @Test
+    void testTomcatUsaHilosVirtuales() {
+        TomcatWebServer servidor = (TomcatWebServer) contexto.getWebServer();
+
+        assertInstanceOf(VirtualThreadExecutor.class,
+                servidor.getTomcat().getConnector().getProtocolHandler().getExecutor());
+    }
+}
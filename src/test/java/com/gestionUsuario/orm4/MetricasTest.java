@@ -0,0 +1,38 @@
+package com.gestionUsuario.orm4;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Verifica que /actuator/prometheus publique las métricas de endpoints, repositorios, pool e Hibernate
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testPrometheus() throws Exception {
+        // Arrange: una petición que pasa por controlador y repositorio
+        mockMvc.perform(get("/api/rol")).andExpect(status().is2xxSuccessful());
+
+        // Act & Assert
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/api/rol\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket{")))
+                .andExpect(content().string(containsString("repository=\"RolRepository\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_statements_total")));
+    }
+}
@@ -0,0 +1,59 @@
+package com.gestionUsuario.orm4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+
+// Con el perfil prod el esquema sale de las migraciones; ddl-auto=validate comprueba que coincide con las entidades.
+// H2 en modo MySQL con el dialecto de MySQL: el id de usuario sale de la tabla usuario_seq, como en producción
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migraciones;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect", // el de producción
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate" })
+@ActiveProfiles("prod")
+public class MigracionesTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void testMigraciones_CoincidenConLasEntidades() {
+        // Si alguna columna faltara o no coincidiera, el contexto no habría arrancado
+        assertEquals("8", flyway.info().current().getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+
+        Usuario usuario = usuarioRepository.save(new Usuario(0, "Ana Soto", "1-9", "ana@example.com", "x", null, true, null));
+        assertTrue(usuario.getIdUsuario() > 0);
+        usuarioRepository.deleteById(usuario.getIdUsuario());
+    }
+
+    @Test
+    void testSecuencia_ParteDespuesDeLosUsuariosExistentes() {
+        // Una base con usuarios creados con AUTO_INCREMENT, antes de pasar a la secuencia
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:migraciones_secuencia;DB_CLOSE_DELAY=-1;MODE=MySQL", "sa", "");
+        Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("insert into usuario (id_usuario, nombre, rut_usuario, email, contrasena, activo) values (120, 'Ana', '1-9', 'a@b.cl', 'x', true)");
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        // Hibernate reserva (next_val - 50, next_val]: el primer id nuevo es mayor que 120
+        long siguiente = jdbc.queryForObject("select next_val from usuario_seq", Long.class);
+        assertTrue(siguiente - 50 > 120);
+    }
+}
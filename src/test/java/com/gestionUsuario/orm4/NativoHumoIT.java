@@ -0,0 +1,182 @@
+package com.gestionUsuario.orm4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Pruebas de humo de la imagen nativa (mvn -P native verify). Arranca el binario y, para comparar,
+ * el jar en la JVM, los dos con el perfil prod sobre H2 en memoria, y recorre los endpoints
+ * principales en ambos. El tiempo hasta el primer /actuator/health correcto y la memoria residente
+ * (VmRSS, sólo Linux) quedan en target/nativo-informe.txt y en la salida de la prueba.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class NativoHumoIT {
+
+    private static final Duration ESPERA_ARRANQUE = Duration.ofMinutes(2);
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Instancia> instancias = new LinkedHashMap<>();
+
+    private record Instancia(Process proceso, String base, long arranqueMs, Long rssArranqueKb) {
+    }
+
+    @BeforeAll
+    void arrancar() throws Exception {
+        String binario = System.getProperty("nativo.binario");
+        String jar = System.getProperty("nativo.jar");
+        assertNotNull(binario, "Falta -Dnativo.binario (lo define el perfil native)");
+        assertNotNull(jar, "Falta -Dnativo.jar (lo define el perfil native)");
+        // Una después de la otra, para que no compitan por la CPU al arrancar
+        instancias.put("nativo", iniciar(List.of(binario)));
+        instancias.put("jvm", iniciar(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", jar, "--spring.profiles.active=prod")));
+    }
+
+    @AfterAll
+    void detener() throws IOException {
+        List<String> informe = new ArrayList<>();
+        informe.add(String.format("%-8s %12s %18s %18s", "modo", "arranque ms", "RSS arranque KB", "RSS final KB"));
+        instancias.forEach((modo, instancia) -> {
+            informe.add(String.format("%-8s %12d %18s %18s", modo, instancia.arranqueMs(),
+                    texto(instancia.rssArranqueKb()), texto(rssKb(instancia.proceso()))));
+            instancia.proceso().destroy();
+        });
+        informe.forEach(System.out::println);
+        Files.write(Path.of(System.getProperty("nativo.informe", "target/nativo-informe.txt")), informe);
+    }
+
+    private Instancia iniciar(List<String> comando) throws Exception {
+        int puerto;
+        try (ServerSocket libre = new ServerSocket(0)) {
+            puerto = libre.getLocalPort();
+        }
+        List<String> argumentos = new ArrayList<>(comando);
+        argumentos.addAll(List.of(
+                "--server.port=" + puerto,
+                "--spring.datasource.url=jdbc:h2:mem:humo;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.main.banner-mode=off",
+                "--contrasena.bcrypt.costo=4"));
+        String base = "http://localhost:" + puerto;
+        long inicio = System.nanoTime();
+        Process proceso = new ProcessBuilder(argumentos).redirectErrorStream(true)
+                .redirectOutput(Path.of("target", "nativo-" + puerto + ".log").toFile()).start();
+        long limite = inicio + ESPERA_ARRANQUE.toNanos();
+        while (System.nanoTime() < limite) {
+            assertTrue(proceso.isAlive(), "El proceso terminó al arrancar, ver target/nativo-" + puerto + ".log");
+            try {
+                if (get(base, "/actuator/health").statusCode() == 200) {
+                    return new Instancia(proceso, base, (System.nanoTime() - inicio) / 1_000_000, rssKb(proceso));
+                }
+            } catch (IOException todaviaNo) {
+                // el puerto aún no acepta conexiones
+            }
+            Thread.sleep(20);
+        }
+        proceso.destroyForcibly();
+        throw new AssertionError("No arrancó en " + ESPERA_ARRANQUE + ": " + comando);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "nativo", "jvm" })
+    void testRecorrido(String modo) throws Exception {
+        String base = instancias.get(modo).base();
+        String rut = modo + "-1";
+
+        // Entidades de Lombok de ida y vuelta por Jackson e Hibernate
+        JsonNode permiso = json(enviar(base, "POST", "/api/permiso", "{\"nombre\":\"Admin " + modo + "\",\"descripcion\":\"Todo\"}", 200));
+        JsonNode rol = json(enviar(base, "POST", "/api/rol",
+                "{\"nombreRol\":\"Admin " + modo + "\",\"permiso\":{\"idPermiso\":" + permiso.get("idPermiso") + "}}", 200));
+        JsonNode usuario = json(enviar(base, "POST", "/api/usuarioV2", "{\"nombre\":\"Ana Soto\",\"rutUsuario\":\"" + rut
+                + "\",\"email\":\"ana@example.com\",\"contrasena\":\"clave\",\"activo\":true,\"rol\":{\"idRol\":" + rol.get("idRol") + "}}", 201));
+        int id = usuario.get("idUsuario").asInt();
+
+        // HATEOAS (methodOn) y ETag
+        HttpResponse<String> leido = get(base, "/api/usuarioV2/" + id);
+        assertEquals(200, leido.statusCode());
+        assertTrue(json(leido).path("_links").has("self"));
+        String etag = leido.headers().firstValue("ETag").orElseThrow();
+
+        // Merge Patch condicional: un único UPDATE con Criteria
+        HttpResponse<String> parche = http.send(HttpRequest.newBuilder(URI.create(base + "/api/usuarioV2/" + id))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"telefono\":\"123\"}"))
+                .header("Content-Type", "application/merge-patch+json").header("If-Match", etag).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(204, parche.statusCode());
+
+        // Login con BCrypt y validación del token
+        String token = json(enviar(base, "POST", "/api/sesion/login", "{\"identificador\":\"" + rut + "\",\"contrasena\":\"clave\"}", 200))
+                .get("token").asText();
+        assertEquals(204, http.send(HttpRequest.newBuilder(URI.create(base + "/api/sesion/validar"))
+                .header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        // Registro de cambios (CompletableFuture) y documentación de springdoc
+        assertFalse(json(get(base, "/api/changes?since=0")).isEmpty());
+        assertTrue(get(base, "/v3/api-docs").body().contains("API 2026 Gestion Usuarios"));
+        assertEquals(200, get(base, "/swagger-ui/index.html").statusCode());
+    }
+
+    private HttpResponse<String> get(String base, String ruta) throws IOException, InterruptedException {
+        return http.send(HttpRequest.newBuilder(URI.create(base + ruta)).timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> enviar(String base, String metodo, String ruta, String cuerpo, int esperado)
+            throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(URI.create(base + ruta))
+                .method(metodo, HttpRequest.BodyPublishers.ofString(cuerpo))
+                .header("Content-Type", "application/json").timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(esperado, respuesta.statusCode(), metodo + " " + ruta + ": " + respuesta.body());
+        return respuesta;
+    }
+
+    private JsonNode json(HttpResponse<String> respuesta) throws IOException {
+        return objectMapper.readTree(respuesta.body());
+    }
+
+    // Memoria residente del proceso en KB, de /proc; null fuera de Linux
+    private static Long rssKb(Process proceso) {
+        try {
+            for (String linea : Files.readAllLines(Path.of("/proc", String.valueOf(proceso.pid()), "status"))) {
+                if (linea.startsWith("VmRSS:")) {
+                    return Long.parseLong(linea.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // sin /proc
+        }
+        return null;
+    }
+
+    private static String texto(Long valor) {
+        return valor == null ? "n/d" : valor.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.gestionUsuario.orm4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.gestionUsuario.orm4.config.Replicas;
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.service.PermisoService;
+import com.gestionUsuario.orm4.service.UsuarioService;
+
+import jakarta.servlet.http.Cookie;
+
+// Primaria y réplica en dos bases H2; la "replicación" es una copia completa (replicar()), así
+// lo que la réplica no tiene muestra de dónde salió cada lectura. Las revisiones se hacen a mano
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicas_primaria;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "replicas.urls=jdbc:h2:mem:replicas_replica;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "replicas.retraso-maximo=PT2S",
+        "replicas.revision=PT1H" })
+@AutoConfigureMockMvc
+public class ReplicasTest {
+
+    private static final String URL_PRIMARIA = "jdbc:h2:mem:replicas_primaria;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    private static final String URL_REPLICA = "jdbc:h2:mem:replicas_replica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Replicas replicas;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private PermisoService permisoService;
+
+    private final JdbcTemplate primaria = new JdbcTemplate(new DriverManagerDataSource(URL_PRIMARIA, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+
+    @BeforeEach
+    void setUp() {
+        replicar();
+        replicas.revisar();
+    }
+
+    // Copia la primaria completa en la réplica
+    private void replicar() {
+        replica.execute("drop all objects");
+        primaria.queryForList("script nopasswords nosettings", String.class).forEach(replica::execute);
+    }
+
+    private Usuario nuevoUsuario(String rut) {
+        return new Usuario(0, "Ana Soto", rut, "ana@example.com", "clave", null, true, null);
+    }
+
+    @Test
+    void testLecturaDeServicio_VaALaReplica() throws Exception {
+        int id = usuarioService.save(nuevoUsuario("rep-1")).getIdUsuario();
+        replicas.revisar(); // la réplica va atrasada por un evento de hace milisegundos: sigue disponible
+        assertTrue(replicas.retrasos().get(0) >= 0 && replicas.retrasos().get(0) < 2000);
+
+        mockMvc.perform(get("/api/usuarioV2/{id}", id)).andExpect(status().isNotFound());
+
+        replicar();
+        mockMvc.perform(get("/api/usuarioV2/{id}", id)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testLecturasDeRepositorio_QuedanEnLaPrimaria() throws Exception {
+        // El catálogo se recarga con el findAll de Spring Data, que no pasa a la réplica
+        permisoService.save(new Permiso(0, "Auditor " + System.nanoTime(), "Sólo lectura"));
+        replicas.revisar();
+
+        mockMvc.perform(get("/api/permiso")).andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.descripcion == 'Sólo lectura')]").isNotEmpty());
+    }
+
+    @Test
+    void testEscritura_LeeLoPropio() throws Exception {
+        Cookie escritura = mockMvc.perform(post("/api/usuarioV2").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"nombre\":\"Ana Soto\",\"rutUsuario\":\"rep-2\",\"email\":\"ana@example.com\",\"contrasena\":\"clave\",\"activo\":true}"))
+                .andExpect(status().isCreated()).andReturn().getResponse().getCookie("escritura");
+        assertNotNull(escritura);
+        int id = primaria.queryForObject("select id_usuario from usuario where rut_usuario = 'rep-2'", Integer.class);
+        replicas.revisar();
+
+        // Quien escribió lee de la primaria; los demás, de la réplica que aún no lo tiene
+        mockMvc.perform(get("/api/usuarioV2/{id}", id).cookie(escritura)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/usuarioV2/{id}", id)).andExpect(status().isNotFound());
+        // Una cookie vieja ya no obliga a ir a la primaria
+        mockMvc.perform(get("/api/usuarioV2/{id}", id).cookie(new Cookie("escritura", "1"))).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testReplicaAtrasada_SeLeeDeLaPrimaria() throws Exception {
+        int id = usuarioService.save(nuevoUsuario("rep-3")).getIdUsuario();
+        // El evento que falta en la réplica tiene un minuto: más que replicas.retraso-maximo
+        primaria.update("update evento_cambio set creado = dateadd('MINUTE', -1, creado) where id > ?",
+                replica.queryForObject("select coalesce(max(id), 0) from evento_cambio", Long.class));
+        replicas.revisar();
+        assertTrue(replicas.retrasos().get(0) >= 60_000);
+
+        mockMvc.perform(get("/api/usuarioV2/{id}", id)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testReplicaCaida_SeLeeDeLaPrimaria() throws Exception {
+        int id = usuarioService.save(nuevoUsuario("rep-4")).getIdUsuario();
+        replica.execute("drop table evento_cambio");
+        replicas.revisar();
+        assertEquals(-1, replicas.retrasos().get(0));
+
+        mockMvc.perform(get("/api/usuarioV2/{id}", id)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,85 @@
+package com.gestionUsuario.orm4.assemblers;
+
+import com.gestionUsuario.orm4.controller.UsuarioController;
+import com.gestionUsuario.orm4.model.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+public class UsuarioModelAssemblerTest {
+
+    private final UsuarioModelAssembler assembler = new UsuarioModelAssembler();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private void simularPeticion(String host, int puerto) {
+        // Simula la petición HTTP en curso, de la que se toma la URL base de los enlaces
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/usuarioV2");
+        request.setServerName(host);
+        request.setServerPort(puerto);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private void assertMismosEnlaces(Usuario usuario, EntityModel<Usuario> modelo) {
+        // Enlaces construidos como antes, con linkTo(methodOn(...)) por cada usuario
+        List<Link> esperados = List.of(
+                linkTo(methodOn(UsuarioController.class).getUsuarioById(usuario.getIdUsuario())).withSelfRel(),
+                linkTo(methodOn(UsuarioController.class).getUsuarios(null)).withRel("usuarios"));
+
+        assertEquals(esperados.size(), modelo.getLinks().toList().size());
+        for (Link esperado : esperados) {
+            Link actual = modelo.getRequiredLink(esperado.getRel());
+            assertEquals(esperado.getHref(), actual.getHref());
+            assertEquals(esperado.isTemplated(), actual.isTemplated());
+        }
+    }
+
+    @Test
+    public void testToModel_MismosEnlacesQueLinkTo() {
+        simularPeticion("api.hospital.cl", 8443);
+
+        for (int id : new int[] { 1, 42, 123456 }) {
+            Usuario usuario = new Usuario(id, "Juan Perez", "11.111.111-1", "juan.perez@example.com", "pass123", null, true, null);
+            EntityModel<Usuario> modelo = assembler.toModel(usuario);
+
+            assertSame(usuario, modelo.getContent());
+            assertMismosEnlaces(usuario, modelo);
+        }
+    }
+
+    @Test
+    public void testToModel_EnlacesPorPeticion() {
+        Usuario usuario = new Usuario(7, "Maria Lopez", "22.222.222-2", "maria.lopez@example.com", "pass456", null, true, null);
+
+        // Cada petición resuelve su propia URL base; no se reutilizan enlaces de otra petición
+        simularPeticion("uno.hospital.cl", 80);
+        assertEquals("http://uno.hospital.cl/api/usuario/7", assembler.toModel(usuario).getRequiredLink(IanaLinkRelations.SELF).getHref());
+
+        simularPeticion("dos.hospital.cl", 8080);
+        EntityModel<Usuario> modelo = assembler.toModel(usuario);
+        assertEquals("http://dos.hospital.cl:8080/api/usuario/7", modelo.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        assertMismosEnlaces(usuario, modelo);
+    }
+
+    @Test
+    public void testToModel_SinPeticion() {
+        // Fuera de una petición HTTP los enlaces se resuelven igual que con linkTo
+        Usuario usuario = new Usuario(3, "Pedro Gomez", "33.333.333-3", "pedro.gomez@example.com", "newpass", null, true, null);
+
+        assertMismosEnlaces(usuario, assembler.toModel(usuario));
+    }
+}
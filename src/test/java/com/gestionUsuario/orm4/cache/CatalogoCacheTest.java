@@ -0,0 +1,104 @@
+package com.gestionUsuario.orm4.cache;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogoCacheTest {
+
+    @Test
+    public void testObtener_CargaUnaSolaVez() {
+        AtomicInteger cargas = new AtomicInteger();
+        CatalogoCache<String> cache = new CatalogoCache<>(() -> {
+            cargas.incrementAndGet();
+            return List.of("a", "b");
+        }, Function.identity(), () -> Duration.ofHours(1));
+
+        Catalogo<String> primero = cache.obtener();
+        Catalogo<String> segundo = cache.obtener();
+
+        assertSame(primero, segundo);
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    public void testObtener_VigenciaVencida_Recarga() {
+        // Otra instancia escribió en la tabla: aquí no hubo invalidación, sólo vence la foto
+        List<String> tabla = new ArrayList<>(List.of("a"));
+        AtomicReference<Duration> vigencia = new AtomicReference<>(Duration.ofHours(1));
+        CatalogoCache<String> cache = new CatalogoCache<>(() -> List.copyOf(tabla), Function.identity(), vigencia::get);
+        Catalogo<String> primero = cache.obtener();
+        tabla.add("b");
+
+        assertSame(primero, cache.obtener(), "Dentro de la vigencia se reutiliza la foto");
+        vigencia.set(Duration.ZERO);
+        Catalogo<String> recargado = cache.obtener();
+
+        assertEquals(List.of("a", "b"), recargado.datos());
+        assertNotEquals(primero.etag(), recargado.etag());
+    }
+
+    @Test
+    public void testCatalogo_EsUnaCopiaInmutable() {
+        List<String> origen = new ArrayList<>(List.of("a"));
+        Catalogo<String> catalogo = Catalogo.of(origen, Function.identity());
+
+        origen.add("b"); // modificar la lista original no altera la foto
+
+        assertEquals(List.of("a"), catalogo.datos());
+        assertThrows(UnsupportedOperationException.class, () -> catalogo.datos().add("c"));
+    }
+
+    @Test
+    public void testEtag_PorVersion() {
+        Permiso leer = new Permiso(1, "Leer", "Sólo lectura", 3);
+        Permiso leerEditado = new Permiso(1, "Leer", "Sólo lectura", 4);
+
+        // Mismo contenido con otra versión: otro ETag; con la misma versión no importa el resto
+        assertNotEquals(Catalogo.of(List.of(leer), Permiso::getVersion).etag(),
+                Catalogo.of(List.of(leerEditado), Permiso::getVersion).etag());
+        assertEquals(Catalogo.of(List.of(leer), Permiso::getVersion).etag(),
+                Catalogo.of(List.of(new Permiso(1, "Otro", null, 3)), Permiso::getVersion).etag());
+    }
+
+    @Test
+    public void testEtag_PorVersion_NoDependeDelOrden() {
+        Permiso leer = new Permiso(1, "Leer", "Sólo lectura", 3);
+        Permiso escribir = new Permiso(2, "Escribir", "Lectura y escritura", 0);
+        Function<Permiso, String> clave = permiso -> permiso.getIdPermiso() + ":" + permiso.getVersion();
+
+        // Las mismas filas en otro orden dan el mismo ETag; otra versión, otro ETag
+        assertEquals(Catalogo.of(List.of(leer, escribir), clave).etag(), Catalogo.of(List.of(escribir, leer), clave).etag());
+        assertNotEquals(Catalogo.of(List.of(leer, escribir), clave).etag(),
+                Catalogo.of(List.of(new Permiso(1, "Leer", null, 30), new Permiso(2, "Escribir", null, 0)), clave).etag());
+        assertTrue(Catalogo.of(List.of(leer), clave).etag().matches("\"v[0-9a-f]{32}\""), "El ETag debe ir entre comillas (RFC 9110)");
+    }
+
+    @Test
+    public void testInvalidar_DuranteUnaCarga_NoPublicaLaFotoVieja() {
+        // La carga lee la tabla y, antes de terminar, otra petición escribe e invalida
+        List<String> tabla = new ArrayList<>(List.of("a"));
+        AtomicReference<CatalogoCache<String>> cache = new AtomicReference<>();
+        AtomicInteger cargas = new AtomicInteger();
+        cache.set(new CatalogoCache<>(() -> {
+            List<String> leido = List.copyOf(tabla);
+            if (cargas.incrementAndGet() == 1) {
+                tabla.add("b");
+                cache.get().invalidar();
+            }
+            return leido;
+        }, Function.identity(), () -> Duration.ofHours(1)));
+
+        assertEquals(List.of("a"), cache.get().obtener().datos()); // la petición en curso recibe lo que leyó
+        assertEquals(List.of("a", "b"), cache.get().obtener().datos()); // la siguiente no reutiliza esa foto
+        assertEquals(2, cargas.get());
+    }
+}
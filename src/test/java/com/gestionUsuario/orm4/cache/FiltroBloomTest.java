@@ -0,0 +1,47 @@
+package com.gestionUsuario.orm4.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FiltroBloomTest {
+
+    @Test
+    public void testSinFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(10000, 0.001);
+        for (int i = 0; i < 10000; i++) {
+            filtro.agregar("token-" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filtro.puedeContener("token-" + i));
+        }
+    }
+
+    @Test
+    public void testFalsosPositivos_CercaDeLaTasaConfigurada() {
+        FiltroBloom filtro = new FiltroBloom(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filtro.agregar("revocado-" + i);
+        }
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filtro.puedeContener("valido-" + i)) {
+                falsosPositivos++;
+            }
+        }
+        // 1 % esperado con el filtro lleno; se deja margen para la variación del hash
+        assertTrue(falsosPositivos < 2000, "falsos positivos: " + falsosPositivos);
+    }
+
+    @Test
+    public void testFiltroVacio_NoContieneNada() {
+        FiltroBloom filtro = new FiltroBloom(100, 0.001);
+        assertFalse(filtro.puedeContener("cualquiera"));
+    }
+
+    @Test
+    public void testParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(100, 1));
+    }
+}
@@ -0,0 +1,158 @@
+package com.gestionUsuario.orm4.cache;
+
+import com.gestionUsuario.orm4.dto.AsignacionRol;
+import com.gestionUsuario.orm4.dto.PermisoRol;
+import com.gestionUsuario.orm4.model.EventoCambio;
+import com.gestionUsuario.orm4.model.EventoCambio.Entidad;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.RolRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import com.gestionUsuario.orm4.service.CambioService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PermisoIndexTest {
+
+    @InjectMocks
+    private PermisoIndex permisoIndex;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private RolRepository rolRepository;
+
+    @Mock
+    private CambioService cambioService;
+
+    private void construir() {
+        // Rol 1 con permiso 10, rol 2 con permiso 20; el usuario 3 está inactivo y el 4 no tiene rol
+        when(rolRepository.findPermisosPorRol()).thenReturn(List.of(new PermisoRol(1, 10), new PermisoRol(2, 20)));
+        when(usuarioRepository.findAsignaciones()).thenReturn(List.of(
+                new AsignacionRol(1, 1, true), new AsignacionRol(2, 2, true),
+                new AsignacionRol(3, 1, false), new AsignacionRol(4, null, true)));
+        permisoIndex.reconstruir();
+    }
+
+    @Test
+    public void testTienePermiso() {
+        construir();
+
+        assertTrue(permisoIndex.listo());
+        assertTrue(permisoIndex.tienePermiso(1, 10));
+        assertFalse(permisoIndex.tienePermiso(1, 20));
+        assertTrue(permisoIndex.tienePermiso(2, 20));
+        assertFalse(permisoIndex.tienePermiso(3, 10), "Un usuario inactivo no tiene permisos");
+        assertFalse(permisoIndex.tienePermiso(4, 10), "Un usuario sin rol no tiene permisos");
+        assertNull(permisoIndex.tienePermiso(99, 10), "Un usuario desconocido no está en el índice");
+    }
+
+    @Test
+    public void testSinConstruir() {
+        assertFalse(permisoIndex.listo());
+        assertThrows(IllegalStateException.class, () -> permisoIndex.tienePermiso(1, 10));
+    }
+
+    @Test
+    public void testActualizacionesIncrementales() {
+        construir();
+        Rol rolEditor = new Rol(5, "Editor", new Permiso(50, "Editar", "Puede editar"));
+
+        permisoIndex.actualizarRol(rolEditor);
+        permisoIndex.actualizarUsuario(new Usuario(1, "Ana", "1-9", "ana@example.com", "pass", null, true, rolEditor));
+        permisoIndex.actualizarUsuario(new Usuario(7, "Nuevo", "7-K", "nuevo@example.com", "pass", null, true, new Rol(2, null, null)));
+        permisoIndex.quitarUsuario(2);
+
+        assertTrue(permisoIndex.tienePermiso(1, 50));
+        assertFalse(permisoIndex.tienePermiso(1, 10));
+        assertTrue(permisoIndex.tienePermiso(7, 20));
+        assertNull(permisoIndex.tienePermiso(2, 20));
+        // Cambiar el permiso de un rol afecta a todos sus usuarios sin tocarlos uno a uno
+        permisoIndex.actualizarRol(new Rol(2, "Usuario", new Permiso(21, "Otro", "")));
+        assertTrue(permisoIndex.tienePermiso(7, 21));
+        assertFalse(permisoIndex.tienePermiso(7, 20));
+    }
+
+    @Test
+    public void testCambioDuranteReconstruccion_NoSePierde() {
+        construir();
+        // Mientras se lee la base, otra petición da de alta un usuario ya confirmado
+        when(usuarioRepository.findAsignaciones()).thenAnswer(invocacion -> {
+            permisoIndex.actualizarUsuario(new Usuario(8, "Tardío", "8-K", "t@example.com", "pass", null, true, new Rol(1, null, null)));
+            return List.of(new AsignacionRol(1, 1, true));
+        });
+
+        permisoIndex.reconstruir();
+
+        assertTrue(permisoIndex.tienePermiso(8, 10));
+        assertNull(permisoIndex.tienePermiso(2, 20)); // lo demás refleja la nueva lectura
+    }
+
+    @Test
+    public void testSeguirCambios_ReleeLoCambiadoEnOtrasInstancias() {
+        when(cambioService.ultimo()).thenReturn(40L);
+        construir();
+        // Otra instancia borró al usuario 2, cambió el permiso del rol 1 y creó al usuario 9
+        when(cambioService.leer(40, 500)).thenReturn(List.of(
+                new EventoCambio(41L, Entidad.USUARIO, "2", Operacion.BORRADO, new Date()),
+                new EventoCambio(42L, Entidad.ROL, "1", Operacion.ACTUALIZADO, new Date()),
+                new EventoCambio(43L, Entidad.USUARIO, "9", Operacion.CREADO, new Date())));
+        when(rolRepository.findPermisosPorRol()).thenReturn(List.of(new PermisoRol(1, 11), new PermisoRol(2, 20)));
+        when(usuarioRepository.findAsignaciones(Set.of(2, 9))).thenReturn(List.of(new AsignacionRol(9, 2, true)));
+
+        permisoIndex.seguirCambios();
+
+        assertNull(permisoIndex.tienePermiso(2, 20));
+        assertTrue(permisoIndex.tienePermiso(9, 20));
+        assertTrue(permisoIndex.tienePermiso(1, 11));
+        assertFalse(permisoIndex.tienePermiso(1, 10));
+        // La pasada siguiente sigue desde el último evento aplicado
+        permisoIndex.seguirCambios();
+        verify(cambioService).leer(43, 500);
+    }
+
+    @Test
+    public void testSeguirCambios_CorrigeActualizacionesLocalesDesordenadas() {
+        construir();
+        // Dos escrituras al usuario 1: la más antigua (rol 1) llega al índice después de la nueva (rol 2)
+        permisoIndex.actualizarUsuario(new Usuario(1, "Ana", "1-9", "ana@example.com", "pass", null, true, new Rol(2, null, null)));
+        permisoIndex.actualizarUsuario(new Usuario(1, "Ana", "1-9", "ana@example.com", "pass", null, true, new Rol(1, null, null)));
+        assertTrue(permisoIndex.tienePermiso(1, 10));
+        when(cambioService.leer(0, 500)).thenReturn(List.of());
+        when(usuarioRepository.findAsignaciones(Set.of(1))).thenReturn(List.of(new AsignacionRol(1, 2, true)));
+
+        permisoIndex.seguirCambios();
+
+        assertTrue(permisoIndex.tienePermiso(1, 20), "Queda lo que dice la base");
+        assertFalse(permisoIndex.tienePermiso(1, 10));
+        // Ya revisado: la pasada siguiente no vuelve a leerlo
+        permisoIndex.seguirCambios();
+        verify(usuarioRepository, times(1)).findAsignaciones(anyCollection());
+    }
+
+    @Test
+    public void testSeguirCambios_SinConstruir_NoHaceNada() {
+        permisoIndex.seguirCambios();
+        verifyNoInteractions(cambioService, usuarioRepository, rolRepository);
+    }
+
+    @Test
+    public void testIdPermisoNegativo() {
+        construir();
+        assertFalse(permisoIndex.tienePermiso(1, -1));
+    }
+}
@@ -0,0 +1,126 @@
+package com.gestionUsuario.orm4.cache;
+
+import com.gestionUsuario.orm4.model.Sesion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SesionTokenCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private SesionTokenCache cache;
+    private AtomicInteger consultas; // cuenta las idas a la "base de datos"
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new SesionTokenCache(1000, Duration.ofHours(1), Duration.ofSeconds(30), registry);
+        consultas = new AtomicInteger();
+    }
+
+    private Optional<Date> cargar(Date expiracion) {
+        consultas.incrementAndGet();
+        return Optional.ofNullable(expiracion);
+    }
+
+    @Test
+    public void testSesionExpirada_NoSeSirveDesdeCache() {
+        // Una sesión ya expirada existe en la tabla, pero su entrada expira de inmediato
+        Date pasado = new Date(System.currentTimeMillis() - 1000);
+
+        assertTrue(cache.existe("expirado", t -> cargar(pasado)));
+        assertTrue(cache.existe("expirado", t -> cargar(pasado)));
+
+        assertEquals(2, consultas.get(), "Cada validación de una sesión expirada debería volver a la base de datos.");
+    }
+
+    @Test
+    public void testExpiracion_DevuelveLaGuardada() {
+        // La expiración se guarda al cargar y se devuelve tal cual en los aciertos
+        Date futuro = new Date(System.currentTimeMillis() + 3600 * 1000);
+
+        assertEquals(futuro.getTime(), cache.expiracion("token", t -> cargar(futuro)));
+        assertEquals(futuro.getTime(), cache.expiracion("token", t -> cargar(null)));
+        assertEquals(Long.MIN_VALUE, cache.expiracion("desconocido", t -> cargar(null)));
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    public void testTtlNegativo_Expira() throws InterruptedException {
+        // Con un TTL negativo mínimo, un token desconocido vuelve a consultarse al vencer
+        cache = new SesionTokenCache(1000, Duration.ofHours(1), Duration.ofMillis(1), registry);
+
+        assertFalse(cache.existe("desconocido", t -> cargar(null)));
+        Thread.sleep(5);
+        assertFalse(cache.existe("desconocido", t -> cargar(null)));
+
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    public void testTtlPositivo_Acotado() throws InterruptedException {
+        // Aunque la sesión dure una hora, la entrada vence con el TTL positivo: un logout hecho en
+        // otra instancia (fila borrada) se ve aquí al volver a consultar
+        cache = new SesionTokenCache(1000, Duration.ofMillis(1), Duration.ofSeconds(30), registry);
+        Date futuro = new Date(System.currentTimeMillis() + 3600 * 1000);
+
+        assertTrue(cache.existe("token", t -> cargar(futuro)));
+        Thread.sleep(5);
+        assertFalse(cache.existe("token", t -> cargar(null)));
+
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    public void testInvalidarDuranteLaCarga_NoSeDeshace() {
+        // El logout confirma e invalida mientras otra petición aún está leyendo la fila
+        Date futuro = new Date(System.currentTimeMillis() + 3600 * 1000);
+
+        assertTrue(cache.existe("token", t -> {
+            cache.invalidar(t);
+            return cargar(futuro);
+        }));
+
+        // La lectura vieja no queda guardada: la siguiente validación vuelve a la base
+        assertFalse(cache.existe("token", t -> cargar(null)));
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    public void testInvalidar() {
+        Date futuro = new Date(System.currentTimeMillis() + 3600 * 1000);
+        cache.registrar(new Sesion("token", futuro));
+        assertTrue(cache.existe("token", t -> cargar(null)));
+
+        cache.invalidar("token");
+
+        assertFalse(cache.existe("token", t -> cargar(null)));
+        assertEquals(1, consultas.get());
+    }
+
+    @Test
+    public void testTokenNulo() {
+        assertFalse(cache.existe(null, t -> cargar(new Date())));
+        assertEquals(0, consultas.get());
+    }
+
+    @Test
+    public void testMetricas() {
+        Date futuro = new Date(System.currentTimeMillis() + 3600 * 1000);
+        cache.existe("token", t -> cargar(futuro)); // fallo
+        cache.existe("token", t -> cargar(futuro)); // acierto
+
+        // Aciertos, fallos y latencia quedan registrados para dimensionar la caché
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", SesionTokenCache.NOMBRE).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", SesionTokenCache.NOMBRE).tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get(SesionTokenCache.NOMBRE + ".validacion").tag("resultado", "acierto").timer().count());
+        assertEquals(1, registry.get(SesionTokenCache.NOMBRE + ".validacion").tag("resultado", "fallo").timer().count());
+    }
+}
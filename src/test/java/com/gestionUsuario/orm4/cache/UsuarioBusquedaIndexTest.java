@@ -0,0 +1,165 @@
+package com.gestionUsuario.orm4.cache;
+
+import com.gestionUsuario.orm4.dto.ResultadoBusqueda;
+import com.gestionUsuario.orm4.dto.UsuarioBuscable;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UsuarioBusquedaIndexTest {
+
+    @InjectMocks
+    private UsuarioBusquedaIndex indice;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    private void construir() {
+        indice.cargar(List.of(
+                new UsuarioBuscable(1, "María José Pérez", "12.345.678-5", "mjperez@example.com"),
+                new UsuarioBuscable(2, "Mariana Soto", "9.876.543-2", "msoto@example.com"),
+                new UsuarioBuscable(3, "Mario Rojas", "11.111.111-1", "mario.rojas@hospital.cl"),
+                new UsuarioBuscable(4, "Juan Marín", "22.222.222-2", "jmarin@example.com"),
+                new UsuarioBuscable(5, "Pedro Pérez", "7.654.321-K", "pperez@example.com")));
+    }
+
+    private List<Integer> ids(List<ResultadoBusqueda> resultados) {
+        return resultados.stream().map(ResultadoBusqueda::idUsuario).toList();
+    }
+
+    @Test
+    public void testExactoAntesQuePrefijo() {
+        construir();
+
+        List<ResultadoBusqueda> resultados = indice.buscar("maria", 10);
+
+        // "maria" (sin tilde) es exacto para María; prefijo para Mariana; a un error de Mario y Marín
+        assertEquals(1, resultados.get(0).idUsuario());
+        assertEquals(2, resultados.get(1).idUsuario());
+        assertTrue(resultados.get(0).puntaje() > resultados.get(1).puntaje());
+        assertTrue(ids(resultados).containsAll(List.of(3, 4)));
+    }
+
+    @Test
+    public void testVariasPalabras_TodasDebenCoincidir() {
+        construir();
+
+        assertEquals(List.of(1), ids(indice.buscar("maria perez", 10)));
+        assertEquals(List.of(5), ids(indice.buscar("perez pedro", 10)));
+    }
+
+    @Test
+    public void testRutConOSinPuntos() {
+        construir();
+
+        assertEquals(List.of(1), ids(indice.buscar("12.345.678-5", 10)));
+        assertEquals(List.of(1), ids(indice.buscar("123456785", 10)));
+        assertEquals(List.of(5), ids(indice.buscar("7654321k", 10)));
+        // Subcadena del RUT
+        assertEquals(List.of(1), ids(indice.buscar("45678", 10)));
+    }
+
+    @Test
+    public void testEmailPorPrefijoYSubcadena() {
+        construir();
+
+        assertEquals(List.of(3), ids(indice.buscar("mario.rojas@", 10)));
+        assertEquals(List.of(3), ids(indice.buscar("hospital", 10)));
+    }
+
+    @Test
+    public void testErroresDeTipeo() {
+        construir();
+
+        // Una letra cambiada, faltante o sobrante
+        assertEquals(List.of(2), ids(indice.buscar("Marana", 10)));
+        assertEquals(List.of(2), ids(indice.buscar("Sotto", 10)));
+        assertEquals(List.of(3), ids(indice.buscar("Rojaz", 10)));
+        // Sin coincidencia suficiente no hay resultados
+        assertTrue(indice.buscar("Gonzalez", 10).isEmpty());
+    }
+
+    @Test
+    public void testLimite() {
+        construir();
+
+        assertEquals(2, indice.buscar("mar", 2).size());
+    }
+
+    @Test
+    public void testCambiosIncrementales() {
+        construir();
+
+        // Alta, modificación y baja después de construir la instantánea
+        indice.actualizarUsuario(new Usuario(6, "Ximena Vidal", "33.333.333-3", "xvidal@example.com", "x", null, true, null));
+        indice.actualizarUsuario(new Usuario(2, "Mariana Fuentes", "9.876.543-2", "mfuentes@example.com", "x", null, true, null));
+        indice.quitarUsuario(3);
+
+        assertEquals(List.of(6), ids(indice.buscar("ximena", 10)));
+        assertEquals(List.of(2), ids(indice.buscar("fuentes", 10)));
+        assertTrue(indice.buscar("soto", 10).isEmpty(), "La versión anterior del usuario 2 ya no se encuentra");
+        assertFalse(ids(indice.buscar("mario", 10)).contains(3), "El usuario borrado ya no se encuentra");
+    }
+
+    @Test
+    public void testPodaIgualQueRecorrerTodos() {
+        // Los cambios se puntúan uno por uno; la instantánea corta la búsqueda en cuanto puede.
+        // Con los mismos usuarios, ambos caminos deben dar los mismos resultados
+        String[] nombres = { "María", "José", "Juan", "Ana", "Mariana", "Mario" };
+        String[] apellidos = { "Pérez", "Soto", "Rojas", "González", "Gonzales", "Sotomayor", "Marín" };
+        List<UsuarioBuscable> usuarios = new java.util.ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            String nombre = nombres[i % nombres.length] + " " + apellidos[i % apellidos.length] + " "
+                    + apellidos[(i / 7) % apellidos.length];
+            usuarios.add(new UsuarioBuscable(i, nombre, (1000000 + i) + "-" + (i % 10), "u" + i + "@example.com"));
+        }
+        indice.cargar(usuarios);
+        UsuarioBusquedaIndex recorrido = new UsuarioBusquedaIndex();
+        recorrido.cargar(List.of());
+        for (UsuarioBuscable u : usuarios) {
+            recorrido.actualizarUsuario(new Usuario(u.idUsuario(), u.nombre(), u.rutUsuario(), u.email(), "x", null, true, null));
+        }
+
+        for (String consulta : List.of("maria", "mar", "soto", "jose perez soto", "gonzalez", "ana m", "sotomayr", "u12", "10002")) {
+            assertEquals(recorrido.buscar(consulta, 15), indice.buscar(consulta, 15), consulta);
+        }
+    }
+
+    @Test
+    public void testReconstruir_PorPaginas() {
+        when(usuarioRepository.findBuscables(eq(0), any(Limit.class)))
+                .thenReturn(List.of(new UsuarioBuscable(1, "Ana Soto", "1-9", "ana@example.com")));
+
+        indice.reconstruir();
+
+        assertTrue(indice.listo());
+        assertEquals(List.of(1), ids(indice.buscar("ana", 10)));
+    }
+
+    @Test
+    public void testSinConstruir() {
+        assertFalse(indice.listo());
+        assertThrows(IllegalStateException.class, () -> indice.buscar("ana", 10));
+    }
+
+    @Test
+    public void testLevenshtein() {
+        assertEquals(0, UsuarioBusquedaIndex.levenshtein("maria", "maria", 2));
+        assertEquals(1, UsuarioBusquedaIndex.levenshtein("maria", "mario", 2));
+        assertEquals(2, UsuarioBusquedaIndex.levenshtein("maria", "mraia", 2));
+        assertEquals(3, UsuarioBusquedaIndex.levenshtein("maria", "pedro", 2), "Supera la máxima: devuelve máxima + 1");
+    }
+}
@@ -0,0 +1,158 @@
+package com.gestionUsuario.orm4.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+public class ConsultasLentasDataSourceTest {
+
+    private final DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:lentas;DB_CLOSE_DELAY=-1", "sa", "");
+    private final Logger logger = (Logger) LoggerFactory.getLogger("sql.lenta");
+    private final ListAppender<ILoggingEvent> eventos = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        eventos.start();
+        logger.addAppender(eventos);
+        try (Connection conexion = h2.getConnection(); Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("create table if not exists prueba (id int, texto varchar(300))");
+            sentencia.execute("create table if not exists sesion (token varchar(100), expiracion timestamp)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(eventos);
+    }
+
+    private Map<String, Object> campos(ILoggingEvent evento) {
+        return evento.getKeyValuePairs().stream().collect(Collectors.toMap(par -> par.key, par -> par.value));
+    }
+
+    @Test
+    void testConsultaLenta_RegistraSqlValoresYDuracion() throws Exception {
+        ConsultasLentasDataSource dataSource = new ConsultasLentasDataSource(h2, Duration.ZERO, 1.0, true);
+        String largo = "x".repeat(250);
+
+        try (Connection conexion = dataSource.getConnection();
+                PreparedStatement sentencia = conexion.prepareStatement("select count(*) from prueba where id = ? or texto = ?")) {
+            sentencia.setInt(1, 7);
+            sentencia.setString(2, largo);
+            sentencia.executeQuery().close();
+        }
+
+        assertEquals(1, dataSource.getLentas());
+        assertEquals(1, eventos.list.size());
+        Map<String, Object> campos = campos(eventos.list.get(0));
+        assertEquals("select count(*) from prueba where id = ? or texto = ?", campos.get("sql"));
+        assertEquals(List.of(7, "x".repeat(100) + "..."), campos.get("parametros"));
+        assertTrue(campos.get("duracionMs") instanceof Long);
+    }
+
+    @Test
+    void testConsultaLenta_LoteYStatementSinPreparar() throws Exception {
+        ConsultasLentasDataSource dataSource = new ConsultasLentasDataSource(h2, Duration.ZERO, 1.0, true);
+
+        try (Connection conexion = dataSource.getConnection()) {
+            try (PreparedStatement sentencia = conexion.prepareStatement("insert into prueba (id, texto) values (?, ?)")) {
+                for (int i = 0; i < 3; i++) {
+                    sentencia.setInt(1, i);
+                    sentencia.setString(2, "fila " + i);
+                    sentencia.addBatch();
+                }
+                sentencia.executeBatch();
+            }
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("delete from prueba");
+            }
+        }
+
+        assertEquals(2, eventos.list.size());
+        assertEquals(3, campos(eventos.list.get(0)).get("filasLote"));
+        assertEquals("delete from prueba", campos(eventos.list.get(1)).get("sql"));
+    }
+
+    @Test
+    void testConsultaRapida_NoSeRegistra() throws Exception {
+        ConsultasLentasDataSource dataSource = new ConsultasLentasDataSource(h2, Duration.ofMinutes(1), 1.0, true);
+
+        try (Connection conexion = dataSource.getConnection();
+                PreparedStatement sentencia = conexion.prepareStatement("select count(*) from prueba")) {
+            sentencia.executeQuery().close();
+        }
+
+        assertEquals(0, dataSource.getLentas());
+        assertTrue(eventos.list.isEmpty());
+    }
+
+    @Test
+    void testMuestraCero_CuentaSinRegistrar() throws Exception {
+        ConsultasLentasDataSource dataSource = new ConsultasLentasDataSource(h2, Duration.ZERO, 0.0, true);
+
+        try (Connection conexion = dataSource.getConnection();
+                PreparedStatement sentencia = conexion.prepareStatement("select count(*) from prueba")) {
+            sentencia.executeQuery().close();
+            sentencia.executeQuery().close();
+        }
+
+        assertEquals(2, dataSource.getLentas());
+        assertTrue(eventos.list.isEmpty());
+    }
+
+    @Test
+    void testSinValores_OmiteParametros() throws Exception {
+        ConsultasLentasDataSource dataSource = new ConsultasLentasDataSource(h2, Duration.ZERO, 1.0, false);
+
+        try (Connection conexion = dataSource.getConnection();
+                PreparedStatement sentencia = conexion.prepareStatement("select count(*) from prueba where texto = ?")) {
+            sentencia.setString(1, "$2a$10$hash");
+            sentencia.executeQuery().close();
+        }
+
+        assertEquals("omitidos", campos(eventos.list.get(0)).get("parametros"));
+    }
+
+    @Test
+    void testTokenDeSesion_NoSeRegistra() throws Exception {
+        // Aun con valores=true, lo que va a la tabla sesion no queda en el registro
+        ConsultasLentasDataSource dataSource = new ConsultasLentasDataSource(h2, Duration.ZERO, 1.0, true);
+        String token = "token-secreto-123";
+
+        try (Connection conexion = dataSource.getConnection()) {
+            try (PreparedStatement sentencia = conexion.prepareStatement("insert into sesion (token, expiracion) values (?, ?)")) {
+                sentencia.setString(1, token);
+                sentencia.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+                sentencia.executeUpdate();
+            }
+            try (PreparedStatement sentencia = conexion.prepareStatement("select s.expiracion from sesion s where s.token = ?")) {
+                sentencia.setString(1, token);
+                sentencia.executeQuery().close();
+            }
+        }
+
+        assertEquals(2, eventos.list.size());
+        for (ILoggingEvent evento : eventos.list) {
+            assertEquals("ocultos", campos(evento).get("parametros"));
+            assertFalse(evento.getFormattedMessage().contains(token));
+        }
+    }
+}
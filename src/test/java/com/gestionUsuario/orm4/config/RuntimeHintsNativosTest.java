@@ -0,0 +1,33 @@
+package com.gestionUsuario.orm4.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.PreparedStatement;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.gestionUsuario.orm4.dto.UsuarioBuscable;
+import com.gestionUsuario.orm4.model.EventoCambio;
+import com.gestionUsuario.orm4.model.Usuario;
+
+public class RuntimeHintsNativosTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void testHints_EntidadesProyeccionesYSwaggerUi() throws Exception {
+        new RuntimeHintsNativos().registerHints(hints, getClass().getClassLoader());
+
+        // Getters de Lombok para Jackson, también en tipos anidados (el enum de EventoCambio)
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Usuario.class.getMethod("getNombre")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(EventoCambio.Entidad.class).test(hints));
+        // Constructor del "select new" de JPQL
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onConstructor(UsuarioBuscable.class.getDeclaredConstructors()[0]).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("META-INF/resources/webjars/swagger-ui/5.17.14/index.html").test(hints));
+        // Proxies de las sentencias para el registro de consultas lentas
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(PreparedStatement.class).test(hints));
+    }
+}
@@ -0,0 +1,42 @@
+package com.gestionUsuario.orm4.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class SecuenciaUsuarioTest {
+
+    // Una base con usuarios creados con AUTO_INCREMENT a la que ddl-auto=update agregó usuario_seq partiendo de 1
+    private JdbcTemplate base(String nombre, long nextVal) {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1;MODE=MySQL", "sa", ""));
+        jdbc.execute("create table usuario (id_usuario int primary key)");
+        jdbc.update("insert into usuario (id_usuario) values (7), (120)");
+        jdbc.execute("create table usuario_seq (next_val bigint)");
+        jdbc.update("insert into usuario_seq (next_val) values (?)", nextVal);
+        return jdbc;
+    }
+
+    @Test
+    public void testAlinear_AdelantaPorEncimaDelMayorId() {
+        JdbcTemplate jdbc = base("secuencia_atrasada", 1);
+
+        assertEquals(1, SecuenciaUsuario.alinear(jdbc));
+
+        // Hibernate reserva (next_val - 50, next_val]: el primer id nuevo es mayor que 120
+        long siguiente = jdbc.queryForObject("select next_val from usuario_seq", Long.class);
+        assertTrue(siguiente - 50 > 120);
+        assertEquals(0, SecuenciaUsuario.alinear(jdbc), "Al volver a arrancar ya no hay nada que hacer");
+    }
+
+    @Test
+    public void testAlinear_NoRetrocede() {
+        JdbcTemplate jdbc = base("secuencia_adelantada", 1000);
+
+        assertEquals(0, SecuenciaUsuario.alinear(jdbc));
+        assertEquals(1000L, jdbc.queryForObject("select next_val from usuario_seq", Long.class));
+    }
+}
@@ -0,0 +1,48 @@
+package com.gestionUsuario.orm4.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+// springdoc no se inicializa al arrancar, sino con la primera petición a la documentación
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext // el contexto queda con la documentación ya creada
+public class SwaggerConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    private boolean documentacionCreada() {
+        return Arrays.stream(beanFactory.getSingletonNames())
+                .anyMatch(nombre -> nombre.equals("openApiResource") || nombre.equals("customOpenAPI"));
+    }
+
+    @Test
+    void testDocumentacion_SeCreaConLaPrimeraPeticion() throws Exception {
+        assertFalse(documentacionCreada());
+
+        mockMvc.perform(get("/v3/api-docs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.info.title").value("API 2026 Gestion Usuarios"));
+
+        assertTrue(documentacionCreada());
+        mockMvc.perform(get("/swagger-ui/index.html"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,92 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.PermisoRepository;
+import com.gestionUsuario.orm4.repository.RolRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import com.gestionUsuario.orm4.service.PermisoService;
+import com.gestionUsuario.orm4.service.RolService;
+import com.gestionUsuario.orm4.service.UsuarioService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+// La verificación de permisos se responde desde el índice en memoria, sin consultas SQL
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AutorizacionConsultasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private RolService rolService;
+
+    @Autowired
+    private PermisoService permisoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+        permisoRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testTienePermiso_SinConsultasYConCambios() throws Exception {
+        // Las escrituras pasan por los servicios, que mantienen el índice al día
+        Permiso leer = permisoService.save(new Permiso(0, "Leer", "Sólo lectura."));
+        Permiso editar = permisoService.save(new Permiso(0, "Editar", "Lectura y escritura."));
+        Rol lector = rolService.save(new Rol(0, "Lector", leer));
+        Rol editor = rolService.save(new Rol(0, "Editor", editar));
+        Usuario usuario = usuarioService.save(new Usuario(0, "Ana", "1-9", "ana@example.com", "pass", null, true, lector));
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{idPermiso}", usuario.getIdUsuario(), leer.getIdPermiso()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.concedido").value(true));
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{idPermiso}", usuario.getIdUsuario(), editar.getIdPermiso()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.concedido").value(false));
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+
+        // Cambiar el rol del usuario se refleja de inmediato
+        usuario.setRol(editor);
+        usuarioService.update(usuario);
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{idPermiso}", usuario.getIdUsuario(), editar.getIdPermiso()))
+                .andExpect(jsonPath("$.concedido").value(true));
+
+        // Y un usuario borrado deja de existir para el índice
+        usuarioService.deleteById(usuario.getIdUsuario());
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{idPermiso}", usuario.getIdUsuario(), editar.getIdPermiso()))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,114 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.hamcrest.Matchers.*;
+
+import com.gestionUsuario.orm4.cache.PermisoIndex;
+import com.gestionUsuario.orm4.dto.VerificacionPermiso;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.List;
+
+@WebMvcTest(AutorizacionController.class)
+public class AutorizacionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PermisoIndex permisoIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testTienePermiso_Concedido() throws Exception {
+        when(permisoIndex.listo()).thenReturn(true);
+        when(permisoIndex.tienePermiso(1, 10)).thenReturn(true);
+
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{idPermiso}", 1, 10))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.idUsuario").value(1))
+                .andExpect(jsonPath("$.idPermiso").value(10))
+                .andExpect(jsonPath("$.concedido").value(true));
+    }
+
+    @Test
+    public void testTienePermiso_Denegado() throws Exception {
+        when(permisoIndex.listo()).thenReturn(true);
+        when(permisoIndex.tienePermiso(1, 20)).thenReturn(false);
+
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{idPermiso}", 1, 20))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.concedido").value(false));
+    }
+
+    @Test
+    public void testTienePermiso_UsuarioNoExiste() throws Exception {
+        when(permisoIndex.listo()).thenReturn(true);
+        when(permisoIndex.tienePermiso(99, 10)).thenReturn(null);
+
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{idPermiso}", 99, 10))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testTienePermiso_IndiceNoListo() throws Exception {
+        when(permisoIndex.listo()).thenReturn(false);
+
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{idPermiso}", 1, 10))
+                .andExpect(status().isServiceUnavailable());
+        verify(permisoIndex, never()).tienePermiso(anyInt(), anyInt());
+    }
+
+    @Test
+    public void testTienePermisos_Lote() throws Exception {
+        when(permisoIndex.listo()).thenReturn(true);
+        when(permisoIndex.tienePermiso(1, 10)).thenReturn(true);
+        when(permisoIndex.tienePermiso(2, 10)).thenReturn(false);
+        when(permisoIndex.tienePermiso(99, 10)).thenReturn(null);
+        List<VerificacionPermiso> consultas = List.of(new VerificacionPermiso(1, 10, false),
+                new VerificacionPermiso(2, 10, false), new VerificacionPermiso(99, 10, true));
+
+        mockMvc.perform(post("/api/usuario/permisos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(consultas)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].concedido").value(true))
+                .andExpect(jsonPath("$[1].concedido").value(false))
+                .andExpect(jsonPath("$[2].concedido").value(false)); // el valor enviado por el cliente se ignora
+    }
+
+    @Test
+    public void testTienePermisos_LoteDemasiadoGrande() throws Exception {
+        List<VerificacionPermiso> consultas = Collections.nCopies(AutorizacionController.MAX_CONSULTAS + 1, new VerificacionPermiso(1, 10, false));
+
+        mockMvc.perform(post("/api/usuario/permisos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(consultas)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(permisoIndex);
+    }
+
+    @Test
+    public void testTienePermisos_ConsultaNula() throws Exception {
+        // Un elemento null en el lote, o el cuerpo null, se rechazan antes de consultar el índice
+        for (String cuerpo : new String[] { "[{\"idUsuario\": 1, \"idPermiso\": 10}, null]", "null" }) {
+            mockMvc.perform(post("/api/usuario/permisos")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(cuerpo))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(permisoIndex);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.hamcrest.Matchers.*;
+
+import com.gestionUsuario.orm4.cache.UsuarioBusquedaIndex;
+import com.gestionUsuario.orm4.dto.ResultadoBusqueda;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+@WebMvcTest(BusquedaController.class)
+public class BusquedaControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UsuarioBusquedaIndex usuarioBusquedaIndex;
+
+    @Test
+    public void testBuscar() throws Exception {
+        when(usuarioBusquedaIndex.listo()).thenReturn(true);
+        when(usuarioBusquedaIndex.buscar("maria", 20)).thenReturn(List.of(
+                new ResultadoBusqueda(1, "María Pérez", "12.345.678-5", "mperez@example.com", 100)));
+
+        mockMvc.perform(get("/api/usuario/search").param("q", "maria"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].idUsuario").value(1))
+                .andExpect(jsonPath("$[0].puntaje").value(100))
+                .andExpect(jsonPath("$[0].contrasena").doesNotExist());
+    }
+
+    @Test
+    public void testBuscar_ParametrosInvalidos() throws Exception {
+        mockMvc.perform(get("/api/usuario/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usuario/search").param("q", "maria").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usuario/search").param("q", "maria").param("limit", "101"))
+                .andExpect(status().isBadRequest());
+
+        verify(usuarioBusquedaIndex, never()).buscar(any(), anyInt());
+    }
+
+    @Test
+    public void testBuscar_IndiceNoListo() throws Exception {
+        when(usuarioBusquedaIndex.listo()).thenReturn(false);
+
+        mockMvc.perform(get("/api/usuario/search").param("q", "maria"))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
@@ -0,0 +1,166 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.PermisoRepository;
+import com.gestionUsuario.orm4.repository.RolRepository;
+import com.gestionUsuario.orm4.repository.SesionRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import com.gestionUsuario.orm4.service.CambioService;
+import com.gestionUsuario.orm4.service.PermisoService;
+import com.gestionUsuario.orm4.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Date;
+
+// GET /api/changes contra la base H2 embebida: los eventos salen de la misma transacción que la escritura
+@SpringBootTest(properties = "cambios.espera=PT1S")
+@AutoConfigureMockMvc
+public class CambioConsultasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CambioService cambioService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private PermisoService permisoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private SesionRepository sesionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long desde;
+
+    @BeforeEach
+    void setUp() {
+        desde = cambioService.ultimo(); // los eventos de otras pruebas quedan antes del cursor
+    }
+
+    @AfterEach
+    void tearDown() {
+        sesionRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+        permisoRepository.deleteAllInBatch();
+    }
+
+    private MvcResult cambios(long since) throws Exception {
+        return mockMvc.perform(get("/api/changes").param("since", String.valueOf(since)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    @Test
+    public void testEscrituras_RegistranEventosEnOrden() throws Exception {
+        Usuario usuario = usuarioService.save(new Usuario(0, "Ana Soto", "1-9", "ana@example.com", "pass", null, true, null));
+        mockMvc.perform(delete("/api/usuarioV2/{id}", usuario.getIdUsuario()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(asyncDispatch(cambios(desde)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].entidad").value("USUARIO"))
+                .andExpect(jsonPath("$[0].idEntidad").value(String.valueOf(usuario.getIdUsuario())))
+                .andExpect(jsonPath("$[0].operacion").value("CREADO"))
+                .andExpect(jsonPath("$[1].operacion").value("BORRADO"));
+    }
+
+    @Test
+    public void testLongPolling_RespondeAlConfirmarUnCambio() throws Exception {
+        // La petición queda abierta sin eventos nuevos...
+        MvcResult pendiente = cambios(desde);
+
+        // ...y se completa con la escritura siguiente
+        permisoService.save(new Permiso(0, "Auditor", "Sólo lectura."));
+
+        mockMvc.perform(asyncDispatch(pendiente))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].entidad").value("PERMISO"))
+                .andExpect(jsonPath("$[0].operacion").value("CREADO"));
+    }
+
+    @Test
+    public void testSinCambios_204AlVencerLaEspera() throws Exception {
+        mockMvc.perform(asyncDispatch(cambios(desde)))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void testEscrituraRechazada_NoRegistraEvento() throws Exception {
+        Sesion sesion = new Sesion("token-cambios", new Date(System.currentTimeMillis() + 3600 * 1000));
+        mockMvc.perform(post("/api/sesion")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sesion)))
+                .andExpect(status().isOk());
+        long despuesDeCrear = cambioService.ultimo();
+
+        // El token repetido viola la PK: la transacción se deshace junto con su evento
+        mockMvc.perform(post("/api/sesion")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sesion)))
+                .andExpect(status().isNotAcceptable());
+
+        assertEquals(despuesDeCrear, cambioService.ultimo());
+        assertEquals(desde + 1, despuesDeCrear);
+    }
+
+    @Test
+    public void testSesion_PublicaElHashDelToken() throws Exception {
+        // El feed no pide autenticación: entrega el SHA-256 del token, no el token
+        Sesion sesion = new Sesion("token-feed", new Date(System.currentTimeMillis() + 3600 * 1000));
+        mockMvc.perform(post("/api/sesion")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sesion)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(asyncDispatch(cambios(desde)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].entidad").value("SESION"))
+                .andExpect(jsonPath("$[0].idEntidad").value(CambioService.claveSesion("token-feed")))
+                .andExpect(content().string(not(containsString("token-feed"))));
+    }
+
+    @Test
+    public void testParametrosInvalidos() throws Exception {
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/changes").param("limit", "0")).andReturn()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/changes").param("since", "-1")).andReturn()))
+                .andExpect(status().isBadRequest());
+    }
+}
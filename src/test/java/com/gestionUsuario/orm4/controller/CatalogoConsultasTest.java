@@ -0,0 +1,116 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.repository.PermisoRepository;
+import com.gestionUsuario.orm4.repository.RolRepository;
+import com.gestionUsuario.orm4.service.PermisoService;
+import com.gestionUsuario.orm4.service.RolService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Los catálogos de roles y permisos se sirven desde memoria y se recargan al escribir
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CatalogoConsultasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RolService rolService;
+
+    @Autowired
+    private PermisoService permisoService;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics estadisticas;
+    private Permiso permisoAdmin;
+
+    @BeforeEach
+    void setUp() {
+        // Se guarda por los servicios para que invaliden su catálogo
+        permisoAdmin = permisoService.save(new Permiso(0, "Administrador", "Acceso completo."));
+        rolService.save(new Rol(0, "Administrador", permisoAdmin));
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        rolRepository.deleteAllInBatch();
+        permisoRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testGetRoles_SegundaLecturaSinConsultas() throws Exception {
+        mockMvc.perform(get("/api/rol")).andExpect(status().isOk());
+        long despuesDeCargar = estadisticas.getPrepareStatementCount();
+
+        mockMvc.perform(get("/api/rol"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].permiso.nombre").value("Administrador"));
+
+        assertEquals(1, despuesDeCargar);
+        assertEquals(despuesDeCargar, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testGetPermisos_EtagDevuelve304() throws Exception {
+        String etag = mockMvc.perform(get("/api/permiso"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/permiso").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    public void testCrearRol_InvalidaCatalogo() throws Exception {
+        String etag = mockMvc.perform(get("/api/rol"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/api/rol")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Rol(0, "Invitado", permisoAdmin))))
+                .andExpect(status().isOk());
+
+        // El ETag anterior ya no vale y la lista incluye el rol nuevo
+        String nuevoEtag = mockMvc.perform(get("/api/rol").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.nombreRol == 'Invitado')]").exists())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, nuevoEtag);
+    }
+}
@@ -0,0 +1,106 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.gestionUsuario.orm4.dto.SolicitudLogin;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.service.UsuarioService;
+
+// El mismo contenido en JSON, CBOR y Smile según Accept; JSON si no se pide otro
+@SpringBootTest
+@AutoConfigureMockMvc
+public class FormatosBinariosTest {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final SmileMapper smileMapper = new SmileMapper();
+
+    private static int creados; // el RUT admite 13 caracteres
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        usuario = usuarioService.save(new Usuario(0, "Ana", "fb-" + (++creados), "ana@example.com", "secreta", null, true, null));
+    }
+
+    private JsonNode json(String ruta) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get(ruta)).andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray());
+    }
+
+    private byte[] binario(String ruta, MediaType formato) throws Exception {
+        return mockMvc.perform(get(ruta).accept(formato)).andExpect(status().isOk())
+                .andExpect(content().contentType(formato))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Test
+    void testGetUsuarios_CborYSmileIgualesAJson() throws Exception {
+        JsonNode json = json("/api/usuario");
+
+        byte[] cbor = binario("/api/usuario", CBOR);
+        byte[] smile = binario("/api/usuario", SMILE);
+
+        assertEquals(json, cborMapper.readTree(cbor));
+        assertEquals(json, smileMapper.readTree(smile));
+        assertTrue(cbor.length < objectMapper.writeValueAsBytes(json).length);
+    }
+
+    @Test
+    void testGetSesionesYUsuario_ComoEnJson() throws Exception {
+        // Sesiones: la expiración va como en JSON (formato de Spring Boot), no como número
+        mockMvc.perform(post("/api/sesion/login").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new SolicitudLogin(usuario.getRutUsuario(), "secreta"))))
+                .andExpect(status().isOk());
+
+        assertEquals(json("/api/sesion"), cborMapper.readTree(binario("/api/sesion", CBOR)));
+        assertEquals(json("/api/usuario/" + usuario.getIdUsuario()),
+                smileMapper.readTree(binario("/api/usuario/" + usuario.getIdUsuario(), SMILE)));
+    }
+
+    @Test
+    void testLogin_CuerpoYRespuestaEnCbor() throws Exception {
+        byte[] cuerpo = cborMapper.writeValueAsBytes(new SolicitudLogin(usuario.getRutUsuario(), "secreta"));
+
+        byte[] respuesta = mockMvc.perform(post("/api/sesion/login").contentType(CBOR).content(cuerpo).accept(CBOR))
+                .andExpect(status().isOk()).andExpect(content().contentType(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(usuario.getIdUsuario(), cborMapper.readTree(respuesta).get("idUsuario").asInt());
+    }
+
+    @Test
+    void testSinAccept_RespondeJson() throws Exception {
+        mockMvc.perform(get("/api/usuario/" + usuario.getIdUsuario()).accept(MediaType.ALL))
+                .andExpect(status().isOk()).andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,126 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.gestionUsuario.orm4.dto.SolicitudLogin;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.SesionRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import com.gestionUsuario.orm4.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Un login correcto es una lectura por índice (RUT o email) más el INSERT de la sesión y el de su evento de cambio
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LoginConsultasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private SesionRepository sesionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics estadisticas;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        // Se guarda por el servicio para que la contraseña quede hasheada con el costo configurado
+        usuario = usuarioService.save(new Usuario(0, "Ana", "11.111.111-1", "ana@example.com", "secreta", null, true, null));
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sesionRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    private String login(String identificador, String contrasena) throws Exception {
+        return objectMapper.writeValueAsString(new SolicitudLogin(identificador, contrasena));
+    }
+
+    @Test
+    public void testLoginPorRut_UnaLecturaYDosInsert() throws Exception {
+        String respuesta = mockMvc.perform(post("/api/sesion/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login("11.111.111-1", "secreta")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.idUsuario").value(usuario.getIdUsuario()))
+                .andReturn().getResponse().getContentAsString();
+
+        // Búsqueda del usuario, INSERT de la sesión y de su evento de cambio
+        assertEquals(3, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getEntityLoadCount());
+        Sesion sesion = objectMapper.readValue(respuesta, Sesion.class);
+        assertTrue(sesionRepository.findById(sesion.getToken()).isPresent());
+    }
+
+    @Test
+    public void testLoginPorEmail_UnaLecturaYDosInsert() throws Exception {
+        mockMvc.perform(post("/api/sesion/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login("ana@example.com", "secreta")))
+                .andExpect(status().isOk());
+
+        assertEquals(3, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testLoginFallido_SoloLaLectura() throws Exception {
+        mockMvc.perform(post("/api/sesion/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login("11.111.111-1", "otra")))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testLogout_UnDeleteYSuEvento() throws Exception {
+        String respuesta = mockMvc.perform(post("/api/sesion/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login("11.111.111-1", "secreta")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readValue(respuesta, Sesion.class).getToken();
+        estadisticas.clear();
+
+        mockMvc.perform(post("/api/sesion/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        // DELETE de la sesión e INSERT de su evento de cambio, sin leer antes la fila
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+        assertTrue(sesionRepository.findById(token).isEmpty());
+        mockMvc.perform(post("/api/sesion/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+}
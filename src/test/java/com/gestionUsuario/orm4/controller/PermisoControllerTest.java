@@ -6,6 +6,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 
+import com.gestionUsuario.orm4.cache.Catalogo;
+import com.gestionUsuario.orm4.cache.Versiones;
 import com.gestionUsuario.orm4.model.Permiso;
 import com.gestionUsuario.orm4.service.PermisoService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -44,34 +47,48 @@ public class PermisoControllerTest {
 
     @Test
     public void testGetPermisos_ListaNoVacia() throws Exception {
-        // Define el comportamiento del mock: cuando se llame a findAll(), devuelve una lista con permisos
-        when(permisoService.findAll()).thenReturn(Arrays.asList(permiso1, permiso2));
+        // Define el comportamiento del mock: cuando se pida el catálogo, devuelve una lista con permisos
+        Catalogo<Permiso> catalogo = Catalogo.of(Arrays.asList(permiso1, permiso2), Versiones::de);
+        when(permisoService.catalogo()).thenReturn(catalogo);
 
         // Realiza una petición GET a /api/permiso y verifica que la respuesta sea correcta
         mockMvc.perform(get("/api/permiso"))
                 .andExpect(status().isOk()) // Verifica que el estado de la respuesta sea 200 OK
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON)) // Verifica el tipo de contenido
+                .andExpect(header().string(HttpHeaders.ETAG, catalogo.etag())) // El ETag identifica la versión del catálogo
                 .andExpect(jsonPath("$", hasSize(2))) // Verifica que la lista contenga 2 elementos
                 .andExpect(jsonPath("$[0].idPermiso").value(permiso1.getIdPermiso()))
                 .andExpect(jsonPath("$[0].nombre").value(permiso1.getNombre()))
                 .andExpect(jsonPath("$[1].idPermiso").value(permiso2.getIdPermiso()))
                 .andExpect(jsonPath("$[1].nombre").value(permiso2.getNombre()));
 
-        // Verifica que el método findAll() del servicio fue llamado exactamente una vez
-        verify(permisoService, times(1)).findAll();
+        // Verifica que el catálogo del servicio fue pedido exactamente una vez
+        verify(permisoService, times(1)).catalogo();
     }
 
     @Test
     public void testGetPermisos_ListaVacia() throws Exception {
-        // Define el comportamiento del mock: cuando se llame a findAll(), devuelve una lista vacía
-        when(permisoService.findAll()).thenReturn(Collections.emptyList());
+        // Define el comportamiento del mock: cuando se pida el catálogo, devuelve una lista vacía
+        when(permisoService.catalogo()).thenReturn(Catalogo.of(Collections.<Permiso>emptyList(), Versiones::de));
 
         // Realiza una petición GET a /api/permiso y verifica que la respuesta sea NO_CONTENT
         mockMvc.perform(get("/api/permiso"))
                 .andExpect(status().isNoContent()); // Verifica que el estado de la respuesta sea 204 No Content
 
-        // Verifica que el método findAll() del servicio fue llamado exactamente una vez
-        verify(permisoService, times(1)).findAll();
+        // Verifica que el catálogo del servicio fue pedido exactamente una vez
+        verify(permisoService, times(1)).catalogo();
+    }
+
+    @Test
+    public void testGetPermisos_NoModificado() throws Exception {
+        // Define el comportamiento del mock: el catálogo no cambió desde la última petición del cliente
+        Catalogo<Permiso> catalogo = Catalogo.of(Arrays.asList(permiso1, permiso2), Versiones::de);
+        when(permisoService.catalogo()).thenReturn(catalogo);
+
+        // Realiza una petición GET condicional con el ETag que el cliente ya tiene
+        mockMvc.perform(get("/api/permiso").header(HttpHeaders.IF_NONE_MATCH, catalogo.etag()))
+                .andExpect(status().isNotModified()) // Verifica que el estado de la respuesta sea 304 Not Modified
+                .andExpect(content().string("")); // Sin cuerpo: el cliente reutiliza su copia
     }
 
     @Test
@@ -80,10 +97,7 @@ public class PermisoControllerTest {
         Permiso newPermiso = new Permiso(0, "Editor", "Permiso para editar contenido."); // ID 0 para simular nuevo
         Permiso savedPermiso = new Permiso(3, "Editor", "Permiso para editar contenido."); // ID asignado después de guardar
 
-        // Define el comportamiento del mock:
-        // 1. Cuando se llame a existsById() con el ID del nuevo permiso, devuelve false (no existe)
-        when(permisoService.existsById(newPermiso.getIdPermiso())).thenReturn(false);
-        // 2. Cuando se llame a save() con cualquier Permiso, devuelve el permiso con el ID asignado
+        // Define el comportamiento del mock: cuando se llame a save() con cualquier Permiso, devuelve el permiso con el ID asignado
         when(permisoService.save(any(Permiso.class))).thenReturn(savedPermiso);
 
         // Realiza una petición POST a /api/permiso con el objeto Permiso en formato JSON
@@ -94,8 +108,8 @@ public class PermisoControllerTest {
                 .andExpect(jsonPath("$.idPermiso").value(savedPermiso.getIdPermiso()))
                 .andExpect(jsonPath("$.nombre").value(savedPermiso.getNombre()));
 
-        // Verifica que existsById() y save() del servicio fueron llamados
-        verify(permisoService, times(1)).existsById(newPermiso.getIdPermiso());
+        // Verifica que save() fue llamado sin una consulta previa de existencia
+        verify(permisoService, never()).existsById(anyInt());
         verify(permisoService, times(1)).save(any(Permiso.class));
     }
 
@@ -104,17 +118,14 @@ public class PermisoControllerTest {
         // Prepara un permiso que ya existe
         Permiso existingPermiso = new Permiso(1, "Administrador", "Acceso completo al sistema.");
 
-        // Define el comportamiento del mock: cuando se llame a existsById() con el ID del permiso, devuelve true (ya existe)
-        when(permisoService.existsById(existingPermiso.getIdPermiso())).thenReturn(true);
-
         // Realiza una petición POST a /api/permiso con el objeto Permiso en formato JSON
         mockMvc.perform(post("/api/permiso")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(existingPermiso)))
                 .andExpect(status().isNotAcceptable()); // Verifica que el estado de la respuesta sea 406 Not Acceptable
 
-        // Verifica que existsById() del servicio fue llamado, pero save() NO fue llamado
-        verify(permisoService, times(1)).existsById(existingPermiso.getIdPermiso());
+        // Un registro que ya trae id se rechaza sin consultar la base de datos
+        verify(permisoService, never()).existsById(anyInt());
         verify(permisoService, never()).save(any(Permiso.class));
     }
 
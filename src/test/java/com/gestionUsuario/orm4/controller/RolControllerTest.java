@@ -6,6 +6,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 
+import com.gestionUsuario.orm4.cache.Catalogo;
+import com.gestionUsuario.orm4.cache.Versiones;
 import com.gestionUsuario.orm4.model.Permiso; // Necesario para crear objetos Rol con Permiso
 import com.gestionUsuario.orm4.model.Rol;
 import com.gestionUsuario.orm4.service.RolService;
@@ -15,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -50,13 +53,15 @@ public class RolControllerTest {
 
     @Test
     public void testGetRoles_ListaNoVacia() throws Exception {
-        // Define el comportamiento del mock: cuando se llame a findAll(), devuelve una lista con roles
-        when(rolService.findAll()).thenReturn(Arrays.asList(rolAdmin, rolUsuario));
+        // Define el comportamiento del mock: cuando se pida el catálogo, devuelve una lista con roles
+        Catalogo<Rol> catalogo = Catalogo.of(Arrays.asList(rolAdmin, rolUsuario), Versiones::de);
+        when(rolService.catalogo()).thenReturn(catalogo);
 
         // Realiza una petición GET a /api/rol y verifica que la respuesta sea correcta
         mockMvc.perform(get("/api/rol"))
                 .andExpect(status().isOk()) // Verifica que el estado de la respuesta sea 200 OK
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON)) // Verifica el tipo de contenido
+                .andExpect(header().string(HttpHeaders.ETAG, catalogo.etag())) // El ETag identifica la versión del catálogo
                 .andExpect(jsonPath("$", hasSize(2))) // Verifica que la lista contenga 2 elementos
                 .andExpect(jsonPath("$[0].idRol").value(rolAdmin.getIdRol()))
                 .andExpect(jsonPath("$[0].nombreRol").value(rolAdmin.getNombreRol()))
@@ -65,21 +70,33 @@ public class RolControllerTest {
                 .andExpect(jsonPath("$[1].nombreRol").value(rolUsuario.getNombreRol()))
                 .andExpect(jsonPath("$[1].permiso.nombre").value(rolUsuario.getPermiso().getNombre()));
 
-        // Verifica que el método findAll() del servicio fue llamado exactamente una vez
-        verify(rolService, times(1)).findAll();
+        // Verifica que el catálogo del servicio fue pedido exactamente una vez
+        verify(rolService, times(1)).catalogo();
     }
 
     @Test
     public void testGetRoles_ListaVacia() throws Exception {
-        // Define el comportamiento del mock: cuando se llame a findAll(), devuelve una lista vacía
-        when(rolService.findAll()).thenReturn(Collections.emptyList());
+        // Define el comportamiento del mock: cuando se pida el catálogo, devuelve una lista vacía
+        when(rolService.catalogo()).thenReturn(Catalogo.of(Collections.<Rol>emptyList(), Versiones::de));
 
         // Realiza una petición GET a /api/rol y verifica que la respuesta sea NO_CONTENT
         mockMvc.perform(get("/api/rol"))
                 .andExpect(status().isNoContent()); // Verifica que el estado de la respuesta sea 204 No Content
 
-        // Verifica que el método findAll() del servicio fue llamado exactamente una vez
-        verify(rolService, times(1)).findAll();
+        // Verifica que el catálogo del servicio fue pedido exactamente una vez
+        verify(rolService, times(1)).catalogo();
+    }
+
+    @Test
+    public void testGetRoles_NoModificado() throws Exception {
+        // Define el comportamiento del mock: el catálogo no cambió desde la última petición del cliente
+        Catalogo<Rol> catalogo = Catalogo.of(Arrays.asList(rolAdmin, rolUsuario), Versiones::de);
+        when(rolService.catalogo()).thenReturn(catalogo);
+
+        // Realiza una petición GET condicional con el ETag que el cliente ya tiene
+        mockMvc.perform(get("/api/rol").header(HttpHeaders.IF_NONE_MATCH, catalogo.etag()))
+                .andExpect(status().isNotModified()) // Verifica que el estado de la respuesta sea 304 Not Modified
+                .andExpect(content().string("")); // Sin cuerpo: el cliente reutiliza su copia
     }
 
     @Test
@@ -89,10 +106,7 @@ public class RolControllerTest {
         Rol newRol = new Rol(0, "Invitado", permisoNuevo); // ID 0 para simular nuevo
         Rol savedRol = new Rol(3, "Invitado", permisoNuevo); // ID asignado después de guardar
 
-        // Define el comportamiento del mock:
-        // 1. Cuando se llame a existsById() con el ID del nuevo rol, devuelve false (no existe)
-        when(rolService.existsById(newRol.getIdRol())).thenReturn(false);
-        // 2. Cuando se llame a save() con cualquier Rol, devuelve el rol con el ID asignado
+        // Define el comportamiento del mock: cuando se llame a save() con cualquier Rol, devuelve el rol con el ID asignado
         when(rolService.save(any(Rol.class))).thenReturn(savedRol);
 
         // Realiza una petición POST a /api/rol con el objeto Rol en formato JSON
@@ -104,8 +118,8 @@ public class RolControllerTest {
                 .andExpect(jsonPath("$.nombreRol").value(savedRol.getNombreRol()))
                 .andExpect(jsonPath("$.permiso.idPermiso").value(savedRol.getPermiso().getIdPermiso()));
 
-        // Verifica que existsById() y save() del servicio fueron llamados
-        verify(rolService, times(1)).existsById(newRol.getIdRol());
+        // Verifica que save() fue llamado sin una consulta previa de existencia
+        verify(rolService, never()).existsById(anyInt());
         verify(rolService, times(1)).save(any(Rol.class));
     }
 
@@ -114,17 +128,14 @@ public class RolControllerTest {
         // Prepara un rol que ya existe
         Rol existingRol = new Rol(1, "Administrador", permisoAdmin);
 
-        // Define el comportamiento del mock: cuando se llame a existsById() con el ID del rol, devuelve true (ya existe)
-        when(rolService.existsById(existingRol.getIdRol())).thenReturn(true);
-
         // Realiza una petición POST a /api/rol con el objeto Rol en formato JSON
         mockMvc.perform(post("/api/rol")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(existingRol)))
                 .andExpect(status().isNotAcceptable()); // Verifica que el estado de la respuesta sea 406 Not Acceptable
 
-        // Verifica que existsById() del servicio fue llamado, pero save() NO fue llamado
-        verify(rolService, times(1)).existsById(existingRol.getIdRol());
+        // Un registro que ya trae id se rechaza sin consultar la base de datos
+        verify(rolService, never()).existsById(anyInt());
         verify(rolService, never()).save(any(Rol.class));
     }
 
@@ -0,0 +1,122 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.gestionUsuario.orm4.dto.SolicitudLogin;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.SesionRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import com.gestionUsuario.orm4.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+
+// Con sesion.modo=firmado validar un token no consulta la base; la tabla sesion sólo guarda los revocados
+@SpringBootTest(properties = { "sesion.modo=firmado",
+        "sesion.firma.clave=AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=" }) // 32 bytes: 0, 1, ..., 31
+@AutoConfigureMockMvc
+public class SesionFirmadaConsultasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private SesionRepository sesionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        usuarioService.save(new Usuario(0, "Ana", "11.111.111-1", "ana@example.com", "secreta", null, true, null));
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sesionRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    private String login() throws Exception {
+        String respuesta = mockMvc.perform(post("/api/sesion/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new SolicitudLogin("11.111.111-1", "secreta"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(respuesta, Sesion.class).getToken();
+    }
+
+    @Test
+    public void testLogin_SinInsert() throws Exception {
+        login();
+
+        assertEquals(1, estadisticas.getPrepareStatementCount()); // sólo la búsqueda del usuario
+        assertEquals(0, sesionRepository.count());
+    }
+
+    @Test
+    public void testValidar_SinConsultas() throws Exception {
+        String token = login();
+        estadisticas.clear();
+
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(get("/api/sesion/validar").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isNoContent());
+        }
+
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testLogout_RevocaElToken() throws Exception {
+        String token = login();
+
+        mockMvc.perform(post("/api/sesion/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/sesion/validar").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        assertEquals(1, sesionRepository.count());
+    }
+
+    @Test
+    public void testCrearSesion_Rechazada() throws Exception {
+        // Una fila en la tabla sería un token revocado, no una sesión
+        mockMvc.perform(post("/api/sesion")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Sesion("token-directo", new Date(System.currentTimeMillis() + 3600 * 1000)))))
+                .andExpect(status().isMethodNotAllowed())
+                .andExpect(header().string("Allow", "GET"));
+
+        assertEquals(0, sesionRepository.count());
+    }
+}
@@ -0,0 +1,445 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.gestionUsuario.orm4.cache.UsuarioBusquedaIndex;
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.repository.PermisoRepository;
+import com.gestionUsuario.orm4.repository.RolRepository;
+import com.gestionUsuario.orm4.repository.SesionRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+
+// Cuenta las sentencias SQL de cada endpoint de lectura contra una base H2 embebida
+@SpringBootTest
+@AutoConfigureMockMvc
+public class UsuarioConsultasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private SesionRepository sesionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UsuarioBusquedaIndex usuarioBusquedaIndex;
+
+    private Statistics estadisticas;
+    private int idUsuario;
+    private Rol rolAdmin;
+
+    @BeforeEach
+    void setUp() {
+        // Dos roles con permisos distintos y varios usuarios repartidos entre ellos
+        Permiso permisoAdmin = permisoRepository.save(new Permiso(0, "Administrador", "Acceso completo."));
+        Permiso permisoUsuario = permisoRepository.save(new Permiso(0, "Usuario", "Acceso limitado."));
+        rolAdmin = rolRepository.save(new Rol(0, "Administrador", permisoAdmin));
+        Rol rolUsuario = rolRepository.save(new Rol(0, "Usuario Registrado", permisoUsuario));
+
+        for (int i = 1; i <= 4; i++) {
+            Rol rol = i % 2 == 0 ? rolAdmin : rolUsuario;
+            Usuario usuario = usuarioRepository.save(new Usuario(0, "Usuario " + i, i + "-K", "u" + i + "@example.com", "pass", "90000000" + i, true, rol));
+            idUsuario = usuario.getIdUsuario();
+        }
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sesionRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+        permisoRepository.deleteAllInBatch();
+    }
+
+    // El JSON de un usuario no lleva la contraseña (sólo se escribe): el cuerpo de un alta o un PUT la agrega
+    private String cuerpo(Usuario usuario) {
+        ObjectNode json = objectMapper.valueToTree(usuario);
+        return json.put("contrasena", usuario.getContrasena()).toString();
+    }
+
+    @Test
+    public void testGetUsuarios_UnaConsulta() throws Exception {
+        mockMvc.perform(get("/api/usuario"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].rol.permiso.nombre").exists());
+
+        // Usuarios, roles y permisos llegan en un único SELECT con JOIN
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testGetUsuarioById_UnaConsulta() throws Exception {
+        mockMvc.perform(get("/api/usuario/{id}", idUsuario))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rol.permiso.nombre").exists());
+
+        // findById con su grafo de carga, sin consulta previa de existencia
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testGetUsuarioById_NoExiste_UnaConsulta() throws Exception {
+        mockMvc.perform(get("/api/usuario/{id}", idUsuario + 100))
+                .andExpect(status().isNotFound());
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testActualizarUsuarioV2_UnaSentencia() throws Exception {
+        Usuario cambios = new Usuario(0, "Nombre Nuevo", "9-K", "nuevo@example.com", "pass", "900000009", false, rolAdmin);
+
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(cambios)))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string("")); // el cuerpo recibido no es el recurso guardado
+
+        // Un único UPDATE, sin SELECT previo ni merge, más el INSERT de su evento de cambio
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+        Usuario guardado = usuarioRepository.findById(idUsuario).orElseThrow();
+        assertEquals("Nombre Nuevo", guardado.getNombre());
+        assertEquals(rolAdmin.getIdRol(), guardado.getRol().getIdRol());
+    }
+
+    @Test
+    public void testGetUsuarioById_EtagDevuelve304() throws Exception {
+        String etag = mockMvc.perform(get("/api/usuario/{id}", idUsuario))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // La misma versión responde 304 sin cuerpo, también en V2
+        mockMvc.perform(get("/api/usuario/{id}", idUsuario).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/usuarioV2/{id}", idUsuario).accept(MediaTypes.HAL_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    public void testActualizarUsuarioV2_IfMatch_UnaSentencia() throws Exception {
+        String etag = mockMvc.perform(get("/api/usuario/{id}", idUsuario))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Usuario cambios = new Usuario(0, "Nombre Nuevo", "9-K", "nuevo@example.com", "pass", "900000009", false, rolAdmin);
+        estadisticas.clear();
+
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(cambios)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        // La versión se compara en el mismo UPDATE (más el evento de cambio)
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+        assertEquals(1, usuarioRepository.findById(idUsuario).orElseThrow().getVersion());
+
+        // El ETag anterior ya no corresponde: ni 304 ni una segunda escritura con él
+        mockMvc.perform(get("/api/usuario/{id}", idUsuario).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(cambios)))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Nombre Nuevo", usuarioRepository.findById(idUsuario).orElseThrow().getNombre());
+    }
+
+    @Test
+    public void testActualizarUsuarioV2_IfMatch_NoExiste() throws Exception {
+        Usuario cambios = new Usuario(0, "Nombre Nuevo", "9-K", "nuevo@example.com", "pass", "900000009", false, rolAdmin);
+
+        // Sin usuario no hay versión que coincida
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario + 100)
+                        .header(HttpHeaders.IF_MATCH, "\"0.0.0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(cambios)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testIfMatchAsterisco_ExigeQueExista() throws Exception {
+        Usuario cambios = new Usuario(0, "Nombre Nuevo", "9-K", "nuevo@example.com", "pass", "900000009", false, rolAdmin);
+
+        // "*" se cumple con cualquier versión del usuario, pero no sin usuario
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario)
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(cambios)))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario)
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"activo\": true}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario + 100)
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(cambios)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario + 100)
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"activo\": true}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testActualizarUsuarioV2_SinContrasena_ConservaLaGuardada() throws Exception {
+        String hash = usuarioRepository.findById(idUsuario).orElseThrow().getContrasena();
+        // El GET no entrega la contraseña: un PUT armado a partir de él no la trae
+        mockMvc.perform(get("/api/usuario/{id}", idUsuario))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contrasena").doesNotExist());
+        Usuario cambios = new Usuario(0, "Nombre Nuevo", "9-K", "nuevo@example.com", null, null, true, rolAdmin);
+
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cambios)))
+                .andExpect(status().isNoContent());
+
+        Usuario guardado = usuarioRepository.findById(idUsuario).orElseThrow();
+        assertEquals("Nombre Nuevo", guardado.getNombre());
+        assertEquals(hash, guardado.getContrasena());
+    }
+
+    @Test
+    public void testActualizarUsuario_CambiaElEtag() throws Exception {
+        String antes = mockMvc.perform(get("/api/usuario/{id}", idUsuario))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // También sin If-Match la escritura aumenta la versión
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(new Usuario(0, "Otro", "9-K", "otro@example.com", "pass", null, true, rolAdmin))))
+                .andExpect(status().isNoContent());
+
+        String despues = mockMvc.perform(get("/api/usuario/{id}", idUsuario))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(antes, despues);
+    }
+
+    @Test
+    public void testParcharUsuarioV2_UnaSentencia() throws Exception {
+        mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario)
+                        .contentType(UsuarioControllerV2.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"telefono\": \"911111111\"}"))
+                .andExpect(status().isNoContent());
+
+        // Un único UPDATE del teléfono y la versión, sin SELECT previo ni relectura, y el evento de cambio
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+        Usuario guardado = usuarioRepository.findById(idUsuario).orElseThrow();
+        assertEquals("911111111", guardado.getTelefono());
+        assertEquals("Usuario 4", guardado.getNombre());
+        assertEquals(rolAdmin.getIdRol(), guardado.getRol().getIdRol());
+        assertEquals(1, guardado.getVersion());
+    }
+
+    @Test
+    public void testParcharUsuarioV2_CampoIndexado_ActualizaLosIndices() throws Exception {
+        mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario)
+                        .contentType(UsuarioControllerV2.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"nombre\": \"Zacarías Parche\", \"rol\": null}"))
+                .andExpect(status().isNoContent());
+
+        // El UPDATE, su evento y la relectura de la fila (sin JOIN) para los índices
+        assertEquals(3, estadisticas.getPrepareStatementCount());
+        assertNull(usuarioRepository.findById(idUsuario).orElseThrow().getRol());
+        assertEquals(idUsuario, usuarioBusquedaIndex.buscar("zacarias", 10).get(0).idUsuario());
+        mockMvc.perform(get("/api/usuario/{id}/permisos/{p}", idUsuario, rolAdmin.getPermiso().getIdPermiso()))
+                .andExpect(jsonPath("$.concedido").value(false));
+    }
+
+    @Test
+    public void testParcharUsuarioV2_Invalido() throws Exception {
+        // Campo que no se puede cambiar, null en un campo obligatorio y tipo incorrecto
+        for (String cuerpo : new String[] { "{\"idUsuario\": 5}", "{}", "{\"nombre\": null}", "{\"activo\": \"si\"}",
+                "{\"rol\": {\"nombreRol\": \"Administrador\"}}" }) {
+            mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario)
+                            .contentType(UsuarioControllerV2.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                            .content(cuerpo))
+                    .andExpect(status().isBadRequest());
+        }
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testParcharUsuarioV2_RolInexistente() throws Exception {
+        // La clave foránea rechaza el UPDATE: 400, no 500, y el usuario queda como estaba
+        mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario)
+                        .contentType(UsuarioControllerV2.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                        .content("{\"rol\": {\"idRol\": 999}}"))
+                .andExpect(status().isBadRequest());
+
+        Usuario guardado = usuarioRepository.findById(idUsuario).orElseThrow();
+        assertEquals(rolAdmin.getIdRol(), guardado.getRol().getIdRol());
+        assertEquals(0, guardado.getVersion());
+    }
+
+    @Test
+    public void testParcharUsuarioV2_IfMatch() throws Exception {
+        String etag = mockMvc.perform(get("/api/usuario/{id}", idUsuario))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String nuevo = mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"activo\": false}"))
+                .andExpect(status().isNoContent())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // El ETag de la respuesta sirve para la siguiente escritura condicional
+        mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario)
+                        .header(HttpHeaders.IF_MATCH, nuevo)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"telefono\": \"922222222\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+        // Con el ETag ya usado la condición no se cumple; sin usuario, 404
+        mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"activo\": true}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/usuarioV2/{id}", idUsuario + 100)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"activo\": true}"))
+                .andExpect(status().isNotFound());
+        assertEquals(false, usuarioRepository.findById(idUsuario).orElseThrow().getActivo());
+    }
+
+    @Test
+    public void testActualizarUsuarioV2_NoExiste_UnaSentencia() throws Exception {
+        Usuario cambios = new Usuario(0, "Nombre Nuevo", "9-K", "nuevo@example.com", "pass", "900000009", false, rolAdmin);
+
+        mockMvc.perform(put("/api/usuarioV2/{id}", idUsuario + 100)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cambios)))
+                .andExpect(status().isNotFound());
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testBorrarUsuarioV2_UnaSentencia() throws Exception {
+        mockMvc.perform(delete("/api/usuarioV2/{id}", idUsuario))
+                .andExpect(status().isNoContent());
+        assertEquals(2, estadisticas.getPrepareStatementCount()); // DELETE y evento de cambio
+
+        // Borrar de nuevo el mismo id responde 404, también con una sola sentencia
+        estadisticas.clear();
+        mockMvc.perform(delete("/api/usuarioV2/{id}", idUsuario))
+                .andExpect(status().isNotFound());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testCrearUsuario_UnaSentencia() throws Exception {
+        Usuario nuevo = new Usuario(0, "Usuario Nuevo", "8-K", "nuevo@example.com", "pass", "900000008", true, rolAdmin);
+
+        mockMvc.perform(post("/api/usuario")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(nuevo)))
+                .andExpect(status().isOk());
+
+        // Sólo el INSERT y el de su evento: ni existsById ni merge del rol. La secuencia de ids entrega bloques de 50,
+        // así que a lo más se suma una consulta a la secuencia cuando se agota el bloque
+        assertEquals(2, estadisticas.getEntityInsertCount());
+        assertTrue(estadisticas.getPrepareStatementCount() <= 3);
+    }
+
+    @Test
+    public void testCrearSesion_UnaSentencia() throws Exception {
+        Sesion sesion = new Sesion("token-consultas", new Date(System.currentTimeMillis() + 3600 * 1000));
+
+        mockMvc.perform(post("/api/sesion")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sesion)))
+                .andExpect(status().isOk());
+        assertEquals(2, estadisticas.getPrepareStatementCount()); // INSERT de la sesión y de su evento
+
+        // El mismo token otra vez se rechaza
+        mockMvc.perform(post("/api/sesion")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sesion)))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    public void testGetUsuariosV2_UnaConsulta() throws Exception {
+        mockMvc.perform(get("/api/usuarioV2").accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.usuarioList[0].rol.permiso.nombre").exists());
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testGetUsuarioByIdV2_UnaConsulta() throws Exception {
+        mockMvc.perform(get("/api/usuarioV2/{id}", idUsuario).accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rol.permiso.nombre").exists());
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testGetUsuariosPagina_UnaConsulta() throws Exception {
+        mockMvc.perform(get("/api/usuario").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].rol.permiso.nombre").exists());
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+}
@@ -5,12 +5,19 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
+import com.gestionUsuario.orm4.dto.FiltroUsuario;
+import com.gestionUsuario.orm4.dto.ResultadoImportacion;
+import com.gestionUsuario.orm4.exception.ServicioSaturadoException;
 import com.gestionUsuario.orm4.model.Permiso; // Necesario para crear objetos Rol
 import com.gestionUsuario.orm4.model.Rol;     // Necesario para crear objetos Usuario con Rol
 import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.service.UsuarioImportacionService;
 import com.gestionUsuario.orm4.service.UsuarioService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +25,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -32,6 +46,9 @@ public class UsuarioControllerTest {
     @MockBean
     private UsuarioService usuarioService; // Crea un mock del servicio de Usuario
 
+    @MockBean
+    private UsuarioImportacionService usuarioImportacionService; // Crea un mock del servicio de importación
+
     @Autowired
     private ObjectMapper objectMapper; // Se usa para convertir objetos Java a JSON y viceversa
 
@@ -43,6 +60,12 @@ public class UsuarioControllerTest {
     private Permiso permisoUsuario;
 
 
+    // El JSON de un usuario no lleva la contraseña (sólo se escribe): el cuerpo de una importación la agrega
+    private String cuerpo(Usuario usuario) {
+        ObjectNode json = objectMapper.valueToTree(usuario);
+        return json.put("contrasena", usuario.getContrasena()).toString();
+    }
+
     @BeforeEach
     void setUp() {
         // Configura objetos de soporte y Usuario de ejemplo antes de cada prueba
@@ -91,10 +114,150 @@ public class UsuarioControllerTest {
         verify(usuarioService, times(1)).findAll();
     }
 
+    @Test
+    public void testGetUsuarios_ConFiltros() throws Exception {
+        // Los parámetros se enlazan al FiltroUsuario que recibe el servicio
+        FiltroUsuario esperado = new FiltroUsuario(true, 1, "Ju", null);
+        when(usuarioService.findAll(esperado)).thenReturn(List.of(usuario1));
+
+        mockMvc.perform(get("/api/usuario").param("activo", "true").param("idRol", "1").param("nombre", "Ju"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].nombre").value("Juan Perez"));
+
+        // Con filtros no se carga la tabla completa
+        verify(usuarioService, never()).findAll();
+    }
+
+    @Test
+    public void testGetUsuarios_ConCampos() throws Exception {
+        // fields= devuelve sólo las columnas pedidas
+        FiltroUsuario esperado = new FiltroUsuario(true, null, null, List.of("idUsuario", "nombre", "activo"));
+        when(usuarioService.findCampos(esperado))
+                .thenReturn(List.of(Map.of("idUsuario", 1, "nombre", "Juan Perez", "activo", true)));
+
+        mockMvc.perform(get("/api/usuario").param("activo", "true").param("fields", "idUsuario,nombre,activo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nombre").value("Juan Perez"))
+                .andExpect(jsonPath("$[0].contrasena").doesNotExist())
+                .andExpect(jsonPath("$[0].rol").doesNotExist());
+    }
+
+    @Test
+    public void testGetUsuarios_CampoNoPermitido() throws Exception {
+        // La contraseña y los campos desconocidos no se pueden pedir
+        mockMvc.perform(get("/api/usuario").param("fields", "idUsuario,contrasena"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usuario").param("fields", "noExiste"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(usuarioService);
+    }
+
+    @Test
+    public void testGetUsuariosPagina_ConSiguiente() throws Exception {
+        // Define el comportamiento del mock: la página viene llena, por lo que puede haber más filas
+        when(usuarioService.findPage(0, 2)).thenReturn(Arrays.asList(usuario1, usuario2));
+
+        // Realiza una petición GET paginada y verifica el cursor de la siguiente página
+        mockMvc.perform(get("/api/usuario").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].idUsuario").value(usuario2.getIdUsuario()))
+                .andExpect(header().string("Link", "</api/usuario?after=2&limit=2>; rel=\"next\""));
+
+        // La ruta paginada no debe cargar la tabla completa
+        verify(usuarioService, times(1)).findPage(0, 2);
+        verify(usuarioService, never()).findAll();
+    }
+
+    @Test
+    public void testGetUsuariosPagina_UltimaPagina() throws Exception {
+        // Define el comportamiento del mock: la página viene incompleta, es la última
+        when(usuarioService.findPage(1, 10)).thenReturn(Arrays.asList(usuario2));
+
+        mockMvc.perform(get("/api/usuario").param("after", "1").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    public void testGetUsuariosPagina_LimiteInvalido() throws Exception {
+        // Un límite fuera de rango se rechaza sin consultar la base de datos
+        mockMvc.perform(get("/api/usuario").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usuario").param("limit", String.valueOf(UsuarioController.MAX_LIMIT + 1)))
+                .andExpect(status().isBadRequest());
+
+        verify(usuarioService, never()).findPage(anyInt(), anyInt());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void simularPaginas(List<List<Usuario>> paginas) {
+        // Simula el recorrido por páginas entregando cada página al consumidor
+        doAnswer(invocation -> {
+            Consumer<List<Usuario>> consumer = invocation.getArgument(1);
+            paginas.forEach(consumer);
+            return null;
+        }).when(usuarioService).forEachPage(anyInt(), any(Consumer.class));
+    }
+
+    @Test
+    public void testStreamUsuarios_Ndjson() throws Exception {
+        simularPaginas(Arrays.asList(Arrays.asList(usuario1), Arrays.asList(usuario2)));
+
+        // La respuesta se escribe de forma asíncrona: primero se inicia y luego se despacha
+        MvcResult resultado = mockMvc.perform(get("/api/usuario/stream").accept(UsuarioController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(UsuarioController.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        // Un objeto JSON por línea
+        String[] lineas = cuerpo.split("\n");
+        assertEquals(2, lineas.length);
+        assertFalse(cuerpo.contains("contrasena"), "El hash de la contraseña no se entrega");
+        usuario1.setContrasena(null);
+        usuario2.setContrasena(null);
+        assertEquals(usuario1, objectMapper.readValue(lineas[0], Usuario.class));
+        assertEquals(usuario2, objectMapper.readValue(lineas[1], Usuario.class));
+    }
+
+    @Test
+    public void testStreamUsuarios_ArregloJson() throws Exception {
+        simularPaginas(Arrays.asList(Arrays.asList(usuario1), Arrays.asList(usuario2)));
+
+        MvcResult resultado = mockMvc.perform(get("/api/usuario/stream").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].idUsuario").value(usuario1.getIdUsuario()))
+                .andExpect(jsonPath("$[1].rol.nombreRol").value(usuario2.getRol().getNombreRol()));
+    }
+
+    @Test
+    public void testStreamUsuarios_TablaVacia() throws Exception {
+        simularPaginas(Collections.emptyList());
+
+        MvcResult resultado = mockMvc.perform(get("/api/usuario/stream").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[]"));
+    }
+
     @Test
     public void testGetUsuarioById_Found() throws Exception {
-        // Define el comportamiento del mock: cuando se llame a existsById() con 1, devuelve true
-        when(usuarioService.existsById(1)).thenReturn(true);
         // Define el comportamiento del mock: cuando se llame a findById() con 1, devuelve el usuario1
         when(usuarioService.findById(1)).thenReturn(Optional.of(usuario1));
 
@@ -106,23 +269,23 @@ public class UsuarioControllerTest {
                 .andExpect(jsonPath("$.nombre").value(usuario1.getNombre()))
                 .andExpect(jsonPath("$.rutUsuario").value(usuario1.getRutUsuario()));
 
-        // Verifica que existsById() y findById() del servicio fueron llamados
-        verify(usuarioService, times(1)).existsById(1);
+        // Verifica que findById() se llamó una sola vez y que no hubo una consulta previa de existencia
         verify(usuarioService, times(1)).findById(1);
+        verify(usuarioService, never()).existsById(anyInt());
     }
 
     @Test
     public void testGetUsuarioById_NotFound() throws Exception {
-        // Define el comportamiento del mock: cuando se llame a existsById() con 99, devuelve false
-        when(usuarioService.existsById(99)).thenReturn(false);
+        // Define el comportamiento del mock: cuando se llame a findById() con 99, no encuentra nada
+        when(usuarioService.findById(99)).thenReturn(Optional.empty());
 
         // Realiza una petición GET a /api/usuario/99 y verifica que la respuesta sea NOT_FOUND
         mockMvc.perform(get("/api/usuario/{id}", 99))
                 .andExpect(status().isNotFound()); // Verifica que el estado de la respuesta sea 404 Not Found
 
-        // Verifica que existsById() del servicio fue llamado, pero findById() NO fue llamado
-        verify(usuarioService, times(1)).existsById(99);
-        verify(usuarioService, never()).findById(anyInt());
+        // Verifica que sólo se hizo la búsqueda, sin consulta previa de existencia
+        verify(usuarioService, times(1)).findById(99);
+        verify(usuarioService, never()).existsById(anyInt());
     }
 
     @Test
@@ -131,10 +294,7 @@ public class UsuarioControllerTest {
         Usuario newUsuario = new Usuario(0, "Carlos Ruiz", "33.333.333-3", "carlos.ruiz@example.com", "passnew", "933333333", true, rolUsuario);
         Usuario savedUsuario = new Usuario(3, "Carlos Ruiz", "33.333.333-3", "carlos.ruiz@example.com", "passnew", "933333333", true, rolUsuario); // ID asignado después de guardar
 
-        // Define el comportamiento del mock:
-        // 1. Cuando se llame a existsById() con el ID del nuevo usuario, devuelve false (no existe)
-        when(usuarioService.existsById(newUsuario.getIdUsuario())).thenReturn(false);
-        // 2. Cuando se llame a save() con cualquier Usuario, devuelve el usuario con el ID asignado
+        // Define el comportamiento del mock: cuando se llame a save() con cualquier Usuario, devuelve el usuario con el ID asignado
         when(usuarioService.save(any(Usuario.class))).thenReturn(savedUsuario);
 
         // Realiza una petición POST a /api/usuario con el objeto Usuario en formato JSON
@@ -146,27 +306,36 @@ public class UsuarioControllerTest {
                 .andExpect(jsonPath("$.nombre").value(savedUsuario.getNombre()))
                 .andExpect(jsonPath("$.rutUsuario").value(savedUsuario.getRutUsuario()));
 
-        // Verifica que existsById() y save() del servicio fueron llamados
-        verify(usuarioService, times(1)).existsById(newUsuario.getIdUsuario());
+        // Verifica que save() fue llamado sin una consulta previa de existencia
+        verify(usuarioService, never()).existsById(anyInt());
         verify(usuarioService, times(1)).save(any(Usuario.class));
     }
 
+    @Test
+    public void testCrearUsuario_PoolDeHashSaturado() throws Exception {
+        // El pool de hash de contraseñas está lleno: el alta se rechaza con 503 en vez de esperar
+        Usuario newUsuario = new Usuario(0, "Carlos Ruiz", "33.333.333-3", "carlos.ruiz@example.com", "passnew", "933333333", true, rolUsuario);
+        when(usuarioService.save(any(Usuario.class))).thenThrow(new ServicioSaturadoException("saturado", null));
+
+        mockMvc.perform(post("/api/usuario")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUsuario)))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     @Test
     public void testCrearUsuario_YaExiste() throws Exception {
         // Prepara un usuario que ya existe (ej. con ID 1)
         Usuario existingUsuario = new Usuario(1, "Juan Perez", "11.111.111-1", "juan.perez@example.com", "pass123", "911111111", true, rolAdmin);
 
-        // Define el comportamiento del mock: cuando se llame a existsById() con el ID del usuario, devuelve true (ya existe)
-        when(usuarioService.existsById(existingUsuario.getIdUsuario())).thenReturn(true);
-
         // Realiza una petición POST a /api/usuario con el objeto Usuario en formato JSON
         mockMvc.perform(post("/api/usuario")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(existingUsuario)))
                 .andExpect(status().isNotAcceptable()); // Verifica que el estado de la respuesta sea 406 Not Acceptable
 
-        // Verifica que existsById() del servicio fue llamado, pero save() NO fue llamado
-        verify(usuarioService, times(1)).existsById(existingUsuario.getIdUsuario());
+        // Un usuario que ya trae id se rechaza sin consultar la base de datos
+        verify(usuarioService, never()).existsById(anyInt());
         verify(usuarioService, never()).save(any(Usuario.class));
     }
 
@@ -181,8 +350,8 @@ public class UsuarioControllerTest {
 
     @Test
     public void testBorrarUsuario_Exito() throws Exception {
-        // Define el comportamiento del mock: cuando se llame a deleteById(), no hace nada
-        doNothing().when(usuarioService).deleteById(1);
+        // Define el comportamiento del mock: cuando se llame a deleteById(), borra una fila
+        when(usuarioService.deleteById(1)).thenReturn(1);
 
         // Realiza una petición DELETE a /api/usuario/1 y verifica que la respuesta sea NO_CONTENT
         mockMvc.perform(delete("/api/usuario/{id}", 1))
@@ -191,4 +360,61 @@ public class UsuarioControllerTest {
         // Verifica que el método deleteById() del servicio se haya llamado exactamente una vez con el ID 1
         verify(usuarioService, times(1)).deleteById(1);
     }
+
+    @SuppressWarnings("unchecked")
+    private List<Usuario> simularImportacion() {
+        // Simula la importación: consume la entrada y responde un resultado por fila
+        List<Usuario> recibidos = new ArrayList<>();
+        when(usuarioImportacionService.importar(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<Usuario> usuarios = invocation.getArgument(0);
+            List<ResultadoImportacion> resultados = new ArrayList<>();
+            while (usuarios.hasNext()) {
+                Usuario usuario = usuarios.next();
+                recibidos.add(usuario);
+                resultados.add(recibidos.size() == 2
+                        ? ResultadoImportacion.error(1, "RUT duplicado: " + usuario.getRutUsuario())
+                        : ResultadoImportacion.creado(recibidos.size() - 1, 10 + recibidos.size()));
+            }
+            return resultados;
+        });
+        return recibidos;
+    }
+
+    @Test
+    public void testImportarUsuarios_ArregloJson() throws Exception {
+        List<Usuario> recibidos = simularImportacion();
+        usuario1.setIdUsuario(0);
+        usuario2.setIdUsuario(0);
+
+        // Realiza una petición POST a /api/usuario/batch con un arreglo JSON
+        mockMvc.perform(post("/api/usuario/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + cuerpo(usuario1) + "," + cuerpo(usuario2) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].estado").value("CREADO"))
+                .andExpect(jsonPath("$[0].idUsuario").value(11))
+                .andExpect(jsonPath("$[1].estado").value("ERROR"))
+                .andExpect(jsonPath("$[1].fila").value(1));
+
+        // Cada elemento del arreglo llega al servicio como un usuario
+        assertEquals(Arrays.asList(usuario1, usuario2), recibidos);
+    }
+
+    @Test
+    public void testImportarUsuarios_Ndjson() throws Exception {
+        List<Usuario> recibidos = simularImportacion();
+        usuario1.setIdUsuario(0);
+        usuario2.setIdUsuario(0);
+        String cuerpo = cuerpo(usuario1) + "\n" + cuerpo(usuario2) + "\n";
+
+        // Realiza una petición POST a /api/usuario/batch con un usuario por línea
+        mockMvc.perform(post("/api/usuario/batch")
+                        .contentType(UsuarioController.APPLICATION_NDJSON_VALUE)
+                        .content(cuerpo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        assertEquals(Arrays.asList(usuario1, usuario2), recibidos);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.gestionUsuario.orm4.controller;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.gestionUsuario.orm4.model.Permiso;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.PermisoRepository;
+import com.gestionUsuario.orm4.repository.RolRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Verifica el SQL que generan los filtros y la proyección de GET /api/usuario
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.gestionUsuario.orm4.controller.UsuarioFiltroConsultasTest$SqlCapturado")
+@AutoConfigureMockMvc
+public class UsuarioFiltroConsultasTest {
+
+    // Guarda cada sentencia que Hibernate prepara
+    public static class SqlCapturado implements StatementInspector {
+        static final List<String> SENTENCIAS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SENTENCIAS.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    private Rol rolAdmin;
+
+    @BeforeEach
+    void setUp() {
+        Permiso permisoAdmin = permisoRepository.save(new Permiso(0, "Administrador", "Acceso completo."));
+        Permiso permisoUsuario = permisoRepository.save(new Permiso(0, "Usuario", "Acceso limitado."));
+        rolAdmin = rolRepository.save(new Rol(0, "Administrador", permisoAdmin));
+        Rol rolUsuario = rolRepository.save(new Rol(0, "Usuario Registrado", permisoUsuario));
+
+        usuarioRepository.save(new Usuario(0, "Ana Soto", "1-K", "ana@example.com", "pass", null, true, rolAdmin));
+        usuarioRepository.save(new Usuario(0, "Andrés Rojas", "2-K", "andres@example.com", "pass", null, false, rolAdmin));
+        usuarioRepository.save(new Usuario(0, "Beatriz Díaz", "3-K", "bea@example.com", "pass", null, true, rolUsuario));
+        usuarioRepository.save(new Usuario(0, "An%na", "4-K", "anna@example.com", "pass", null, true, null));
+        SqlCapturado.SENTENCIAS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+        permisoRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testCampos_SoloLasColumnasPedidas() throws Exception {
+        mockMvc.perform(get("/api/usuario").param("fields", "idUsuario,nombre,activo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].nombre").value("Ana Soto"))
+                .andExpect(jsonPath("$[0].activo").value(true))
+                .andExpect(jsonPath("$[0].email").doesNotExist())
+                .andExpect(jsonPath("$[0].rol").doesNotExist());
+
+        assertEquals(1, SqlCapturado.SENTENCIAS.size());
+        String sql = SqlCapturado.SENTENCIAS.get(0);
+        assertFalse(sql.contains("contrasena"), sql);
+        assertFalse(sql.contains("email"), sql);
+        assertFalse(sql.contains("join"), sql);
+    }
+
+    @Test
+    public void testFiltros_EnElWhere() throws Exception {
+        mockMvc.perform(get("/api/usuario")
+                        .param("activo", "true")
+                        .param("idRol", String.valueOf(rolAdmin.getIdRol()))
+                        .param("fields", "nombre,idRol"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].nombre").value("Ana Soto"))
+                .andExpect(jsonPath("$[0].idRol").value(rolAdmin.getIdRol()));
+
+        assertEquals(1, SqlCapturado.SENTENCIAS.size());
+        assertTrue(SqlCapturado.SENTENCIAS.get(0).contains("where"));
+        assertFalse(SqlCapturado.SENTENCIAS.get(0).contains("join"));
+    }
+
+    @Test
+    public void testPrefijoDeNombre_EscapaComodines() throws Exception {
+        mockMvc.perform(get("/api/usuario").param("nombre", "An").param("fields", "nombre"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)));
+
+        // "%" se busca literal, no como comodín
+        mockMvc.perform(get("/api/usuario").param("nombre", "An%").param("fields", "nombre"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].nombre").value("An%na"));
+    }
+
+    @Test
+    public void testFiltrosSinCampos_EntidadCompletaEnUnaConsulta() throws Exception {
+        mockMvc.perform(get("/api/usuario").param("activo", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].rol.permiso.nombre").value("Administrador"));
+
+        // Mismo grafo de carga que el listado completo: usuario, rol y permiso en un SELECT
+        assertEquals(1, SqlCapturado.SENTENCIAS.size());
+    }
+
+    @Test
+    public void testSinResultados() throws Exception {
+        mockMvc.perform(get("/api/usuario").param("nombre", "Zz").param("fields", "nombre"))
+                .andExpect(status().isNoContent());
+    }
+}
@@ -0,0 +1,159 @@
+package com.gestionUsuario.orm4.service;
+
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AutenticacionServiceTest {
+
+    @InjectMocks
+    private AutenticacionService autenticacionService;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private UsuarioService usuarioService;
+
+    @Mock
+    private ContrasenaService contrasenaService;
+
+    @Mock
+    private SesionService sesionService;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(autenticacionService, "ttl", Duration.ofHours(1));
+        usuario = new Usuario(7, "Ana", "11.111.111-1", "ana@example.com", "$2a$hash", null, true, null);
+    }
+
+    @Test
+    public void testLogin_PorRut() {
+        // Arrange: el RUT existe y la contraseña coincide
+        when(usuarioRepository.findByRutUsuario("11.111.111-1")).thenReturn(Optional.of(usuario));
+        when(usuarioService.verificarContrasena(usuario, "secreta")).thenReturn(true);
+        when(sesionService.crear(any(Sesion.class))).thenReturn(true);
+        long antes = System.currentTimeMillis();
+
+        // Act
+        Optional<Sesion> sesion = autenticacionService.login("11.111.111-1", "secreta");
+
+        // Assert: token de 256 bits en base64url, dueño y expiración según el TTL
+        assertTrue(sesion.isPresent());
+        assertEquals(43, sesion.get().getToken().length());
+        assertTrue(sesion.get().getToken().matches("[A-Za-z0-9_-]+"));
+        assertEquals(7, sesion.get().getIdUsuario());
+        long ttl = sesion.get().getExpiracion().getTime() - antes;
+        assertTrue(ttl >= Duration.ofHours(1).toMillis() && ttl < Duration.ofHours(1).toMillis() + 5000);
+        verify(usuarioRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    public void testLogin_PorEmail() {
+        when(usuarioRepository.findByEmail("ana@example.com")).thenReturn(List.of(usuario));
+        when(usuarioService.verificarContrasena(usuario, "secreta")).thenReturn(true);
+        when(sesionService.crear(any(Sesion.class))).thenReturn(true);
+
+        assertTrue(autenticacionService.login("ana@example.com", "secreta").isPresent());
+        verify(usuarioRepository, never()).findByRutUsuario(any());
+    }
+
+    @Test
+    public void testLogin_ContrasenaIncorrecta() {
+        when(usuarioRepository.findByRutUsuario("11.111.111-1")).thenReturn(Optional.of(usuario));
+        when(usuarioService.verificarContrasena(usuario, "otra")).thenReturn(false);
+
+        assertTrue(autenticacionService.login("11.111.111-1", "otra").isEmpty());
+        verifyNoInteractions(sesionService);
+    }
+
+    @Test
+    public void testLogin_UsuarioInexistente_TardaIgual() {
+        when(usuarioRepository.findByRutUsuario("99.999.999-9")).thenReturn(Optional.empty());
+
+        assertTrue(autenticacionService.login("99.999.999-9", "secreta").isEmpty());
+        // Se hace una verificación de relleno para no revelar qué RUT existen por el tiempo de respuesta
+        verify(contrasenaService, times(1)).simularVerificacion("secreta");
+        verifyNoInteractions(sesionService);
+    }
+
+    @Test
+    public void testLogin_UsuarioInactivo() {
+        usuario.setActivo(false);
+        when(usuarioRepository.findByRutUsuario("11.111.111-1")).thenReturn(Optional.of(usuario));
+
+        assertTrue(autenticacionService.login("11.111.111-1", "secreta").isEmpty());
+        verify(usuarioService, never()).verificarContrasena(any(), any());
+    }
+
+    @Test
+    public void testLogin_TokensDistintos() {
+        when(usuarioRepository.findByRutUsuario("11.111.111-1")).thenReturn(Optional.of(usuario));
+        when(usuarioService.verificarContrasena(usuario, "secreta")).thenReturn(true);
+        when(sesionService.crear(any(Sesion.class))).thenReturn(true);
+
+        autenticacionService.login("11.111.111-1", "secreta");
+        autenticacionService.login("11.111.111-1", "secreta");
+
+        ArgumentCaptor<Sesion> sesiones = ArgumentCaptor.forClass(Sesion.class);
+        verify(sesionService, times(2)).crear(sesiones.capture());
+        assertNotEquals(sesiones.getAllValues().get(0).getToken(), sesiones.getAllValues().get(1).getToken());
+    }
+
+    @Test
+    public void testLogin_TokenRepetido_Reintenta() {
+        when(usuarioRepository.findByRutUsuario("11.111.111-1")).thenReturn(Optional.of(usuario));
+        when(usuarioService.verificarContrasena(usuario, "secreta")).thenReturn(true);
+        when(sesionService.crear(any(Sesion.class))).thenReturn(false).thenReturn(true);
+
+        assertTrue(autenticacionService.login("11.111.111-1", "secreta").isPresent());
+        verify(sesionService, times(2)).crear(any(Sesion.class));
+    }
+
+    @Test
+    public void testLogin_InsertFallaSiempre_NoReintentaSinFin() {
+        // Una restricción que no depende del token (el usuario se borró entretanto) falla en cada intento
+        when(usuarioRepository.findByRutUsuario("11.111.111-1")).thenReturn(Optional.of(usuario));
+        when(usuarioService.verificarContrasena(usuario, "secreta")).thenReturn(true);
+        when(sesionService.crear(any(Sesion.class))).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> autenticacionService.login("11.111.111-1", "secreta"));
+        verify(sesionService, times(3)).crear(any(Sesion.class));
+    }
+
+    @Test
+    public void testLogin_ModoFirmado_SinInsert() {
+        // Con sesion.modo=firmado el token se firma y no se escribe en la tabla
+        SesionFirmadaService sesionFirmadaService = new SesionFirmadaService(null, null, null,
+                Base64.getEncoder().encodeToString(new byte[32]), 1000, 0.001);
+        ReflectionTestUtils.setField(autenticacionService, "sesionFirmadaService", sesionFirmadaService);
+        when(usuarioRepository.findByRutUsuario("11.111.111-1")).thenReturn(Optional.of(usuario));
+        when(usuarioService.verificarContrasena(usuario, "secreta")).thenReturn(true);
+
+        Optional<Sesion> sesion = autenticacionService.login("11.111.111-1", "secreta");
+
+        assertTrue(sesion.isPresent());
+        assertEquals(7, sesion.get().getIdUsuario());
+        assertTrue(sesion.get().getToken().contains("."));
+        verifyNoInteractions(sesionService);
+    }
+}
@@ -0,0 +1,81 @@
+package com.gestionUsuario.orm4.service;
+
+import com.gestionUsuario.orm4.model.EventoCambio;
+import com.gestionUsuario.orm4.model.EventoCambio.Entidad;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
+import com.gestionUsuario.orm4.repository.EventoCambioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CambioServiceTest {
+
+    @InjectMocks
+    private CambioService cambioService;
+
+    @Mock
+    private EventoCambioRepository eventoCambioRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cambioService, "margen", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(cambioService, "espera", Duration.ofMillis(100));
+    }
+
+    private EventoCambio evento(long id, long haceMs) {
+        return new EventoCambio(id, Entidad.USUARIO, String.valueOf(id), Operacion.ACTUALIZADO,
+                new Date(System.currentTimeMillis() - haceMs));
+    }
+
+    @Test
+    public void testLeer_SeDetieneEnUnHuecoReciente() {
+        // El 7 falta y el 8 es reciente: el 7 puede ser de una transacción que aún no confirma
+        when(eventoCambioRepository.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Limit.class)))
+                .thenReturn(List.of(evento(5, 10), evento(6, 10), evento(8, 10)));
+
+        List<EventoCambio> eventos = cambioService.leer(4, 100);
+
+        assertEquals(List.of(5L, 6L), eventos.stream().map(EventoCambio::getId).toList());
+    }
+
+    @Test
+    public void testLeer_SaltaUnHuecoAntiguo() {
+        // Pasado el margen, el hueco es de una transacción deshecha (o de eventos purgados)
+        when(eventoCambioRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class)))
+                .thenReturn(List.of(evento(40, 60_000), evento(42, 60_000), evento(43, 10)));
+
+        List<EventoCambio> eventos = cambioService.leer(0, 100);
+
+        assertEquals(List.of(40L, 42L, 43L), eventos.stream().map(EventoCambio::getId).toList());
+    }
+
+    @Test
+    public void testEsperar_HayEventos_SinEsperar() {
+        when(eventoCambioRepository.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Limit.class)))
+                .thenReturn(List.of(evento(5, 10)));
+
+        assertTrue(cambioService.esperar(4, 100).isDone());
+    }
+
+    @Test
+    public void testEsperar_SinEventos_VenceVacia() {
+        when(eventoCambioRepository.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Limit.class))).thenReturn(List.of());
+
+        assertTrue(cambioService.esperar(4, 100).join().isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+package com.gestionUsuario.orm4.service;
+
+import com.gestionUsuario.orm4.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContrasenaServiceTest {
+
+    private final List<ContrasenaService> servicios = new ArrayList<>();
+
+    private ContrasenaService servicio(int costo, int hilos, int cola) {
+        ContrasenaService servicio = new ContrasenaService(costo, hilos, cola, new SimpleMeterRegistry());
+        servicios.add(servicio);
+        return servicio;
+    }
+
+    @AfterEach
+    void tearDown() {
+        servicios.forEach(ContrasenaService::destroy);
+    }
+
+    @Test
+    public void testHashearYVerificar() {
+        ContrasenaService servicio = servicio(4, 1, 10);
+
+        String hash = servicio.hashear("secreta");
+
+        assertTrue(servicio.esHash(hash), "Debe guardarse un hash BCrypt");
+        assertNotEquals("secreta", hash);
+        assertTrue(servicio.verificar("secreta", hash).coincide());
+        assertFalse(servicio.verificar("otra", hash).coincide());
+        assertFalse(servicio.verificar("secreta", hash).requiereRehash(), "Con el mismo costo no hace falta rehashear");
+    }
+
+    @Test
+    public void testContrasenaEnTextoPlano_SeMigraAlVerificar() {
+        ContrasenaService servicio = servicio(4, 1, 10);
+
+        ContrasenaService.Verificacion correcta = servicio.verificar("pass", "pass");
+        ContrasenaService.Verificacion incorrecta = servicio.verificar("otra", "pass");
+
+        assertTrue(correcta.coincide());
+        assertTrue(correcta.requiereRehash());
+        assertTrue(servicio.verificar("pass", correcta.nuevoHash()).coincide());
+        assertFalse(incorrecta.coincide());
+        assertFalse(incorrecta.requiereRehash(), "Sin la contraseña correcta no se rehashea");
+    }
+
+    @Test
+    public void testCostoAumentado_Rehashea() {
+        String hashViejo = servicio(4, 1, 10).hashear("secreta");
+        ContrasenaService servicio = servicio(5, 1, 10);
+
+        ContrasenaService.Verificacion verificacion = servicio.verificar("secreta", hashViejo);
+
+        assertTrue(verificacion.coincide());
+        assertTrue(verificacion.requiereRehash());
+        assertTrue(verificacion.nuevoHash().startsWith("$2a$05$"), "El hash nuevo usa el costo configurado");
+    }
+
+    @Test
+    public void testHashearRecibida_NoAceptaUnHashDelCliente() {
+        ContrasenaService servicio = servicio(4, 1, 10);
+        String hash = servicio.hashear("secreta");
+
+        // Un valor con forma de hash se trata como contraseña: se guarda su hash, no el valor recibido
+        String guardado = servicio.hashearRecibida(hash);
+        assertNotEquals(hash, guardado);
+        assertTrue(servicio.verificar(hash, guardado).coincide());
+        assertFalse(servicio.verificar("secreta", guardado).coincide());
+        assertNull(servicio.hashearRecibida(null));
+        assertTrue(servicio.esHash(servicio.hashearRecibida("secreta")));
+    }
+
+    @Test
+    public void testPoolLleno_Rechaza() {
+        // Un hilo y una posición en cola: la tercera petición simultánea no tiene lugar
+        ContrasenaService servicio = servicio(12, 1, 1);
+        List<CompletableFuture<String>> aceptadas = new ArrayList<>();
+
+        ServicioSaturadoException e = assertThrows(ServicioSaturadoException.class, () -> {
+            for (int i = 0; i < 3; i++) {
+                aceptadas.add(servicio.hashearAsync("secreta" + i));
+            }
+        });
+
+        assertNotNull(e.getMessage());
+        assertEquals(2, aceptadas.size());
+    }
+
+    @Test
+    public void testHashearLote_NoRechazaConPoolLleno() {
+        // Con el pool lleno, el hilo que llama calcula el hash en vez de perder filas
+        ContrasenaService servicio = servicio(4, 1, 1);
+
+        String hash = servicio.hashear("e");
+        List<String> hashes = servicio.hashearLote(Arrays.asList("a", "b", "c", "d", null, hash));
+
+        assertEquals(6, hashes.size());
+        assertTrue(servicio.verificar("c", hashes.get(2)).coincide());
+        assertNull(hashes.get(4));
+        assertTrue(servicio.verificar(hash, hashes.get(5)).coincide(), "Un hash recibido también se hashea");
+    }
+}
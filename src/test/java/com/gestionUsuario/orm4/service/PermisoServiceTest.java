@@ -4,8 +4,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.gestionUsuario.orm4.cache.Catalogo;
 import com.gestionUsuario.orm4.model.Permiso;
 import com.gestionUsuario.orm4.repository.PermisoRepository;
 
@@ -26,6 +30,14 @@ public class PermisoServiceTest {
     @Mock
     private PermisoRepository permisoRepository;
 
+    // Registro de cambios: se comprueba que cada escritura agregue su evento.
+    @Mock
+    private CambioService cambioService;
+
+    // Ejecuta el bloque transaccional directamente, sobre un gestor de transacciones simulado.
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class, RETURNS_MOCKS));
+
     @Test
     public void testFindAll() {
         // Arrange: Prepara los datos de prueba y el comportamiento del mock.
@@ -69,6 +81,40 @@ public class PermisoServiceTest {
         verify(permisoRepository, times(1)).save(newPermiso);
     }
 
+    @Test
+    public void testFindAll_SeSirveDesdeMemoria() {
+        // Arrange: el repositorio devuelve el catálogo completo
+        when(permisoRepository.findAll()).thenReturn(Arrays.asList(new Permiso(1, "Administrador", "Acceso completo"), new Permiso(2, "Usuario", "Acceso básico")));
+
+        // Act: varias lecturas seguidas, sin escrituras entre ellas
+        List<Permiso> primera = permisoService.findAll();
+        Catalogo<Permiso> catalogo = permisoService.catalogo();
+
+        // Assert: la base de datos se consulta una sola vez y la lista no se puede modificar
+        assertSame(primera, catalogo.datos(), "Las lecturas deben compartir la misma foto del catálogo.");
+        assertThrows(UnsupportedOperationException.class, () -> primera.remove(0));
+        verify(permisoRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void testSave_InvalidaCatalogo() {
+        // Arrange: un catálogo ya cargado y una escritura posterior
+        Permiso existente = new Permiso(1, "Administrador", "Acceso completo");
+        Permiso nuevo = new Permiso(2, "Usuario", "Acceso básico");
+        when(permisoRepository.findAll()).thenReturn(List.of(existente)).thenReturn(List.of(existente, nuevo));
+        when(permisoRepository.save(any(Permiso.class))).thenReturn(nuevo);
+        Catalogo<Permiso> antes = permisoService.catalogo();
+
+        // Act: se guarda un registro y se vuelve a leer
+        permisoService.save(nuevo);
+        Catalogo<Permiso> despues = permisoService.catalogo();
+
+        // Assert: la lectura posterior ve el registro nuevo con otro ETag
+        assertEquals(2, despues.datos().size(), "El catálogo debe recargarse después de guardar.");
+        assertNotEquals(antes.etag(), despues.etag(), "El ETag debe cambiar con el contenido.");
+        verify(permisoRepository, times(2)).findAll();
+    }
+
     @Test
     public void testExistsById_True() {
         // Arrange: Define el ID a verificar.
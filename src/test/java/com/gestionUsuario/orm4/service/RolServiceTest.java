@@ -4,8 +4,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.gestionUsuario.orm4.cache.Catalogo;
+import com.gestionUsuario.orm4.cache.PermisoIndex;
 import com.gestionUsuario.orm4.model.Permiso;
 import com.gestionUsuario.orm4.model.Rol;
 import com.gestionUsuario.orm4.repository.RolRepository;
@@ -27,6 +32,18 @@ public class RolServiceTest {
     @Mock
     private RolRepository rolRepository;
 
+    // Crea un mock del índice de permisos que se actualiza con cada escritura.
+    @Mock
+    private PermisoIndex permisoIndex;
+
+    // Registro de cambios: se comprueba que cada escritura agregue su evento.
+    @Mock
+    private CambioService cambioService;
+
+    // Ejecuta el bloque transaccional directamente, sobre un gestor de transacciones simulado.
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class, RETURNS_MOCKS));
+
     @Test
     public void testFindAll() {
         // Arrange: Prepara los datos de prueba y el comportamiento del mock.
@@ -75,6 +92,42 @@ public class RolServiceTest {
 
         // Verifica que el método save() del repositorio fue llamado exactamente una vez con el rol correcto.
         verify(rolRepository, times(1)).save(newRol);
+        // El índice de permisos recibe el rol con su id asignado.
+        verify(permisoIndex, times(1)).actualizarRol(savedRol);
+    }
+
+    @Test
+    public void testFindAll_SeSirveDesdeMemoria() {
+        // Arrange: el repositorio devuelve el catálogo completo
+        when(rolRepository.findAll()).thenReturn(Arrays.asList(new Rol(1, "Administrador", new Permiso(1, "Administrador", "Acceso completo")), new Rol(2, "Invitado", new Permiso(2, "Usuario", "Acceso básico"))));
+
+        // Act: varias lecturas seguidas, sin escrituras entre ellas
+        List<Rol> primera = rolService.findAll();
+        Catalogo<Rol> catalogo = rolService.catalogo();
+
+        // Assert: la base de datos se consulta una sola vez y la lista no se puede modificar
+        assertSame(primera, catalogo.datos(), "Las lecturas deben compartir la misma foto del catálogo.");
+        assertThrows(UnsupportedOperationException.class, () -> primera.remove(0));
+        verify(rolRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void testSave_InvalidaCatalogo() {
+        // Arrange: un catálogo ya cargado y una escritura posterior
+        Rol existente = new Rol(1, "Administrador", new Permiso(1, "Administrador", "Acceso completo"));
+        Rol nuevo = new Rol(2, "Invitado", new Permiso(2, "Usuario", "Acceso básico"));
+        when(rolRepository.findAll()).thenReturn(List.of(existente)).thenReturn(List.of(existente, nuevo));
+        when(rolRepository.save(any(Rol.class))).thenReturn(nuevo);
+        Catalogo<Rol> antes = rolService.catalogo();
+
+        // Act: se guarda un registro y se vuelve a leer
+        rolService.save(nuevo);
+        Catalogo<Rol> despues = rolService.catalogo();
+
+        // Assert: la lectura posterior ve el registro nuevo con otro ETag
+        assertEquals(2, despues.datos().size(), "El catálogo debe recargarse después de guardar.");
+        assertNotEquals(antes.etag(), despues.etag(), "El ETag debe cambiar con el contenido.");
+        verify(rolRepository, times(2)).findAll();
     }
 
     @Test
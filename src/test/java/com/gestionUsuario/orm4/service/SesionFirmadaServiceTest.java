@@ -0,0 +1,164 @@
+package com.gestionUsuario.orm4.service;
+
+import com.gestionUsuario.orm4.model.Sesion;
+import com.gestionUsuario.orm4.repository.SesionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SesionFirmadaServiceTest {
+
+    private static final String CLAVE = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Mock
+    private SesionRepository sesionRepository;
+
+    @Mock
+    private CambioService cambioService;
+
+    // Ejecuta el bloque transaccional directamente, sobre un gestor de transacciones simulado.
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class, RETURNS_MOCKS));
+
+    private SesionFirmadaService servicio;
+    private Date futuro;
+
+    @BeforeEach
+    void setUp() {
+        servicio = new SesionFirmadaService(sesionRepository, cambioService, transactionTemplate, CLAVE, 1000, 0.001);
+        futuro = new Date(System.currentTimeMillis() + 3600 * 1000);
+    }
+
+    @Test
+    public void testEmitirYValidar_SinConsultarLaBase() {
+        // Arrange: filtro de revocados cargado y vacío
+        when(sesionRepository.findTokensVigentes(any())).thenReturn(List.of());
+        servicio.reconstruir();
+        Sesion emitida = servicio.emitir(7, futuro);
+
+        // Act
+        Optional<Sesion> validada = servicio.validar(emitida.getToken());
+
+        // Assert: el token trae el usuario y la expiración, y no se tocó la tabla
+        assertTrue(validada.isPresent());
+        assertEquals(7, validada.get().getIdUsuario());
+        assertEquals(futuro, validada.get().getExpiracion());
+        verify(sesionRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    public void testTokenAlterado_NoValida() {
+        String token = servicio.emitir(7, futuro).getToken();
+        // Cambia el último carácter de la firma
+        String alterado = token.substring(0, token.length() - 1) + (token.endsWith("A") ? "B" : "A");
+
+        assertTrue(servicio.validar(alterado).isEmpty());
+        assertTrue(servicio.validar("sin-punto").isEmpty());
+        assertTrue(servicio.validar("$$$.###").isEmpty());
+        assertTrue(servicio.validar(null).isEmpty());
+    }
+
+    @Test
+    public void testVarianteDelToken_NoValida() {
+        String token = servicio.emitir(7, futuro).getToken();
+        // 32 bytes de firma son 43 caracteres: los 2 bits bajos del último sobran y el decodificador los ignora
+        char ultimo = token.charAt(token.length() - 1);
+        String alfabeto = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        String variante = token.substring(0, token.length() - 1) + alfabeto.charAt(alfabeto.indexOf(ultimo) ^ 1);
+
+        assertTrue(servicio.validar(token).isPresent());
+        assertTrue(servicio.validar(variante).isEmpty(), "Otra escritura del mismo token no debe validar");
+    }
+
+    @Test
+    public void testOtraClave_NoValida() {
+        SesionFirmadaService otro = new SesionFirmadaService(sesionRepository, cambioService, transactionTemplate,
+                Base64.getEncoder().encodeToString(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+                        17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32 }), 1000, 0.001);
+
+        assertTrue(servicio.validar(otro.emitir(7, futuro).getToken()).isEmpty());
+    }
+
+    @Test
+    public void testTokenExpirado_NoValida() {
+        String token = servicio.emitir(7, new Date(System.currentTimeMillis() - 1000)).getToken();
+
+        assertTrue(servicio.validar(token).isEmpty());
+        verifyNoInteractions(sesionRepository);
+    }
+
+    @Test
+    public void testRevocar_GuardaElTokenYDejaDeValidar() {
+        when(sesionRepository.findTokensVigentes(any())).thenReturn(List.of());
+        servicio.reconstruir();
+        Sesion sesion = servicio.emitir(7, futuro);
+
+        assertTrue(servicio.revocar(sesion.getToken()));
+        // El filtro da positivo y la tabla lo confirma
+        when(sesionRepository.existsById(sesion.getToken())).thenReturn(true);
+
+        assertTrue(servicio.validar(sesion.getToken()).isEmpty());
+        verify(sesionRepository).insertar(sesion.getToken(), futuro, 7);
+    }
+
+    @Test
+    public void testRevocarDosVeces_NoFalla() {
+        Sesion sesion = servicio.emitir(7, futuro);
+        when(sesionRepository.insertar(any(), any(), any())).thenThrow(new DataIntegrityViolationException("PK"));
+
+        assertTrue(servicio.revocar(sesion.getToken()));
+    }
+
+    @Test
+    public void testRevocarTokenInvalido() {
+        assertFalse(servicio.revocar("sin-punto"));
+        verifyNoInteractions(sesionRepository);
+    }
+
+    @Test
+    public void testReconstruir_CargaLosRevocadosDeLaTabla() {
+        Sesion revocada = servicio.emitir(7, futuro);
+        when(sesionRepository.findTokensVigentes(any())).thenReturn(List.of(revocada.getToken()));
+        when(sesionRepository.existsById(revocada.getToken())).thenReturn(true);
+
+        servicio.reconstruir();
+
+        assertTrue(servicio.validar(revocada.getToken()).isEmpty());
+    }
+
+    @Test
+    public void testAntesDeCargarElFiltro_ConsultaLaTabla() {
+        Sesion sesion = servicio.emitir(7, futuro);
+        when(sesionRepository.existsById(sesion.getToken())).thenReturn(false);
+
+        assertTrue(servicio.validar(sesion.getToken()).isPresent());
+        verify(sesionRepository).existsById(sesion.getToken());
+    }
+
+    @Test
+    public void testSinClave_NoArranca() {
+        assertThrows(IllegalStateException.class,
+                () -> new SesionFirmadaService(sesionRepository, cambioService, transactionTemplate, "", 1000, 0.001));
+    }
+
+    @Test
+    public void testClaveCorta_Rechazada() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SesionFirmadaService(sesionRepository, cambioService, transactionTemplate, Base64.getEncoder().encodeToString(new byte[16]), 1000, 0.001));
+    }
+}
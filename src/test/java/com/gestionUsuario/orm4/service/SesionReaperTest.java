@@ -0,0 +1,77 @@
+package com.gestionUsuario.orm4.service;
+
+import com.gestionUsuario.orm4.repository.SesionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SesionReaperTest {
+
+    // Crea un mock del SesionRepository.
+    @Mock
+    private SesionRepository sesionRepository;
+
+    private SimpleMeterRegistry registry;
+    private SesionReaper sesionReaper;
+
+    @BeforeEach
+    void setUp() {
+        // Construye el reaper con lotes de 100 y un máximo de 3 lotes por ejecución.
+        registry = new SimpleMeterRegistry();
+        sesionReaper = new SesionReaper(registry);
+        ReflectionTestUtils.setField(sesionReaper, "sesionRepository", sesionRepository);
+        ReflectionTestUtils.setField(sesionReaper, "tamanoLote", 100);
+        ReflectionTestUtils.setField(sesionReaper, "maxLotes", 3);
+    }
+
+    @Test
+    public void testPurgarExpiradas_BorraHastaVaciar() {
+        // Arrange: El primer lote viene lleno y el segundo no, por lo que ya no quedan expiradas.
+        when(sesionRepository.deleteExpiradas(any(Date.class), eq(100))).thenReturn(100, 40);
+
+        // Act: Ejecuta una pasada de limpieza.
+        int total = sesionReaper.purgarExpiradas();
+
+        // Assert: Se borran ambos lotes y se detiene al encontrar un lote incompleto.
+        assertEquals(140, total, "Deberían eliminarse 140 sesiones.");
+        verify(sesionRepository, times(2)).deleteExpiradas(any(Date.class), eq(100));
+        assertEquals(140.0, registry.get("sesion.reaper.eliminadas").counter().count());
+        assertEquals(1, registry.get("sesion.reaper.duracion").timer().count());
+    }
+
+    @Test
+    public void testPurgarExpiradas_RespetaMaximoDeLotes() {
+        // Arrange: Todos los lotes vienen llenos.
+        when(sesionRepository.deleteExpiradas(any(Date.class), eq(100))).thenReturn(100);
+
+        // Act: Ejecuta una pasada de limpieza.
+        int total = sesionReaper.purgarExpiradas();
+
+        // Assert: La pasada se corta en el máximo de lotes; el resto queda para la siguiente.
+        assertEquals(300, total);
+        verify(sesionRepository, times(3)).deleteExpiradas(any(Date.class), eq(100));
+    }
+
+    @Test
+    public void testPurgarExpiradas_SinExpiradas() {
+        // Arrange: No hay sesiones expiradas.
+        when(sesionRepository.deleteExpiradas(any(Date.class), eq(100))).thenReturn(0);
+
+        // Act / Assert: Una sola consulta y nada eliminado.
+        assertEquals(0, sesionReaper.purgarExpiradas());
+        verify(sesionRepository, times(1)).deleteExpiradas(any(Date.class), eq(100));
+        assertEquals(0.0, registry.get("sesion.reaper.eliminadas").counter().count());
+    }
+}
@@ -1,16 +1,28 @@
 package com.gestionUsuario.orm4.service;
 
+import com.gestionUsuario.orm4.cache.SesionTokenCache;
+import com.gestionUsuario.orm4.model.EventoCambio.Operacion;
 import com.gestionUsuario.orm4.model.Sesion;
 import com.gestionUsuario.orm4.repository.SesionRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +38,18 @@ public class SesionServiceTest {
     @Mock
     private SesionRepository sesionRepository;
 
+    // Caché de tokens real, para comprobar cuándo se evita la consulta a la base de datos.
+    @Spy
+    private SesionTokenCache sesionTokenCache = new SesionTokenCache(1000, Duration.ofHours(1), Duration.ofSeconds(30), new SimpleMeterRegistry());
+
+    // Registro de cambios: se comprueba que cada escritura agregue su evento.
+    @Mock
+    private CambioService cambioService;
+
+    // Ejecuta el bloque transaccional directamente, sobre un gestor de transacciones simulado.
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class, RETURNS_MOCKS));
+
     @Test
     public void testFindAll() {
         // Arrange: Prepara los datos de prueba y el comportamiento del mock.
@@ -81,8 +105,9 @@ public class SesionServiceTest {
         // Arrange: Define el token a verificar.
         String existingToken = "existingToken123";
 
-        // Define el comportamiento del mock: cuando se llame a existsByToken() con "existingToken123", devuelve true.
-        when(sesionRepository.existsByToken(existingToken)).thenReturn(true);
+        // Define el comportamiento del mock: cuando se busque "existingToken123", devuelve una sesión vigente.
+        Date future = new Date(System.currentTimeMillis() + 3600 * 1000);
+        when(sesionRepository.findById(existingToken)).thenReturn(Optional.of(new Sesion(existingToken, future)));
 
         // Act: Llama al método existsByToken() del servicio.
         Boolean exists = sesionService.existsByToken(existingToken);
@@ -90,8 +115,8 @@ public class SesionServiceTest {
         // Assert: Verifica que el resultado sea true.
         assertTrue(exists, "La sesión con 'existingToken123' debería existir.");
 
-        // Verifica que el método existsByToken() del repositorio fue llamado exactamente una vez.
-        verify(sesionRepository, times(1)).existsByToken(existingToken);
+        // Verifica que el repositorio fue consultado exactamente una vez.
+        verify(sesionRepository, times(1)).findById(existingToken);
     }
 
     @Test
@@ -99,8 +124,8 @@ public class SesionServiceTest {
         // Arrange: Define el token a verificar.
         String nonExistingToken = "nonExistingToken999";
 
-        // Define el comportamiento del mock: cuando se llame a existsByToken() con "nonExistingToken999", devuelve false.
-        when(sesionRepository.existsByToken(nonExistingToken)).thenReturn(false);
+        // Define el comportamiento del mock: cuando se busque "nonExistingToken999", no encuentra nada.
+        when(sesionRepository.findById(nonExistingToken)).thenReturn(Optional.empty());
 
         // Act: Llama al método existsByToken() del servicio.
         Boolean exists = sesionService.existsByToken(nonExistingToken);
@@ -108,7 +133,169 @@ public class SesionServiceTest {
         // Assert: Verifica que el resultado sea false.
         assertFalse(exists, "La sesión con 'nonExistingToken999' no debería existir.");
 
-        // Verifica que el método existsByToken() del repositorio fue llamado exactamente una vez.
-        verify(sesionRepository, times(1)).existsByToken(nonExistingToken);
+        // Verifica que el repositorio fue consultado exactamente una vez.
+        verify(sesionRepository, times(1)).findById(nonExistingToken);
+    }
+
+    @Test
+    public void testExistsByToken_AciertoDeCache() {
+        // Arrange: Un token vigente en la base de datos.
+        String token = "tokenCacheado";
+        Date future = new Date(System.currentTimeMillis() + 3600 * 1000);
+        when(sesionRepository.findById(token)).thenReturn(Optional.of(new Sesion(token, future)));
+
+        // Act: Se valida el mismo token dos veces.
+        assertTrue(sesionService.existsByToken(token));
+        assertTrue(sesionService.existsByToken(token));
+
+        // Assert: Sólo la primera validación llega a la base de datos.
+        verify(sesionRepository, times(1)).findById(token);
+    }
+
+    @Test
+    public void testExistsByToken_CacheNegativa() {
+        // Arrange: Un token desconocido.
+        String token = "tokenDesconocido";
+        when(sesionRepository.findById(token)).thenReturn(Optional.empty());
+
+        // Act: Se valida el mismo token desconocido dos veces.
+        assertFalse(sesionService.existsByToken(token));
+        assertFalse(sesionService.existsByToken(token));
+
+        // Assert: El resultado negativo también se recuerda.
+        verify(sesionRepository, times(1)).findById(token);
+    }
+
+    @Test
+    public void testValidar_ModoTabla() {
+        // Arrange: Una sesión vigente en la base de datos.
+        String token = "tokenVigente";
+        Date future = new Date(System.currentTimeMillis() + 3600 * 1000);
+        when(sesionRepository.findById(token)).thenReturn(Optional.of(new Sesion(token, future)));
+
+        // Act / Assert: Es válida y la segunda validación se resuelve desde la caché.
+        assertTrue(sesionService.validar(token));
+        assertTrue(sesionService.validar(token));
+        verify(sesionRepository, times(1)).findById(token);
+    }
+
+    @Test
+    public void testValidar_ModoTabla_SesionExpirada() {
+        // Arrange: La fila existe, pero su sesión ya expiró y SesionReaper aún no la borra.
+        String token = "tokenExpirado";
+        Date past = new Date(System.currentTimeMillis() - 1000);
+        when(sesionRepository.findById(token)).thenReturn(Optional.of(new Sesion(token, past)));
+
+        // Act / Assert: La fila existe, pero el token no valida.
+        assertTrue(sesionService.existsByToken(token));
+        assertFalse(sesionService.validar(token), "Una sesión expirada no debería validar.");
+    }
+
+    @Test
+    public void testSave_RegistraEnCache() {
+        // Arrange: Una sesión nueva cuyo token se consultó antes de crearla (entrada negativa en caché).
+        String token = "tokenNuevo";
+        Sesion nuevaSesion = new Sesion(token, new Date(System.currentTimeMillis() + 3600 * 1000));
+        when(sesionRepository.findById(token)).thenReturn(Optional.empty());
+        when(sesionRepository.save(nuevaSesion)).thenReturn(nuevaSesion);
+        assertFalse(sesionService.existsByToken(token));
+
+        // Act: Se guarda la sesión.
+        sesionService.save(nuevaSesion);
+
+        // Assert: La sesión guardada reemplaza la entrada negativa sin volver a consultar la base de datos.
+        assertTrue(sesionService.existsByToken(token));
+        verify(sesionRepository, times(1)).findById(token);
+    }
+
+    @Test
+    public void testCrear_Exito() {
+        // Arrange: Una sesión con un token nuevo.
+        Sesion nuevaSesion = new Sesion("tokenInsertado", new Date(System.currentTimeMillis() + 3600 * 1000));
+        when(sesionRepository.insertar(nuevaSesion.getToken(), nuevaSesion.getExpiracion(), null)).thenReturn(1);
+
+        // Act: Crea la sesión.
+        boolean creada = sesionService.crear(nuevaSesion);
+
+        // Assert: Se inserta directamente, sin consultar antes, y queda registrada en la caché.
+        assertTrue(creada, "La sesión debería crearse.");
+        verify(sesionRepository, never()).existsByToken(any());
+        verify(sesionRepository, never()).findById(any());
+        assertTrue(sesionService.existsByToken(nuevaSesion.getToken()));
+        verify(sesionRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testCrear_TokenDuplicado() {
+        // Arrange: El INSERT viola la clave primaria porque el token ya existe.
+        Sesion sesionRepetida = new Sesion("tokenRepetido", new Date(System.currentTimeMillis() + 3600 * 1000));
+        when(sesionRepository.insertar(sesionRepetida.getToken(), sesionRepetida.getExpiracion(), null))
+                .thenThrow(new DataIntegrityViolationException("PRIMARY"));
+
+        // Act / Assert: La creación se rechaza.
+        assertFalse(sesionService.crear(sesionRepetida), "No debería crearse una sesión con un token repetido.");
+    }
+
+    @Test
+    public void testCrear_TokenConocidoEnCache() {
+        // Arrange: La caché ya sabe que el token existe.
+        Sesion sesion = new Sesion("tokenConocido", new Date(System.currentTimeMillis() + 3600 * 1000));
+        sesionTokenCache.registrar(sesion);
+
+        // Act / Assert: Se rechaza sin tocar la base de datos.
+        assertFalse(sesionService.crear(sesion));
+        verify(sesionRepository, never()).insertar(any(), any(), any());
+    }
+
+    @Test
+    public void testRevocar_ModoTabla() {
+        // Arrange: Una sesión existente y conocida por la caché.
+        Sesion sesion = new Sesion("tokenActivo", new Date(System.currentTimeMillis() + 3600 * 1000));
+        sesionTokenCache.registrar(sesion);
+        when(sesionRepository.deleteByToken(sesion.getToken())).thenReturn(1);
+
+        // Act: Cierra la sesión.
+        assertTrue(sesionService.revocar(sesion.getToken()));
+
+        // Assert: Un solo DELETE, sin leer antes; se registra el evento y la caché ya no da el token por válido.
+        verify(sesionRepository, never()).findById(any());
+        verify(cambioService).registrarSesion(sesion.getToken(), Operacion.BORRADO);
+        assertFalse(sesionTokenCache.contiene(sesion.getToken()));
+    }
+
+    @Test
+    public void testRevocar_ModoTabla_TokenDesconocido() {
+        when(sesionRepository.deleteByToken("tokenInexistente")).thenReturn(0);
+
+        assertFalse(sesionService.revocar("tokenInexistente"));
+        verify(sesionRepository, never()).findById(any());
+        verifyNoInteractions(cambioService);
+    }
+
+    @Test
+    public void testValidarYRevocar_ModoFirmado() {
+        // Arrange: Con sesion.modo=firmado el servicio delega en SesionFirmadaService.
+        SesionFirmadaService sesionFirmadaService = mock(SesionFirmadaService.class);
+        ReflectionTestUtils.setField(sesionService, "sesionFirmadaService", sesionFirmadaService);
+        Sesion sesion = new Sesion("carga.firma", new Date(System.currentTimeMillis() + 3600 * 1000), 7);
+        when(sesionFirmadaService.validar("carga.firma")).thenReturn(Optional.of(sesion));
+        when(sesionFirmadaService.revocar("carga.firma")).thenReturn(true);
+
+        // Act / Assert: Ni la validación ni la revocación pasan por la tabla en este servicio.
+        assertTrue(sesionService.validar("carga.firma"));
+        assertTrue(sesionService.revocar("carga.firma"));
+        verifyNoInteractions(sesionRepository);
+    }
+
+    @Test
+    public void testCrear_ModoFirmado() {
+        // Arrange: Con sesion.modo=firmado una fila en la tabla sería un token revocado.
+        ReflectionTestUtils.setField(sesionService, "sesionFirmadaService", mock(SesionFirmadaService.class));
+        Sesion sesion = new Sesion("tokenDirecto", new Date(System.currentTimeMillis() + 3600 * 1000));
+
+        // Act / Assert: No se inserta nada.
+        assertFalse(sesionService.crear(sesion));
+        assertThrows(IllegalStateException.class, () -> sesionService.save(sesion));
+        verifyNoInteractions(sesionRepository);
     }
-}
\ No newline at end of file
+}
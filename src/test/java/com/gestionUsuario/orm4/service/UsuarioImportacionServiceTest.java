@@ -0,0 +1,159 @@
+package com.gestionUsuario.orm4.service;
+
+import com.gestionUsuario.orm4.dto.ResultadoImportacion;
+import com.gestionUsuario.orm4.model.Rol;
+import com.gestionUsuario.orm4.model.Usuario;
+import com.gestionUsuario.orm4.repository.EventoCambioRepository;
+import com.gestionUsuario.orm4.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Importa contra la base H2 embebida con lotes de 50 filas
+@SpringBootTest(properties = "usuario.importacion.tamano-lote=50")
+public class UsuarioImportacionServiceTest {
+
+    @Autowired
+    private UsuarioImportacionService usuarioImportacionService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EventoCambioRepository eventoCambioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    private Usuario usuario(int i) {
+        return new Usuario(0, "Usuario " + i, "imp-" + i, "u" + i + "@example.com", "pass", null, true, null);
+    }
+
+    @Test
+    public void testImportar_EscribeEnLotes() {
+        // Arrange: 120 usuarios nuevos (tres lotes: 50, 50 y 20).
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            usuarios.add(usuario(i));
+        }
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        long eventosAntes = eventoCambioRepository.count();
+
+        // Act: Importa todos los usuarios.
+        List<ResultadoImportacion> resultados = usuarioImportacionService.importar(usuarios.iterator());
+
+        // Assert: Todas las filas quedan creadas, en orden y con id asignado.
+        assertEquals(120, resultados.size());
+        for (int i = 0; i < 120; i++) {
+            assertEquals(i, resultados.get(i).getFila());
+            assertEquals(ResultadoImportacion.Estado.CREADO, resultados.get(i).getEstado());
+            assertNotNull(resultados.get(i).getIdUsuario());
+        }
+        assertEquals(120, usuarioRepository.count());
+        // Un evento de cambio por usuario, escrito con un INSERT ... SELECT por lote
+        assertEquals(eventosAntes + 120, eventoCambioRepository.count());
+        // Los INSERT se agrupan por JDBC: muy por debajo de una sentencia por fila
+        assertEquals(120, estadisticas.getEntityInsertCount());
+        assertTrue(estadisticas.getPrepareStatementCount() < 20,
+                "Se esperaban sentencias agrupadas, hubo " + estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testImportar_RutDuplicadoSoloFallaSuFila() {
+        // Arrange: Un RUT ya registrado y otro repetido dentro de la misma importación.
+        usuarioRepository.save(usuario(1));
+        List<Usuario> usuarios = List.of(usuario(0), usuario(1), usuario(2), usuario(2), usuario(3));
+
+        // Act: Importa los usuarios.
+        List<ResultadoImportacion> resultados = usuarioImportacionService.importar(usuarios.iterator());
+
+        // Assert: Sólo fallan las filas duplicadas; el resto del lote se escribe.
+        assertEquals(ResultadoImportacion.Estado.CREADO, resultados.get(0).getEstado());
+        assertEquals(ResultadoImportacion.Estado.ERROR, resultados.get(1).getEstado());
+        assertEquals(ResultadoImportacion.Estado.CREADO, resultados.get(2).getEstado());
+        assertEquals(ResultadoImportacion.Estado.ERROR, resultados.get(3).getEstado());
+        assertEquals(ResultadoImportacion.Estado.CREADO, resultados.get(4).getEstado());
+        assertEquals(4, usuarioRepository.count());
+    }
+
+    @Test
+    public void testImportar_FilaInvalidaNoAbortaElLote() {
+        // Arrange: Una fila sin nombre (columna NOT NULL) en medio de filas válidas.
+        Usuario sinNombre = usuario(1);
+        sinNombre.setNombre(null);
+        List<Usuario> usuarios = List.of(usuario(0), sinNombre, usuario(2));
+
+        // Act: Importa los usuarios.
+        List<ResultadoImportacion> resultados = usuarioImportacionService.importar(usuarios.iterator());
+
+        // Assert: El lote se reintenta fila por fila y sólo falla la fila inválida.
+        assertEquals(ResultadoImportacion.Estado.CREADO, resultados.get(0).getEstado());
+        assertEquals(ResultadoImportacion.Estado.ERROR, resultados.get(1).getEstado());
+        assertNotNull(resultados.get(1).getMensaje());
+        assertEquals(ResultadoImportacion.Estado.CREADO, resultados.get(2).getEstado());
+        assertEquals(2, usuarioRepository.count());
+    }
+
+    @Test
+    public void testImportar_RolNuevoSoloFallaSuFila() {
+        // Arrange: Una fila con un rol sin id (no registrado) en medio de filas válidas.
+        Usuario rolNuevo = usuario(1);
+        rolNuevo.setRol(new Rol(0, "Nuevo", null));
+        List<Usuario> usuarios = List.of(usuario(0), rolNuevo, usuario(2));
+
+        // Act: Importa los usuarios.
+        List<ResultadoImportacion> resultados = usuarioImportacionService.importar(usuarios.iterator());
+
+        // Assert: La fila se rechaza al validarla; el resto del lote se escribe.
+        assertEquals(ResultadoImportacion.Estado.CREADO, resultados.get(0).getEstado());
+        assertEquals(ResultadoImportacion.Estado.ERROR, resultados.get(1).getEstado());
+        assertEquals("El rol debe existir (idRol)", resultados.get(1).getMensaje());
+        assertEquals(ResultadoImportacion.Estado.CREADO, resultados.get(2).getEstado());
+        assertEquals(2, usuarioRepository.count());
+    }
+
+    @Test
+    public void testImportar_EntradaMalFormada() {
+        // Arrange: La entrada falla al leer la tercera fila.
+        Iterator<Usuario> entrada = new Iterator<>() {
+            private int leidas = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (leidas == 2) {
+                    throw new IllegalStateException("JSON mal formado");
+                }
+                return true;
+            }
+
+            @Override
+            public Usuario next() {
+                return usuario(leidas++);
+            }
+        };
+
+        // Act: Importa hasta el error.
+        List<ResultadoImportacion> resultados = usuarioImportacionService.importar(entrada);
+
+        // Assert: Las filas leídas se escriben y el error se informa en la fila siguiente.
+        assertEquals(3, resultados.size());
+        assertEquals(ResultadoImportacion.Estado.ERROR, resultados.get(2).getEstado());
+        assertEquals(2, usuarioRepository.count());
+    }
+}
@@ -1,5 +1,7 @@
 package com.gestionUsuario.orm4.service;
 
+import com.gestionUsuario.orm4.cache.PermisoIndex;
+import com.gestionUsuario.orm4.cache.UsuarioBusquedaIndex;
 import com.gestionUsuario.orm4.model.Permiso;
 import com.gestionUsuario.orm4.model.Rol;
 import com.gestionUsuario.orm4.model.Usuario;
@@ -8,10 +10,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.data.domain.Limit;
 
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +39,30 @@ public class UsuarioServiceTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    // Crea un mock del EntityManager usado para liberar las páginas ya procesadas.
+    @Mock
+    private EntityManager entityManager;
+
+    // Crea un mock del índice de permisos que se actualiza con cada escritura.
+    @Mock
+    private PermisoIndex permisoIndex;
+
+    // Crea un mock del índice de búsqueda, que también se actualiza con cada escritura.
+    @Mock
+    private UsuarioBusquedaIndex usuarioBusquedaIndex;
+
+    // Crea un mock del servicio de contraseñas (el hash real se prueba en ContrasenaServiceTest).
+    @Mock
+    private ContrasenaService contrasenaService;
+
+    // Registro de cambios: se comprueba que cada escritura agregue su evento.
+    @Mock
+    private CambioService cambioService;
+
+    // Ejecuta el bloque transaccional directamente, sobre un gestor de transacciones simulado.
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class, RETURNS_MOCKS));
+
     @Test
     public void testFindAll() {
         // Arrange: Prepara los datos de prueba y el comportamiento del mock.
@@ -103,10 +138,14 @@ public class UsuarioServiceTest {
 
         // Define el comportamiento del mock: cuando se llame a save() con cualquier Usuario, devuelve el Usuario con ID.
         when(usuarioRepository.save(any(Usuario.class))).thenReturn(savedUsuario);
+        when(contrasenaService.hashearRecibida("newpass")).thenReturn("$2a$hash");
 
         // Act: Llama al método save() del servicio.
         Usuario result = usuarioService.save(newUsuario);
 
+        // Assert: La contraseña se guarda como hash, nunca en texto plano.
+        assertEquals("$2a$hash", newUsuario.getContrasena());
+
         // Assert: Verifica que el usuario guardado no sea nulo y tenga las propiedades correctas.
         assertNotNull(result, "El usuario guardado no debería ser nulo.");
         assertEquals(savedUsuario.getIdUsuario(), result.getIdUsuario(), "El ID del usuario guardado debe ser 3.");
@@ -116,6 +155,33 @@ public class UsuarioServiceTest {
 
         // Verifica que el método save() del repositorio fue llamado exactamente una vez con el usuario correcto.
         verify(usuarioRepository, times(1)).save(newUsuario);
+        // El índice de permisos recibe el usuario con su id asignado.
+        verify(permisoIndex, times(1)).actualizarUsuario(savedUsuario);
+        verify(usuarioBusquedaIndex, times(1)).actualizarUsuario(savedUsuario);
+    }
+
+    @Test
+    public void testVerificarContrasena_RehasheaSiHaceFalta() {
+        // Arrange: Un usuario con su contraseña heredada en texto plano.
+        Usuario usuario = new Usuario(1, "Juan Perez", "11.111.111-1", "juan@example.com", "pass123", null, true, null);
+        when(contrasenaService.verificar("pass123", "pass123")).thenReturn(new ContrasenaService.Verificacion(true, "$2a$nuevo"));
+
+        // Act: Verifica la contraseña correcta.
+        boolean coincide = usuarioService.verificarContrasena(usuario, "pass123");
+
+        // Assert: Coincide y el hash nuevo se guarda con una sola sentencia.
+        assertTrue(coincide);
+        assertEquals("$2a$nuevo", usuario.getContrasena());
+        verify(usuarioRepository, times(1)).updateContrasena(1, "$2a$nuevo");
+    }
+
+    @Test
+    public void testVerificarContrasena_Incorrecta() {
+        Usuario usuario = new Usuario(1, "Juan Perez", "11.111.111-1", "juan@example.com", "$2a$hash", null, true, null);
+        when(contrasenaService.verificar("otra", "$2a$hash")).thenReturn(new ContrasenaService.Verificacion(false, null));
+
+        assertFalse(usuarioService.verificarContrasena(usuario, "otra"));
+        verify(usuarioRepository, never()).updateContrasena(anyInt(), anyString());
     }
 
     @Test
@@ -159,13 +225,135 @@ public class UsuarioServiceTest {
         // Arrange: Define el ID a eliminar.
         int idToDelete = 1;
 
-        // Define el comportamiento del mock: cuando se llame a deleteById(), no hace nada (void method).
-        doNothing().when(usuarioRepository).deleteById(idToDelete);
+        // Define el comportamiento del mock: cuando se borre el usuario, afecta una fila.
+        when(usuarioRepository.deleteUsuarioById(idToDelete)).thenReturn(1);
 
         // Act: Llama al método deleteById() del servicio.
-        usuarioService.deleteById(idToDelete);
+        int borrados = usuarioService.deleteById(idToDelete);
+
+        // Assert: Devuelve las filas afectadas y usa el DELETE directo, sin leer antes la entidad.
+        assertEquals(1, borrados, "Debería borrarse una fila.");
+        verify(usuarioRepository, times(1)).deleteUsuarioById(idToDelete);
+        verify(usuarioRepository, never()).deleteById(anyInt());
+        verify(permisoIndex, times(1)).quitarUsuario(idToDelete);
+        verify(usuarioBusquedaIndex, times(1)).quitarUsuario(idToDelete);
+    }
+
+    @Test
+    public void testDeleteById_NoExiste() {
+        // Define el comportamiento del mock: el usuario no existe, no se afecta ninguna fila.
+        when(usuarioRepository.deleteUsuarioById(99)).thenReturn(0);
+
+        // Act / Assert: El servicio informa 0 filas borradas.
+        assertEquals(0, usuarioService.deleteById(99));
+        verifyNoInteractions(permisoIndex);
+        verifyNoInteractions(usuarioBusquedaIndex);
+    }
+
+    @Test
+    public void testUpdate() {
+        // Arrange: Un usuario existente con datos nuevos.
+        Usuario usuario = new Usuario(1, "Juan Perez", "11.111.111-1", "juan.nuevo@example.com", "pass123", "911111111", true, null);
+        when(usuarioRepository.updateUsuario(usuario)).thenReturn(1);
+
+        // Act: Llama al método update() del servicio.
+        int actualizados = usuarioService.update(usuario);
+
+        // Assert: Se actualiza con una sola sentencia y se informa la fila afectada.
+        assertEquals(1, actualizados);
+        verify(usuarioRepository, times(1)).updateUsuario(usuario);
+        verify(usuarioRepository, never()).existsById(anyInt());
+        verify(permisoIndex, times(1)).actualizarUsuario(usuario);
+        verify(usuarioBusquedaIndex, times(1)).actualizarUsuario(usuario);
+    }
+
+    @Test
+    public void testPatch_HasheaContrasena_SinReleer() {
+        // Arrange: Un parche que sólo cambia la contraseña.
+        Map<String, Object> cambios = Map.of("contrasena", "nueva");
+        when(contrasenaService.hashearRecibida("nueva")).thenReturn("$2a$10$hash");
+        when(usuarioRepository.patchUsuario(1, Map.of("contrasena", "$2a$10$hash"), null)).thenReturn(1);
+
+        // Act: Aplica el parche.
+        int actualizados = usuarioService.patch(1, cambios, null);
+
+        // Assert: Se guarda el hash y, como la contraseña no está en los índices, no se relee la fila.
+        assertEquals(1, actualizados);
+        verify(usuarioRepository, never()).findByIdUsuario(anyInt());
+        verifyNoInteractions(permisoIndex, usuarioBusquedaIndex);
+    }
+
+    @Test
+    public void testPatch_CampoIndexado_ActualizaIndices() {
+        // Arrange: Un parche del nombre sobre un usuario existente.
+        Map<String, Object> cambios = Map.of("nombre", "Juan Pablo");
+        Usuario releido = new Usuario(1, "Juan Pablo", "11.111.111-1", "juan.perez@example.com", "hash", null, true, null);
+        when(usuarioRepository.patchUsuario(1, cambios, 3L)).thenReturn(1);
+        when(usuarioRepository.findByIdUsuario(1)).thenReturn(Optional.of(releido));
+
+        // Act: Aplica el parche con la versión esperada.
+        int actualizados = usuarioService.patch(1, cambios, 3L);
+
+        // Assert: Los índices reciben la fila completa releída.
+        assertEquals(1, actualizados);
+        verify(permisoIndex, times(1)).actualizarUsuario(releido);
+        verify(usuarioBusquedaIndex, times(1)).actualizarUsuario(releido);
+    }
+
+    @Test
+    public void testPatch_ValorInvalido() {
+        // Un campo obligatorio en null o con otro tipo no llega a la base
+        assertThrows(IllegalArgumentException.class, () -> usuarioService.patch(1, Collections.singletonMap("nombre", null), null));
+        assertThrows(IllegalArgumentException.class, () -> usuarioService.patch(1, Map.of("activo", "si"), null));
+        verifyNoInteractions(usuarioRepository);
+    }
+
+    @Test
+    public void testFindPage() {
+        // Arrange: Prepara una página de usuarios posteriores al cursor.
+        Permiso permisoAdmin = new Permiso(1, "Administrador", "Acceso completo");
+        Rol rolAdmin = new Rol(1, "Administrador", permisoAdmin);
+        Usuario usuario = new Usuario(6, "Juan Perez", "11.111.111-1", "juan.perez@example.com", "pass123", "911111111", true, rolAdmin);
+
+        when(usuarioRepository.findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(5, Limit.of(10))).thenReturn(Arrays.asList(usuario));
+
+        // Act: Pide la página siguiente al id 5.
+        List<Usuario> pagina = usuarioService.findPage(5, 10);
+
+        // Assert: Se devuelve la página del repositorio, consultada por cursor.
+        assertEquals(1, pagina.size(), "La página debería contener 1 usuario.");
+        verify(usuarioRepository, times(1)).findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(5, Limit.of(10));
+    }
+
+    @Test
+    public void testForEachPage_AvanzaElCursor() {
+        // Arrange: Tres usuarios repartidos en páginas de 2; la segunda página viene incompleta.
+        Usuario usuario1 = new Usuario(1, "Juan Perez", "11.111.111-1", "juan.perez@example.com", "pass123", "911111111", true, null);
+        Usuario usuario2 = new Usuario(2, "Maria Lopez", "22.222.222-2", "maria.lopez@example.com", "pass456", "922222222", true, null);
+        Usuario usuario3 = new Usuario(7, "Pedro Gomez", "33.333.333-3", "pedro.gomez@example.com", "newpass", "933333333", true, null);
+
+        when(usuarioRepository.findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(0, Limit.of(2))).thenReturn(Arrays.asList(usuario1, usuario2));
+        when(usuarioRepository.findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(2, Limit.of(2))).thenReturn(Arrays.asList(usuario3));
+
+        // Act: Recorre todas las páginas acumulando los usuarios recibidos.
+        List<Usuario> recibidos = new ArrayList<>();
+        usuarioService.forEachPage(2, recibidos::addAll);
+
+        // Assert: Se reciben todos los usuarios, en orden, y no se consulta una página más allá de la última incompleta.
+        assertEquals(Arrays.asList(usuario1, usuario2, usuario3), recibidos);
+        verify(usuarioRepository, never()).findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(eq(7), any(Limit.class));
+    }
+
+    @Test
+    public void testForEachPage_TablaVacia() {
+        // Arrange: La primera página viene vacía.
+        when(usuarioRepository.findByIdUsuarioGreaterThanOrderByIdUsuarioAsc(0, Limit.of(100))).thenReturn(Collections.emptyList());
+
+        // Act: Recorre la tabla.
+        List<Usuario> recibidos = new ArrayList<>();
+        usuarioService.forEachPage(100, recibidos::addAll);
 
-        // Assert: Verifica que el método deleteById() del repositorio se haya llamado exactamente una vez con el ID proporcionado.
-        verify(usuarioRepository, times(1)).deleteById(idToDelete);
+        // Assert: El consumidor no recibe nada.
+        assertTrue(recibidos.isEmpty(), "No se esperaban usuarios.");
     }
 }
\ No newline at end of file